@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.LONG_SERIALIZER;
+
+public class CacheBackedTaskDurationRepository implements TaskDurationRepository {
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final PersistentIndexedCache<String, Long> durationCache;
+
+    public CacheBackedTaskDurationRepository(TaskArtifactStateCacheAccess cacheAccess) {
+        this.cacheAccess = cacheAccess;
+        durationCache = cacheAccess.createCache("taskDurations", String.class, LONG_SERIALIZER);
+    }
+
+    public Map<String, Long> getDurations(final Collection<String> taskPaths) {
+        return cacheAccess.useCache("Load task durations", new Factory<Map<String, Long>>() {
+            public Map<String, Long> create() {
+                Map<String, Long> durations = new HashMap<String, Long>();
+                for (String taskPath : taskPaths) {
+                    Long duration = durationCache.get(taskPath);
+                    if (duration != null) {
+                        durations.put(taskPath, duration);
+                    }
+                }
+                return durations;
+            }
+        });
+    }
+
+    public void recordDuration(final String taskPath, final long durationMillis) {
+        cacheAccess.useCache("Update task duration", new Runnable() {
+            public void run() {
+                durationCache.put(taskPath, durationMillis);
+            }
+        });
+    }
+}
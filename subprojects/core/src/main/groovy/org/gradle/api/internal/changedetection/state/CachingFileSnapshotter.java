@@ -15,8 +15,10 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.hash.FileHashAlgorithm;
 import org.gradle.api.internal.hash.Hasher;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentStore;
@@ -33,8 +35,12 @@ public class CachingFileSnapshotter implements FileSnapshotter {
     private final StringInterner stringInterner;
 
     public CachingFileSnapshotter(Hasher hasher, PersistentStore store, StringInterner stringInterner) {
+        this(hasher, FileHashAlgorithm.MD5.getCacheName(), store, stringInterner);
+    }
+
+    public CachingFileSnapshotter(Hasher hasher, String cacheName, PersistentStore store, StringInterner stringInterner) {
         this.hasher = hasher;
-        this.cache = store.createCache("fileHashes", String.class, serializer);
+        this.cache = store.createCache(cacheName, String.class, serializer);
         this.stringInterner = stringInterner;
     }
 
@@ -47,17 +53,54 @@ public class CachingFileSnapshotter implements FileSnapshotter {
     }
 
     private FileInfo snapshot(File file, long length, long timestamp) {
-        String absolutePath = file.getAbsolutePath();
-        FileInfo info = cache.get(absolutePath);
+        FileInfo info = findCachedSnapshot(file, length, timestamp);
+        if (info != null) {
+            return info;
+        }
+
+        info = calculateSnapshot(file, length, timestamp);
+        cacheSnapshot(file, info);
+        return info;
+    }
+
+    /**
+     * Returns the cached snapshot of the given file, or null when there is no cached snapshot or the file has changed since it was taken.
+     * Must be called while holding the cache lock.
+     */
+    @Nullable
+    public FileInfo findCachedSnapshot(FileTreeElement file) {
+        return findCachedSnapshot(file.getFile(), file.getSize(), file.getLastModified());
+    }
 
+    /**
+     * Hashes the given file without consulting or updating the cache. Does not require the cache lock and may be called concurrently.
+     */
+    public FileInfo calculateSnapshot(FileTreeElement file) {
+        return calculateSnapshot(file.getFile(), file.getSize(), file.getLastModified());
+    }
+
+    /**
+     * Stores a snapshot calculated by {@link #calculateSnapshot(FileTreeElement)}. Must be called while holding the cache lock.
+     */
+    public void cacheSnapshot(FileTreeElement file, FileInfo info) {
+        cacheSnapshot(file.getFile(), info);
+    }
+
+    private FileInfo findCachedSnapshot(File file, long length, long timestamp) {
+        FileInfo info = cache.get(file.getAbsolutePath());
         if (info != null && length == info.length && timestamp == info.timestamp) {
             return info;
         }
+        return null;
+    }
 
+    private FileInfo calculateSnapshot(File file, long length, long timestamp) {
         byte[] hash = hasher.hash(file);
-        info = new FileInfo(hash, length, timestamp);
-        cache.put(stringInterner.intern(absolutePath), info);
-        return info;
+        return new FileInfo(hash, length, timestamp);
+    }
+
+    private void cacheSnapshot(File file, FileInfo info) {
+        cache.put(stringInterner.intern(file.getAbsolutePath()), info);
     }
 
     public static class FileInfo implements FileSnapshot {
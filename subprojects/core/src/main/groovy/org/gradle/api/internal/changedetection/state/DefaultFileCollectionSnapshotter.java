@@ -64,8 +64,12 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
             return new FileCollectionSnapshotImpl(Collections.<String, IncrementalFileSnapshot>emptyMap());
         }
 
-        final Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
+        Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
+        snapshotFiles(allFileVisitDetails, missingFiles, snapshots);
+        return new FileCollectionSnapshotImpl(snapshots);
+    }
 
+    protected void snapshotFiles(final List<FileVisitDetails> allFileVisitDetails, final List<File> missingFiles, final Map<String, IncrementalFileSnapshot> snapshots) {
         cacheAccess.useCache("Create file snapshot", new Runnable() {
             public void run() {
                 for (FileVisitDetails fileDetails : allFileVisitDetails) {
@@ -78,16 +82,18 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
                         }
                     }
                 }
-                for (File missingFile : missingFiles) {
-                    final String absolutePath = stringInterner.intern(missingFile.getAbsolutePath());
-                    if (!snapshots.containsKey(absolutePath)) {
-                        snapshots.put(absolutePath, MissingFileSnapshot.getInstance());
-                    }
-                }
+                addMissingFiles(missingFiles, snapshots);
             }
         });
+    }
 
-        return new FileCollectionSnapshotImpl(snapshots);
+    protected void addMissingFiles(List<File> missingFiles, Map<String, IncrementalFileSnapshot> snapshots) {
+        for (File missingFile : missingFiles) {
+            final String absolutePath = stringInterner.intern(missingFile.getAbsolutePath());
+            if (!snapshots.containsKey(absolutePath)) {
+                snapshots.put(absolutePath, MissingFileSnapshot.getInstance());
+            }
+        }
     }
 
     protected void visitFiles(FileCollection input, final List<FileVisitDetails> allFileVisitDetails, final List<File> missingFiles) {
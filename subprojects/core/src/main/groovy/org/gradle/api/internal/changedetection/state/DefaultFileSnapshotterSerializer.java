@@ -21,10 +21,23 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Serializes file collection snapshots. Paths are written in sorted order, each one as the length of the prefix it shares with the previous
+ * path followed by the remaining characters, so that the common parent directories of the files are written only once.
+ *
+ * <p>Snapshots written by earlier versions, which contain every path in full, can still be read. They are replaced by the compact format
+ * the next time the task history is updated.</p>
+ */
 class DefaultFileSnapshotterSerializer implements Serializer<DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl> {
+    // Never a valid entry count, so it distinguishes the prefix encoded format from the original one
+    private static final int PREFIX_ENCODED = -1;
+
     private final StringInterner stringInterner;
 
     public DefaultFileSnapshotterSerializer(StringInterner stringInterner) {
@@ -35,40 +48,78 @@ class DefaultFileSnapshotterSerializer implements Serializer<DefaultFileCollecti
         Map<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot> snapshots = new HashMap<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot>();
         DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl snapshot = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots);
         int snapshotsCount = decoder.readSmallInt();
-        for (int i = 0; i < snapshotsCount; i++) {
-            String key = stringInterner.intern(decoder.readString());
-            byte fileSnapshotKind = decoder.readByte();
-            if (fileSnapshotKind == 1) {
-                snapshots.put(key, DefaultFileCollectionSnapshotter.DirSnapshot.getInstance());
-            } else if (fileSnapshotKind == 2) {
-                snapshots.put(key, DefaultFileCollectionSnapshotter.MissingFileSnapshot.getInstance());
-            } else if (fileSnapshotKind == 3) {
-                byte hashSize = decoder.readByte();
-                byte[] hash = new byte[hashSize];
-                decoder.readBytes(hash);
-                snapshots.put(key, new DefaultFileCollectionSnapshotter.FileHashSnapshot(hash));
-            } else {
-                throw new RuntimeException("Unable to read serialized file collection snapshot. Unrecognized value found in the data stream.");
+        if (snapshotsCount == PREFIX_ENCODED) {
+            snapshotsCount = decoder.readSmallInt();
+            String previous = "";
+            for (int i = 0; i < snapshotsCount; i++) {
+                int sharedPrefixLength = decoder.readSmallInt();
+                String key = stringInterner.intern(previous.substring(0, sharedPrefixLength).concat(decoder.readString()));
+                snapshots.put(key, readFileSnapshot(decoder));
+                previous = key;
+            }
+        } else {
+            for (int i = 0; i < snapshotsCount; i++) {
+                String key = stringInterner.intern(decoder.readString());
+                snapshots.put(key, readFileSnapshot(decoder));
             }
         }
         return snapshot;
     }
 
+    private DefaultFileCollectionSnapshotter.IncrementalFileSnapshot readFileSnapshot(Decoder decoder) throws Exception {
+        byte fileSnapshotKind = decoder.readByte();
+        if (fileSnapshotKind == 1) {
+            return DefaultFileCollectionSnapshotter.DirSnapshot.getInstance();
+        } else if (fileSnapshotKind == 2) {
+            return DefaultFileCollectionSnapshotter.MissingFileSnapshot.getInstance();
+        } else if (fileSnapshotKind == 3) {
+            byte hashSize = decoder.readByte();
+            byte[] hash = new byte[hashSize];
+            decoder.readBytes(hash);
+            return new DefaultFileCollectionSnapshotter.FileHashSnapshot(hash);
+        } else {
+            throw new RuntimeException("Unable to read serialized file collection snapshot. Unrecognized value found in the data stream.");
+        }
+    }
+
     public void write(Encoder encoder, DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl value) throws Exception {
-        encoder.writeSmallInt(value.snapshots.size());
-        for (String key : value.snapshots.keySet()) {
-            encoder.writeString(key);
-            DefaultFileCollectionSnapshotter.IncrementalFileSnapshot incrementalFileSnapshot = value.snapshots.get(key);
-            if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.DirSnapshot) {
-                encoder.writeByte((byte) 1);
-            } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot) {
-                encoder.writeByte((byte) 2);
-            } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.FileHashSnapshot) {
-                encoder.writeByte((byte) 3);
-                byte[] hash = ((DefaultFileCollectionSnapshotter.FileHashSnapshot) incrementalFileSnapshot).hash;
-                encoder.writeByte((byte) hash.length);
-                encoder.writeBytes(hash);
-            }
+        List<String> keys = new ArrayList<String>(value.snapshots.keySet());
+        Collections.sort(keys);
+        encoder.writeSmallInt(PREFIX_ENCODED);
+        encoder.writeSmallInt(keys.size());
+        String previous = "";
+        for (String key : keys) {
+            int sharedPrefixLength = sharedPrefixLength(previous, key);
+            encoder.writeSmallInt(sharedPrefixLength);
+            encoder.writeString(key.substring(sharedPrefixLength));
+            writeFileSnapshot(encoder, value.snapshots.get(key));
+            previous = key;
+        }
+    }
+
+    private void writeFileSnapshot(Encoder encoder, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot incrementalFileSnapshot) throws Exception {
+        if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.DirSnapshot) {
+            encoder.writeByte((byte) 1);
+        } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot) {
+            encoder.writeByte((byte) 2);
+        } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.FileHashSnapshot) {
+            encoder.writeByte((byte) 3);
+            byte[] hash = ((DefaultFileCollectionSnapshotter.FileHashSnapshot) incrementalFileSnapshot).hash;
+            encoder.writeByte((byte) hash.length);
+            encoder.writeBytes(hash);
+        }
+    }
+
+    private static int sharedPrefixLength(String previous, String key) {
+        int maxLength = Math.min(previous.length(), key.length());
+        int length = 0;
+        while (length < maxLength && previous.charAt(length) == key.charAt(length)) {
+            length++;
+        }
+        // Do not split a surrogate pair between the prefix and the written suffix
+        if (length > 0 && Character.isHighSurrogate(key.charAt(length - 1))) {
+            length--;
         }
+        return length;
     }
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.internal.file.ImmutablePatternSet;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers the snapshots of directory trees across the builds of a build session.
+ *
+ * <p>Each remembered tree is watched for changes through the file watcher of the build session, and is forgotten as soon as a change is
+ * reported anywhere below its root. A remembered snapshot is reused without looking at the files of the tree again. Between
+ * {@link #startWatching(DirectoryFileTree)} and {@link #put(DirectoryFileTree, long, FileCollectionSnapshot)} any change at all discards the
+ * snapshot, as it may have been taken while the tree was changing.</p>
+ *
+ * <p>If the watcher reports a change without a file, such as an overflow of its event queue, all trees are forgotten and walked again. If the
+ * watcher fails, nothing is remembered for the rest of the session.</p>
+ */
+public class DirectoryTreeSnapshotCache implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(DirectoryTreeSnapshotCache.class);
+
+    private final FileWatcherFactory fileWatcherFactory;
+    private final Lock lock = new ReentrantLock();
+    private final Map<TreeKey, FileCollectionSnapshot> snapshots = new HashMap<TreeKey, FileCollectionSnapshot>();
+    private FileWatcher watcher;
+    private long changeCount;
+    private boolean failed;
+
+    public DirectoryTreeSnapshotCache(FileWatcherFactory fileWatcherFactory) {
+        this.fileWatcherFactory = fileWatcherFactory;
+    }
+
+    /**
+     * Returns the remembered snapshot of the given tree, or null when the tree is not known or may have changed.
+     */
+    @Nullable
+    public FileCollectionSnapshot get(DirectoryFileTree tree) {
+        lock.lock();
+        try {
+            return snapshots.get(new TreeKey(tree));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts watching the root of the given tree, which must be done before the tree is visited to take the snapshot.
+     *
+     * @return the token to pass to {@link #put(DirectoryFileTree, long, FileCollectionSnapshot)}, or -1 if the tree cannot be watched.
+     */
+    public long startWatching(DirectoryFileTree tree) {
+        FileWatcher currentWatcher;
+        long token;
+        lock.lock();
+        try {
+            if (failed) {
+                return -1;
+            }
+            if (watcher == null) {
+                watcher = fileWatcherFactory.watch(new Action<Throwable>() {
+                    public void execute(Throwable throwable) {
+                        watchFailed(throwable);
+                    }
+                }, new FileWatcherListener() {
+                    public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                        changed(event);
+                    }
+                });
+            }
+            currentWatcher = watcher;
+            token = changeCount;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            currentWatcher.watch(FileSystemSubset.builder().add(tree.getDir(), new PatternSet()).build());
+        } catch (IOException e) {
+            watchFailed(e);
+            return -1;
+        }
+        return token;
+    }
+
+    /**
+     * Remembers the snapshot of the given tree, unless something changed since the matching call to {@link #startWatching(DirectoryFileTree)}.
+     */
+    public void put(DirectoryFileTree tree, long token, FileCollectionSnapshot snapshot) {
+        lock.lock();
+        try {
+            if (!failed && token == changeCount) {
+                snapshots.put(new TreeKey(tree), snapshot);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets all trees that contain, or are contained in, any of the given files. Used for files that are written by the build itself,
+     * so that the snapshot does not depend on when the watcher reports the change.
+     */
+    public void invalidate(Iterable<File> files) {
+        lock.lock();
+        try {
+            changeCount++;
+            for (File file : files) {
+                removeOverlapping(file.getAbsoluteFile());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void changed(FileWatcherEvent event) {
+        lock.lock();
+        try {
+            changeCount++;
+            if (event.getType() == FileWatcherEvent.Type.UNDEFINED || event.getFile() == null) {
+                snapshots.clear();
+            } else {
+                removeOverlapping(event.getFile().getAbsoluteFile());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeOverlapping(File file) {
+        Iterator<TreeKey> iterator = snapshots.keySet().iterator();
+        while (iterator.hasNext()) {
+            File dir = iterator.next().dir;
+            if (isAncestorOrSelf(dir, file) || isAncestorOrSelf(file, dir)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isAncestorOrSelf(File ancestor, File file) {
+        String ancestorPath = ancestor.getPath();
+        String path = file.getPath();
+        return path.startsWith(ancestorPath) && (path.length() == ancestorPath.length() || path.charAt(ancestorPath.length()) == File.separatorChar);
+    }
+
+    private void watchFailed(Throwable failure) {
+        LOGGER.info("Stopped remembering directory tree snapshots, as watching for changes failed.", failure);
+        lock.lock();
+        try {
+            failed = true;
+            snapshots.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void stop() {
+        FileWatcher currentWatcher;
+        lock.lock();
+        try {
+            currentWatcher = watcher;
+            watcher = null;
+            failed = true;
+            snapshots.clear();
+        } finally {
+            lock.unlock();
+        }
+        if (currentWatcher != null) {
+            currentWatcher.stop();
+        }
+    }
+
+    private static class TreeKey {
+        private final File dir;
+        private final PatternSet patterns;
+
+        private TreeKey(DirectoryFileTree tree) {
+            this.dir = tree.getDir().getAbsoluteFile();
+            this.patterns = ImmutablePatternSet.of(tree.getPatterns());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TreeKey other = (TreeKey) o;
+            return dir.equals(other.dir) && patterns.equals(other.patterns);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * dir.hashCode() + patterns.hashCode();
+        }
+    }
+}
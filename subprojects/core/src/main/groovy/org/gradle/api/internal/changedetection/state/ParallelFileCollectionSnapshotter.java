@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.file.FileResolver;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link FileCollectionSnapshotter} that hashes files concurrently.
+ *
+ * <p>Snapshotting happens in three phases: cached file hashes are looked up while holding the cache lock, the files whose hashes
+ * are missing or out of date are then hashed on the build operation worker pool without holding the lock, and finally the new hashes are
+ * written back to the cache in a single batch.</p>
+ */
+public class ParallelFileCollectionSnapshotter extends DefaultFileCollectionSnapshotter {
+    public final static String TOGGLE_PROPERTY = "org.gradle.snapshotting.parallel";
+
+    private final CachingFileSnapshotter snapshotter;
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final StringInterner stringInterner;
+    private final BuildOperationProcessor buildOperationProcessor;
+
+    public ParallelFileCollectionSnapshotter(CachingFileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver,
+                                             BuildOperationProcessor buildOperationProcessor) {
+        super(snapshotter, cacheAccess, stringInterner, fileResolver);
+        this.snapshotter = snapshotter;
+        this.cacheAccess = cacheAccess;
+        this.stringInterner = stringInterner;
+        this.buildOperationProcessor = buildOperationProcessor;
+    }
+
+    public static boolean isEnabled() {
+        return "true".equalsIgnoreCase(System.getProperty(TOGGLE_PROPERTY));
+    }
+
+    @Override
+    protected void snapshotFiles(final List<FileVisitDetails> allFileVisitDetails, final List<File> missingFiles, final Map<String, IncrementalFileSnapshot> snapshots) {
+        final List<HashFileOperation> filesToHash = Lists.newArrayList();
+
+        cacheAccess.useCache("Create file snapshot", new Runnable() {
+            public void run() {
+                for (FileVisitDetails fileDetails : allFileVisitDetails) {
+                    final String absolutePath = stringInterner.intern(fileDetails.getFile().getAbsolutePath());
+                    if (!snapshots.containsKey(absolutePath)) {
+                        if (fileDetails.isDirectory()) {
+                            snapshots.put(absolutePath, DirSnapshot.getInstance());
+                        } else {
+                            CachingFileSnapshotter.FileInfo cached = snapshotter.findCachedSnapshot(fileDetails);
+                            if (cached != null) {
+                                snapshots.put(absolutePath, new FileHashSnapshot(cached.getHash()));
+                            } else {
+                                // Reserve the key, the hash is filled in once it has been calculated
+                                snapshots.put(absolutePath, null);
+                                filesToHash.add(new HashFileOperation(absolutePath, fileDetails));
+                            }
+                        }
+                    }
+                }
+                addMissingFiles(missingFiles, snapshots);
+            }
+        });
+
+        if (filesToHash.isEmpty()) {
+            return;
+        }
+
+        hashFiles(filesToHash);
+
+        cacheAccess.useCache("Update file snapshot cache", new Runnable() {
+            public void run() {
+                for (HashFileOperation operation : filesToHash) {
+                    snapshotter.cacheSnapshot(operation.fileDetails, operation.result);
+                    snapshots.put(operation.absolutePath, new FileHashSnapshot(operation.result.getHash()));
+                }
+            }
+        });
+    }
+
+    private void hashFiles(List<HashFileOperation> filesToHash) {
+        if (filesToHash.size() == 1) {
+            new HashFileWorker().execute(filesToHash.get(0));
+            return;
+        }
+        BuildOperationQueue<HashFileOperation> queue = buildOperationProcessor.newQueue(new HashFileWorker(), null);
+        for (HashFileOperation operation : filesToHash) {
+            queue.add(operation);
+        }
+        queue.waitForCompletion();
+    }
+
+    private static class HashFileOperation implements BuildOperation {
+        private final String absolutePath;
+        private final FileVisitDetails fileDetails;
+        private CachingFileSnapshotter.FileInfo result;
+
+        HashFileOperation(String absolutePath, FileVisitDetails fileDetails) {
+            this.absolutePath = absolutePath;
+            this.fileDetails = fileDetails;
+        }
+
+        public String getDescription() {
+            return "hash " + absolutePath;
+        }
+    }
+
+    private class HashFileWorker implements BuildOperationWorker<HashFileOperation> {
+        public String getDisplayName() {
+            return "file hasher";
+        }
+
+        public void execute(HashFileOperation operation) {
+            operation.result = snapshotter.calculateSnapshot(operation.fileDetails);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Remembers how long tasks took to execute in previous builds.
+ */
+public interface TaskDurationRepository {
+    TaskDurationRepository NOOP = new TaskDurationRepository() {
+        public Map<String, Long> getDurations(Collection<String> taskPaths) {
+            return Collections.emptyMap();
+        }
+
+        public void recordDuration(String taskPath, long durationMillis) {
+        }
+    };
+
+    /**
+     * Returns the duration in milliseconds of the most recent execution of each of the given tasks, keyed by task path.
+     * Tasks that have not been executed before are not included.
+     */
+    Map<String, Long> getDurations(Collection<String> taskPaths);
+
+    /**
+     * Records the duration in milliseconds of an execution of the given task.
+     */
+    void recordDuration(String taskPath, long durationMillis);
+}
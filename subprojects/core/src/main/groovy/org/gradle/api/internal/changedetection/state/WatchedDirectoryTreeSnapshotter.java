@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl;
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.IncrementalFileSnapshot;
+import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveContext;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.file.collections.FileTreeAdapter;
+import org.gradle.api.tasks.TaskState;
+import org.gradle.internal.serialize.SerializerRegistry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link FileCollectionSnapshotter} that reuses the snapshots of directory trees that have not changed since an earlier build in the same
+ * build session, as reported by a {@link DirectoryTreeSnapshotCache}. Everything else is snapshotted by the given snapshotter.
+ *
+ * <p>Trees that contain, or are contained in, the outputs of a task are forgotten when the task has executed.</p>
+ */
+public class WatchedDirectoryTreeSnapshotter implements FileCollectionSnapshotter, TaskExecutionListener {
+    private final FileCollectionSnapshotter snapshotter;
+    private final DirectoryTreeSnapshotCache treeSnapshotCache;
+    private final FileResolver fileResolver;
+
+    public WatchedDirectoryTreeSnapshotter(FileCollectionSnapshotter snapshotter, DirectoryTreeSnapshotCache treeSnapshotCache, FileResolver fileResolver) {
+        this.snapshotter = snapshotter;
+        this.treeSnapshotCache = treeSnapshotCache;
+        this.fileResolver = fileResolver;
+    }
+
+    public void registerSerializers(SerializerRegistry<FileCollectionSnapshot> registry) {
+        snapshotter.registerSerializers(registry);
+    }
+
+    public FileCollectionSnapshot emptySnapshot() {
+        return snapshotter.emptySnapshot();
+    }
+
+    public FileCollectionSnapshot snapshot(FileCollection input) {
+        DefaultFileCollectionResolveContext context = new DefaultFileCollectionResolveContext(fileResolver);
+        context.add(input);
+        List<FileTreeInternal> fileTrees = context.resolveAsFileTrees();
+
+        Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
+        for (FileTreeInternal fileTree : fileTrees) {
+            FileCollectionSnapshot treeSnapshot = snapshotTree(fileTree);
+            for (Map.Entry<String, IncrementalFileSnapshot> entry : ((FileCollectionSnapshotImpl) treeSnapshot).snapshots.entrySet()) {
+                if (!snapshots.containsKey(entry.getKey())) {
+                    snapshots.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return new FileCollectionSnapshotImpl(snapshots);
+    }
+
+    private FileCollectionSnapshot snapshotTree(FileTreeInternal fileTree) {
+        if (!(fileTree instanceof FileTreeAdapter) || !(((FileTreeAdapter) fileTree).getTree() instanceof DirectoryFileTree)) {
+            return snapshotter.snapshot(fileTree);
+        }
+        DirectoryFileTree directoryTree = (DirectoryFileTree) ((FileTreeAdapter) fileTree).getTree();
+        if (!directoryTree.getDir().isDirectory()) {
+            return snapshotter.snapshot(fileTree);
+        }
+
+        FileCollectionSnapshot snapshot = treeSnapshotCache.get(directoryTree);
+        if (snapshot == null) {
+            long token = treeSnapshotCache.startWatching(directoryTree);
+            snapshot = snapshotter.snapshot(fileTree);
+            if (token >= 0) {
+                treeSnapshotCache.put(directoryTree, token, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    public void beforeExecute(Task task) {
+    }
+
+    public void afterExecute(Task task, TaskState state) {
+        treeSnapshotCache.invalidate(task.getOutputs().getFiles());
+    }
+}
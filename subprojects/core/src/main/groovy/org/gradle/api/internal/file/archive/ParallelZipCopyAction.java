@@ -0,0 +1,682 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.apache.tools.zip.UnixStat;
+import org.apache.tools.zip.Zip64RequiredException;
+import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.GradleException;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.file.FileCopyDetails;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.copy.CopyAction;
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.bundling.Zip;
+import org.gradle.internal.Cast;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.reflect.DirectInstantiator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A {@link CopyAction} that compresses the entries of a ZIP file concurrently. Each file is deflated on a worker thread into an independent
+ * chunk, and the chunks are written to the archive in the order the files were visited, so that the result does not depend on the number
+ * of threads. Files that are already compressed are stored rather than deflated. Files larger than {@link #MAX_IN_MEMORY_ENTRY_SIZE} are
+ * compressed on the calling thread.
+ *
+ * <p>In incremental mode, the compressed content of an entry of the existing archive is reused when the entry's content has not changed, and the
+ * archive is made reproducible: the entries are sorted by path, with the manifest first, and use a constant timestamp. The compression level is
+ * recorded in the comment of the archive, and nothing is reused from an archive created with another level.</p>
+ *
+ * <p>The Zip64 extensions are not supported. This action is used instead of {@link ZipCopyAction} when the {@value #TOGGLE_PROPERTY}
+ * or the {@value #INCREMENTAL_PROPERTY} system property is set to {@code true}.</p>
+ */
+public class ParallelZipCopyAction implements CopyAction {
+    public static final String TOGGLE_PROPERTY = "org.gradle.zip.parallel";
+    public static final String INCREMENTAL_PROPERTY = "org.gradle.zip.incremental";
+    public static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
+    static final int MAX_IN_MEMORY_ENTRY_SIZE = 8 * 1024 * 1024;
+    private static final Logger LOGGER = Logging.getLogger(ParallelZipCopyAction.class);
+    private static final FileReplacer FILE_REPLACER = createFileReplacer();
+    private static final int MAX_PENDING_SIZE = 64 * 1024 * 1024;
+    private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<String>(Arrays.asList(
+            "jar", "war", "ear", "zip", "gz", "tgz", "bz2", "xz", "7z", "png", "jpg", "jpeg", "gif"));
+
+    private final File zipFile;
+    private final int entryCompressionMethod;
+    private final int compressionLevel;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+    private final DocumentationRegistry documentationRegistry;
+    private final String encoding;
+    private final boolean incremental;
+
+    public ParallelZipCopyAction(File zipFile, int entryCompressionMethod, int compressionLevel, ExecutorFactory executorFactory, int maxThreads,
+                                 DocumentationRegistry documentationRegistry, String encoding, boolean incremental) {
+        this.zipFile = zipFile;
+        this.entryCompressionMethod = entryCompressionMethod;
+        this.compressionLevel = compressionLevel;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+        this.documentationRegistry = documentationRegistry;
+        this.encoding = encoding;
+        this.incremental = incremental;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(TOGGLE_PROPERTY) || isIncrementalEnabled();
+    }
+
+    public static boolean isIncrementalEnabled() {
+        return Boolean.getBoolean(INCREMENTAL_PROPERTY);
+    }
+
+    private static FileReplacer createFileReplacer() {
+        if (JavaVersion.current().isJava7Compatible()) {
+            try {
+                Class<?> clazz = ParallelZipCopyAction.class.getClassLoader().loadClass("org.gradle.api.internal.file.archive.jdk7.Jdk7FileReplacer");
+                return Cast.uncheckedCast(DirectInstantiator.instantiate(clazz));
+            } catch (ClassNotFoundException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        return new RenamingFileReplacer();
+    }
+
+    /**
+     * Returns the comment of an incremental archive created with the given compression level.
+     */
+    static String getArchiveComment(int compressionLevel) {
+        return "compression-level: " + compressionLevel;
+    }
+
+    public WorkResult execute(CopyActionProcessingStream stream) {
+        ZipFileReader previous = null;
+        File destination = zipFile;
+        if (incremental && zipFile.isFile()) {
+            try {
+                previous = new ZipFileReader(zipFile, encoding);
+            } catch (IOException e) {
+                LOGGER.debug("Could not read the existing entries of ZIP '{}', creating it from scratch.", zipFile, e);
+            }
+            if (previous != null && !previous.getComment().equals(getArchiveComment(compressionLevel))) {
+                LOGGER.debug("ZIP '{}' was not created with compression level {}, creating it from scratch.", zipFile, compressionLevel);
+                CompositeStoppable.stoppable(previous).stop();
+                previous = null;
+            }
+            if (previous != null) {
+                destination = new File(zipFile.getPath() + ".tmp");
+            }
+        }
+
+        ZipFileWriter writer;
+        EntrySink sink;
+        try {
+            writer = new ZipFileWriter(destination, encoding);
+            if (incremental) {
+                writer.setComment(getArchiveComment(compressionLevel));
+            }
+            sink = incremental ? new SortingEntrySink(writer, new File(zipFile.getPath() + ".staging")) : new DirectEntrySink(writer);
+        } catch (Exception e) {
+            CompositeStoppable.stoppable(previous).stop();
+            throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+        }
+
+        StoppableExecutor executor = executorFactory.create(String.format("compress %s", zipFile.getName()), maxThreads);
+        try {
+            StreamAction action = new StreamAction(sink, previous, executor);
+            try {
+                stream.process(action);
+                action.writePending(0);
+                sink.finish();
+            } finally {
+                action.cancelPending();
+                CompositeStoppable.stoppable(sink, writer, previous).stop();
+            }
+            if (destination != zipFile) {
+                try {
+                    FILE_REPLACER.replace(destination, zipFile);
+                } catch (IOException e) {
+                    throw new GradleException(String.format("Could not replace ZIP '%s'.", zipFile), e);
+                }
+            }
+        } catch (Exception e) {
+            Zip64RequiredException zip64Failure = findZip64Failure(e);
+            if (zip64Failure != null) {
+                throw new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
+                        String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", zip64Failure.getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
+                );
+            }
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            executor.stop();
+            if (destination != zipFile) {
+                destination.delete();
+            }
+        }
+
+        return new SimpleWorkResult(true);
+    }
+
+    private static Zip64RequiredException findZip64Failure(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof Zip64RequiredException) {
+                return (Zip64RequiredException) current;
+            }
+        }
+        return null;
+    }
+
+    private int getEntryCompressionMethod(String path) {
+        if (entryCompressionMethod == ZipOutputStream.STORED) {
+            return ZipOutputStream.STORED;
+        }
+        int extensionStart = path.lastIndexOf('.');
+        if (extensionStart >= 0 && COMPRESSED_EXTENSIONS.contains(path.substring(extensionStart + 1).toLowerCase())) {
+            return ZipOutputStream.STORED;
+        }
+        return entryCompressionMethod;
+    }
+
+    private long getEntryTime(FileCopyDetails details) {
+        return incremental ? CONSTANT_TIME_FOR_ZIP_ENTRIES : details.getLastModified();
+    }
+
+    private class StreamAction implements CopyActionProcessingStreamAction {
+        private final EntrySink sink;
+        private final ZipFileReader previous;
+        private final StoppableExecutor executor;
+        private final LinkedList<PendingEntry> pending = new LinkedList<PendingEntry>();
+        private long pendingSize;
+
+        public StreamAction(EntrySink sink, ZipFileReader previous, StoppableExecutor executor) {
+            this.sink = sink;
+            this.previous = previous;
+            this.executor = executor;
+        }
+
+        public void processFile(FileCopyDetailsInternal details) {
+            if (details.isDirectory()) {
+                visitDir(details);
+            } else {
+                visitFile(details);
+            }
+        }
+
+        private void visitFile(FileCopyDetails fileDetails) {
+            String path = fileDetails.getRelativePath().getPathString();
+            final ZipFileWriter.Entry entry = new ZipFileWriter.Entry(path, getEntryTime(fileDetails), UnixStat.FILE_FLAG | fileDetails.getMode(), getEntryCompressionMethod(path));
+            try {
+                // Read the content once, as the size and each copy of the content of a filtered file run the filters again
+                InputStream contentStream = fileDetails.open();
+                try {
+                    final byte[] content = ByteStreams.toByteArray(ByteStreams.limit(contentStream, MAX_IN_MEMORY_ENTRY_SIZE + 1L));
+                    if (content.length > MAX_IN_MEMORY_ENTRY_SIZE) {
+                        writePending(0);
+                        writeLargeFile(entry, new SequenceInputStream(new ByteArrayInputStream(content), contentStream));
+                        return;
+                    }
+                    Future<CompressedEntry> compressed = executor.submit(new Callable<CompressedEntry>() {
+                        public CompressedEntry call() throws Exception {
+                            return compress(entry, content, previous);
+                        }
+                    });
+                    add(new PendingEntry(fileDetails, compressed, content.length));
+                } finally {
+                    contentStream.close();
+                }
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
+            }
+        }
+
+        private void visitDir(FileCopyDetails dirDetails) {
+            // Trailing slash in name indicates that entry is a directory
+            ZipFileWriter.Entry entry = new ZipFileWriter.Entry(dirDetails.getRelativePath().getPathString() + '/', getEntryTime(dirDetails), UnixStat.DIR_FLAG | dirDetails.getMode(), ZipOutputStream.STORED);
+            add(new PendingEntry(dirDetails, new CompressedEntry(entry, new byte[0], 0)));
+        }
+
+        private void add(PendingEntry entry) {
+            pending.add(entry);
+            pendingSize += entry.size;
+            writePending(MAX_PENDING_SIZE);
+        }
+
+        /**
+         * Writes the pending entries, in order, until no more than the given number of uncompressed bytes remain pending.
+         */
+        void writePending(long maxPendingSize) {
+            while (!pending.isEmpty() && (pendingSize > maxPendingSize || pending.getFirst().isDone())) {
+                PendingEntry next = pending.removeFirst();
+                pendingSize -= next.size;
+                try {
+                    sink.add(next.get());
+                } catch (Exception e) {
+                    throw new GradleException(String.format("Could not add %s to ZIP '%s'.", next.details, zipFile), e);
+                }
+            }
+        }
+
+        void cancelPending() {
+            for (PendingEntry entry : pending) {
+                entry.cancel();
+            }
+            pending.clear();
+        }
+
+        private void writeLargeFile(ZipFileWriter.Entry entry, InputStream content) throws Exception {
+            ZipFileReader.Entry previousEntry = previous == null ? null : previous.getEntry(entry.name);
+            if (previousEntry == null || previousEntry.method != entry.method) {
+                writeLargeEntry(entry, content);
+                return;
+            }
+
+            // The content is needed to compute its checksum, to compare it with the previous entry and to write it, so stage it once
+            File stagingFile = new File(zipFile.getPath() + ".large");
+            try {
+                CRC32 crc = new CRC32();
+                OutputStream stagingStream = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(stagingFile)), crc);
+                try {
+                    entry.size = ByteStreams.copy(content, stagingStream);
+                } finally {
+                    stagingStream.close();
+                }
+                entry.crc = crc.getValue();
+                if (isUnchanged(entry, previousEntry) && contentEquals(stagingFile, previous.open(previousEntry))) {
+                    sink.add(reuse(entry, previous, previousEntry));
+                    return;
+                }
+                InputStream stagedContent = new FileInputStream(stagingFile);
+                try {
+                    writeLargeEntry(entry, stagedContent);
+                } finally {
+                    stagedContent.close();
+                }
+            } finally {
+                stagingFile.delete();
+            }
+        }
+
+        private void writeLargeEntry(ZipFileWriter.Entry entry, InputStream content) throws IOException {
+            CRC32 crc = new CRC32();
+            OutputStream entryStream = sink.beginEntry(entry);
+            Deflater deflater = null;
+            try {
+                if (entry.method == ZipOutputStream.DEFLATED) {
+                    deflater = new Deflater(compressionLevel, true);
+                    DeflaterOutputStream deflaterStream = new DeflaterOutputStream(entryStream, deflater, 64 * 1024);
+                    ByteStreams.copy(content, new CheckedOutputStream(deflaterStream, crc));
+                    deflaterStream.finish();
+                    entry.size = deflater.getBytesRead();
+                } else {
+                    entry.size = ByteStreams.copy(content, new CheckedOutputStream(entryStream, crc));
+                }
+                entry.crc = crc.getValue();
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+            entryStream.close();
+        }
+    }
+
+    private CompressedEntry compress(ZipFileWriter.Entry entry, byte[] content, ZipFileReader previous) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        entry.crc = crc.getValue();
+        entry.size = content.length;
+        ZipFileReader.Entry previousEntry = previous == null ? null : previous.getEntry(entry.name);
+        if (isUnchanged(entry, previousEntry) && Arrays.equals(content, readContent(previous, previousEntry))) {
+            return reuse(entry, previous, previousEntry);
+        }
+        if (entry.method != ZipOutputStream.DEFLATED) {
+            return new CompressedEntry(entry, content, content.length);
+        }
+
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, content.length + content.length / 1000 + 64)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return new CompressedEntry(entry, buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns true when the previous entry has the same name, compression method, size and checksum as the given entry. The content still needs to
+     * be compared, as the checksum does not identify the content.
+     */
+    private static boolean isUnchanged(ZipFileWriter.Entry entry, ZipFileReader.Entry previousEntry) {
+        return previousEntry != null && previousEntry.method == entry.method && previousEntry.size == entry.size && previousEntry.crc == entry.crc;
+    }
+
+    private static CompressedEntry reuse(ZipFileWriter.Entry entry, ZipFileReader previous, ZipFileReader.Entry previousEntry) throws IOException {
+        entry.compressedSize = previousEntry.compressedSize;
+        return new CompressedEntry(entry, previous.getChannel(), previous.getDataOffset(previousEntry));
+    }
+
+    private static byte[] readContent(ZipFileReader previous, ZipFileReader.Entry previousEntry) throws IOException {
+        InputStream content = previous.open(previousEntry);
+        try {
+            return ByteStreams.toByteArray(content);
+        } finally {
+            content.close();
+        }
+    }
+
+    private static boolean contentEquals(File content, InputStream previousContent) throws IOException {
+        try {
+            ComparingOutputStream comparingStream = new ComparingOutputStream(previousContent);
+            Files.copy(content, comparingStream);
+            return comparingStream.matches && previousContent.read() < 0;
+        } finally {
+            previousContent.close();
+        }
+    }
+
+    private static class ComparingOutputStream extends OutputStream {
+        private final InputStream expected;
+        private final byte[] buffer = new byte[64 * 1024];
+        boolean matches = true;
+
+        ComparingOutputStream(InputStream expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (matches && len > 0) {
+                int count = ByteStreams.read(expected, buffer, 0, Math.min(len, buffer.length));
+                for (int i = 0; matches && i < count; i++) {
+                    matches = buffer[i] == b[off + i];
+                }
+                matches = matches && count > 0;
+                off += count;
+                len -= count;
+            }
+        }
+    }
+
+    /**
+     * Receives the entries of the archive as they are completed.
+     */
+    private interface EntrySink extends Closeable {
+        void add(CompressedEntry entry) throws IOException;
+
+        /**
+         * Starts an entry whose compressed content is written through the returned stream. The CRC and sizes of the entry must be set before the
+         * stream is closed.
+         */
+        OutputStream beginEntry(ZipFileWriter.Entry entry) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * Writes the entries to the archive in the order they are completed.
+     */
+    private static class DirectEntrySink implements EntrySink {
+        private final ZipFileWriter writer;
+
+        DirectEntrySink(ZipFileWriter writer) {
+            this.writer = writer;
+        }
+
+        public void add(CompressedEntry entry) throws IOException {
+            if (entry.data == null) {
+                writer.writeEntry(entry.entry, entry.source, entry.sourceOffset);
+            } else {
+                writer.writeEntry(entry.entry, entry.data, entry.length);
+            }
+        }
+
+        public OutputStream beginEntry(ZipFileWriter.Entry entry) throws IOException {
+            return writer.beginEntry(entry);
+        }
+
+        public void finish() {
+        }
+
+        public void close() {
+        }
+    }
+
+    /**
+     * Collects the entries in a staging file, then writes them to the archive sorted by path, with the manifest first.
+     */
+    private static class SortingEntrySink implements EntrySink {
+        private final ZipFileWriter writer;
+        private final File stagingFile;
+        private final RandomAccessFile staging;
+        private final List<StagedEntry> entries = new ArrayList<StagedEntry>();
+
+        SortingEntrySink(ZipFileWriter writer, File stagingFile) throws IOException {
+            this.writer = writer;
+            this.stagingFile = stagingFile;
+            this.staging = new RandomAccessFile(stagingFile, "rw");
+            staging.setLength(0);
+        }
+
+        public void add(CompressedEntry entry) throws IOException {
+            if (entry.data == null) {
+                entries.add(new StagedEntry(entry.entry, entry.source, entry.sourceOffset));
+            } else {
+                entries.add(new StagedEntry(entry.entry, staging.getChannel(), staging.getFilePointer()));
+                staging.write(entry.data, 0, entry.length);
+            }
+        }
+
+        public OutputStream beginEntry(final ZipFileWriter.Entry entry) throws IOException {
+            final long offset = staging.getFilePointer();
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    staging.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    staging.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    entry.compressedSize = staging.getFilePointer() - offset;
+                    entries.add(new StagedEntry(entry, staging.getChannel(), offset));
+                }
+            };
+        }
+
+        public void finish() throws IOException {
+            Collections.sort(entries, new Comparator<StagedEntry>() {
+                public int compare(StagedEntry left, StagedEntry right) {
+                    int rank = getRank(left.entry.name) - getRank(right.entry.name);
+                    return rank != 0 ? rank : left.entry.name.compareTo(right.entry.name);
+                }
+            });
+            for (StagedEntry entry : entries) {
+                writer.writeEntry(entry.entry, entry.source, entry.offset);
+            }
+        }
+
+        private static int getRank(String name) {
+            // The manifest must be the first entries for JarInputStream to find it
+            if (name.equals("META-INF/")) {
+                return 0;
+            }
+            if (name.equals("META-INF/MANIFEST.MF")) {
+                return 1;
+            }
+            return 2;
+        }
+
+        public void close() throws IOException {
+            try {
+                staging.close();
+            } finally {
+                stagingFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Replaces a file by deleting it and renaming the other file, for Java versions that cannot move files atomically.
+     */
+    private static class RenamingFileReplacer implements FileReplacer {
+        public void replace(File source, File target) throws IOException {
+            if (!(target.delete() && source.renameTo(target))) {
+                throw new IOException(String.format("Could not rename %s to %s.", source, target));
+            }
+        }
+    }
+
+    private static class StagedEntry {
+        final ZipFileWriter.Entry entry;
+        final FileChannel source;
+        final long offset;
+
+        StagedEntry(ZipFileWriter.Entry entry, FileChannel source, long offset) {
+            this.entry = entry;
+            this.source = source;
+            this.offset = offset;
+        }
+    }
+
+    private static class CompressedEntry {
+        final ZipFileWriter.Entry entry;
+        final byte[] data;
+        final int length;
+        final FileChannel source;
+        final long sourceOffset;
+
+        CompressedEntry(ZipFileWriter.Entry entry, byte[] data, int length) {
+            entry.compressedSize = length;
+            this.entry = entry;
+            this.data = data;
+            this.length = length;
+            this.source = null;
+            this.sourceOffset = -1;
+        }
+
+        /**
+         * An entry whose compressed content is reused from the existing archive.
+         */
+        CompressedEntry(ZipFileWriter.Entry entry, FileChannel source, long sourceOffset) {
+            this.entry = entry;
+            this.data = null;
+            this.length = 0;
+            this.source = source;
+            this.sourceOffset = sourceOffset;
+        }
+    }
+
+    private static class PendingEntry {
+        final FileCopyDetails details;
+        final long size;
+        private final Future<CompressedEntry> future;
+        private final CompressedEntry completed;
+
+        PendingEntry(FileCopyDetails details, Future<CompressedEntry> future, long size) {
+            this.details = details;
+            this.future = future;
+            this.size = size;
+            this.completed = null;
+        }
+
+        PendingEntry(FileCopyDetails details, CompressedEntry completed) {
+            this.details = details;
+            this.future = null;
+            this.size = 0;
+            this.completed = completed;
+        }
+
+        boolean isDone() {
+            return future == null || future.isDone();
+        }
+
+        CompressedEntry get() throws Exception {
+            if (future == null) {
+                return completed;
+            }
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+        }
+
+        void cancel() {
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
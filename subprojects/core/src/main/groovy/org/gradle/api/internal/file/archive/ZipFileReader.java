@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.ZipOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Provides access to the compressed content of the entries of a ZIP file, as written by {@link ZipFileWriter}. The content can be read
+ * concurrently from multiple threads.
+ *
+ * <p>The Zip64 extensions are not supported.</p>
+ */
+class ZipFileReader implements Closeable {
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIG = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private String comment;
+
+    /**
+     * @param encoding The encoding of the entry names, or null to use the platform default.
+     */
+    public ZipFileReader(File file, String encoding) throws IOException {
+        this.file = file;
+        this.randomAccessFile = new RandomAccessFile(file, "r");
+        this.channel = randomAccessFile.getChannel();
+        try {
+            readCentralDirectory(encoding == null ? Charset.defaultCharset() : Charset.forName(encoding));
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the comment of the archive, or an empty string when it has none.
+     */
+    public String getComment() {
+        return comment;
+    }
+
+    FileChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Returns the entry with the given name, or null when there is no such entry. When the file contains several entries with the same name,
+     * the first one is returned.
+     */
+    public Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Returns the offset of the compressed content of the given entry.
+     */
+    public long getDataOffset(Entry entry) throws IOException {
+        if (entry.dataOffset < 0) {
+            ByteBuffer header = read(entry.localHeaderOffset, 30);
+            if (header.getInt(0) != LOCAL_FILE_HEADER_SIG) {
+                throw new ZipException(String.format("Invalid local header for entry %s in %s.", entry.name, file));
+            }
+            entry.dataOffset = entry.localHeaderOffset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+        }
+        return entry.dataOffset;
+    }
+
+    /**
+     * Opens the uncompressed content of the given entry.
+     */
+    public InputStream open(Entry entry) throws IOException {
+        InputStream compressed = new ChannelInputStream(getDataOffset(entry), entry.compressedSize);
+        if (entry.method == ZipOutputStream.STORED) {
+            return compressed;
+        }
+        // The inflater may need a trailing dummy byte when reading raw deflate data
+        return new InflaterInputStream(new SequenceInputStream(compressed, new ByteArrayInputStream(new byte[1])), new Inflater(true)) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                inf.end();
+            }
+        };
+    }
+
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+
+    private void readCentralDirectory(Charset charset) throws IOException {
+        long length = channel.size();
+        if (length < END_OF_CENTRAL_DIRECTORY_SIZE) {
+            throw new ZipException(String.format("%s is not a ZIP file.", file));
+        }
+        int tailSize = (int) Math.min(length, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer tail = read(length - tailSize, tailSize);
+        int end = -1;
+        for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIG) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new ZipException(String.format("%s is not a ZIP file.", file));
+        }
+        int archiveCommentLength = Math.min(tail.getShort(end + 20) & 0xFFFF, tailSize - end - END_OF_CENTRAL_DIRECTORY_SIZE);
+        comment = new String(tail.array(), end + END_OF_CENTRAL_DIRECTORY_SIZE, archiveCommentLength, charset.name());
+        int count = tail.getShort(end + 10) & 0xFFFF;
+        long size = tail.getInt(end + 12) & 0xFFFFFFFFL;
+        long offset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+        if (offset + size > length || size > Integer.MAX_VALUE) {
+            throw new ZipException(String.format("Invalid central directory in %s.", file));
+        }
+
+        ByteBuffer directory = read(offset, (int) size);
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            if (pos + 46 > size || directory.getInt(pos) != CENTRAL_FILE_HEADER_SIG) {
+                throw new ZipException(String.format("Invalid central directory in %s.", file));
+            }
+            int nameLength = directory.getShort(pos + 28) & 0xFFFF;
+            int extraLength = directory.getShort(pos + 30) & 0xFFFF;
+            int commentLength = directory.getShort(pos + 32) & 0xFFFF;
+            if (pos + 46 + nameLength > size) {
+                throw new ZipException(String.format("Invalid central directory in %s.", file));
+            }
+            byte[] name = new byte[nameLength];
+            directory.position(pos + 46);
+            directory.get(name);
+            Entry entry = new Entry(
+                    new String(name, charset.name()),
+                    directory.getShort(pos + 10) & 0xFFFF,
+                    directory.getInt(pos + 16) & 0xFFFFFFFFL,
+                    directory.getInt(pos + 24) & 0xFFFFFFFFL,
+                    directory.getInt(pos + 20) & 0xFFFFFFFFL,
+                    directory.getInt(pos + 42) & 0xFFFFFFFFL);
+            if (!entries.containsKey(entry.name)) {
+                entries.put(entry.name, entry);
+            }
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException(String.format("Unexpected end of %s.", file));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private class ChannelInputStream extends InputStream {
+        private long position;
+        private long remaining;
+
+        ChannelInputStream(long position, long length) {
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (count < 0) {
+                throw new EOFException(String.format("Unexpected end of %s.", file));
+            }
+            position += count;
+            remaining -= count;
+            return count;
+        }
+    }
+
+    /**
+     * An entry of the archive.
+     */
+    static class Entry {
+        final String name;
+        final int method;
+        final long crc;
+        final long size;
+        final long compressedSize;
+        private final long localHeaderOffset;
+        private volatile long dataOffset = -1;
+
+        Entry(String name, int method, long crc, long size, long compressedSize, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.compressedSize = compressedSize;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
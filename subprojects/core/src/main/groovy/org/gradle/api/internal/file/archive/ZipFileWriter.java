@@ -0,0 +1,323 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.Zip64RequiredException;
+import org.apache.tools.zip.ZipOutputStream;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Writes a ZIP file one entry at a time, either from content that has already been compressed or from content that is compressed
+ * as it is written. The local header of an entry written from streamed content is updated once the entry is complete.
+ *
+ * <p>The Zip64 extensions are not supported, a {@link Zip64RequiredException} is thrown when the archive would require them.</p>
+ */
+class ZipFileWriter implements Closeable {
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIG = 0x06054b50;
+    private static final int EFS_FLAG = 1 << 11;
+    private static final int PLATFORM_UNIX = 3;
+    private static final int CRC_OFFSET = 14;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private final File destination;
+    private final RandomAccessFile file;
+    private final Charset charset;
+    private final boolean utf8;
+    private final List<Entry> entries = new ArrayList<Entry>();
+    private final byte[] buffer = new byte[64 * 1024];
+    private int count;
+    private long position;
+    private Entry current;
+    private byte[] comment = new byte[0];
+
+    /**
+     * @param encoding The encoding of the entry names, or null to use the platform default.
+     */
+    public ZipFileWriter(File destination, String encoding) throws IOException {
+        this.destination = destination;
+        this.charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        this.utf8 = charset.name().equals("UTF-8");
+        this.file = new RandomAccessFile(destination, "rw");
+        file.setLength(0);
+    }
+
+    /**
+     * Sets the comment of the archive, encoded using the encoding of the entry names.
+     */
+    public void setComment(String comment) {
+        this.comment = comment.getBytes(charset);
+    }
+
+    /**
+     * Writes an entry whose content has already been compressed using the entry's method. The CRC and sizes of the entry must be set.
+     */
+    public void writeEntry(Entry entry, byte[] data, int length) throws IOException {
+        assert current == null;
+        entry.compressedSize = length;
+        checkSize(entry);
+        startEntry(entry);
+        write(data, 0, length);
+    }
+
+    /**
+     * Writes an entry whose content has already been compressed using the entry's method, copying the content from the given channel.
+     * The CRC and sizes of the entry must be set.
+     */
+    public void writeEntry(Entry entry, FileChannel source, long sourcePosition) throws IOException {
+        assert current == null;
+        checkSize(entry);
+        startEntry(entry);
+        flushBuffer();
+        FileChannel target = file.getChannel();
+        long transferred = 0;
+        while (transferred < entry.compressedSize) {
+            long count = source.transferTo(sourcePosition + transferred, entry.compressedSize - transferred, target);
+            if (count <= 0) {
+                throw new EOFException(String.format("Could not read the content of %s.", entry.name));
+            }
+            transferred += count;
+        }
+        position += transferred;
+    }
+
+    /**
+     * Starts an entry whose content is written through the returned stream. The CRC and sizes of the entry are set once the content is complete.
+     */
+    public OutputStream beginEntry(Entry entry) throws IOException {
+        assert current == null;
+        startEntry(entry);
+        current = entry;
+        final long dataStart = position;
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                ZipFileWriter.this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ZipFileWriter.this.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                current.compressedSize = position - dataStart;
+                endEntry();
+            }
+        };
+    }
+
+    private void endEntry() throws IOException {
+        Entry entry = current;
+        current = null;
+        checkSize(entry);
+        flushBuffer();
+        file.seek(entry.offset + CRC_OFFSET);
+        writeInt(entry.crc);
+        writeInt(entry.compressedSize);
+        writeInt(entry.size);
+        flushBuffer();
+        file.seek(position);
+    }
+
+    private void startEntry(Entry entry) throws IOException {
+        if (entries.size() == MAX_ENTRIES) {
+            throw new Zip64RequiredException(String.format("%s contains more than %s entries.", destination, MAX_ENTRIES));
+        }
+        if (position > MAX_SIZE) {
+            throw new Zip64RequiredException(String.format("%s's size exceeds the limit of 4GByte.", destination));
+        }
+        entry.offset = position;
+        entry.encodedName = entry.name.getBytes(charset.name());
+        entries.add(entry);
+
+        writeInt(LOCAL_FILE_HEADER_SIG);
+        writeShort(getVersionNeeded(entry));
+        writeShort(utf8 ? EFS_FLAG : 0);
+        writeShort(entry.method);
+        writeInt(toDosTime(entry.time));
+        writeInt(entry.crc);
+        writeInt(entry.compressedSize);
+        writeInt(entry.size);
+        writeShort(entry.encodedName.length);
+        writeShort(0);
+        write(entry.encodedName, 0, entry.encodedName.length);
+    }
+
+    private void checkSize(Entry entry) throws Zip64RequiredException {
+        if (entry.size >= MAX_SIZE || entry.compressedSize >= MAX_SIZE) {
+            throw new Zip64RequiredException(String.format("%s's size exceeds the limit of 4GByte.", entry.name));
+        }
+    }
+
+    /**
+     * Writes the central directory and closes the file.
+     */
+    public void close() throws IOException {
+        try {
+            long centralDirectoryOffset = position;
+            for (Entry entry : entries) {
+                writeInt(CENTRAL_FILE_HEADER_SIG);
+                writeShort((PLATFORM_UNIX << 8) | 20);
+                writeShort(getVersionNeeded(entry));
+                writeShort(utf8 ? EFS_FLAG : 0);
+                writeShort(entry.method);
+                writeInt(toDosTime(entry.time));
+                writeInt(entry.crc);
+                writeInt(entry.compressedSize);
+                writeInt(entry.size);
+                writeShort(entry.encodedName.length);
+                writeShort(0);
+                writeShort(0);
+                writeShort(0);
+                writeShort(0);
+                writeInt(entry.getExternalAttributes());
+                writeInt(entry.offset);
+                write(entry.encodedName, 0, entry.encodedName.length);
+            }
+            long centralDirectorySize = position - centralDirectoryOffset;
+            if (position > MAX_SIZE) {
+                throw new Zip64RequiredException(String.format("%s's size exceeds the limit of 4GByte.", destination));
+            }
+
+            writeInt(END_OF_CENTRAL_DIRECTORY_SIG);
+            writeShort(0);
+            writeShort(0);
+            writeShort(entries.size());
+            writeShort(entries.size());
+            writeInt(centralDirectorySize);
+            writeInt(centralDirectoryOffset);
+            writeShort(comment.length);
+            write(comment, 0, comment.length);
+            flushBuffer();
+        } finally {
+            file.close();
+        }
+    }
+
+    private static int getVersionNeeded(Entry entry) {
+        return entry.method == ZipOutputStream.DEFLATED ? 20 : 10;
+    }
+
+    private void writeShort(int value) throws IOException {
+        ensureCapacity(2);
+        buffer[count++] = (byte) value;
+        buffer[count++] = (byte) (value >>> 8);
+        position += 2;
+    }
+
+    private void writeInt(long value) throws IOException {
+        ensureCapacity(4);
+        buffer[count++] = (byte) value;
+        buffer[count++] = (byte) (value >>> 8);
+        buffer[count++] = (byte) (value >>> 16);
+        buffer[count++] = (byte) (value >>> 24);
+        position += 4;
+    }
+
+    private void write(byte[] data, int offset, int length) throws IOException {
+        if (length > buffer.length - count) {
+            flushBuffer();
+            if (length > buffer.length) {
+                file.write(data, offset, length);
+                position += length;
+                return;
+            }
+        }
+        System.arraycopy(data, offset, buffer, count, length);
+        count += length;
+        position += length;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (length > buffer.length - count) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        file.write(buffer, 0, count);
+        count = 0;
+    }
+
+    static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            // 1980-01-01 00:00, the earliest time that can be represented
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (year - 1980) << 25)
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    /**
+     * An entry of the archive.
+     */
+    static class Entry {
+        final String name;
+        final long time;
+        final int unixMode;
+        final int method;
+        final boolean directory;
+        long crc;
+        long size;
+        long compressedSize;
+        private long offset;
+        private byte[] encodedName;
+
+        /**
+         * @param name The name of the entry, ending with a slash for a directory.
+         */
+        Entry(String name, long time, int unixMode, int method) {
+            this.name = name;
+            this.time = time;
+            this.unixMode = unixMode;
+            this.method = method;
+            this.directory = name.endsWith("/");
+        }
+
+        int getExternalAttributes() {
+            // The same attributes as ZipEntry.setUnixMode()
+            return (unixMode << 16) | ((unixMode & 0200) == 0 ? 1 : 0) | (directory ? 0x10 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -18,23 +18,94 @@ package org.gradle.api.internal.file.copy;
 import org.apache.tools.zip.Zip64Mode;
 import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 
 import java.io.File;
+import java.util.zip.Deflater;
 
 public class DefaultZipCompressor implements ZipCompressor {
+    /**
+     * The system property used to select the deflate level of ZIP entries, from 0 (fastest) to 9 (smallest), or -1 for the default level.
+     */
+    public static final String COMPRESSION_LEVEL_PROPERTY = "org.gradle.zip.compressionlevel";
+
+    private static final Logger LOGGER = Logging.getLogger(DefaultZipCompressor.class);
+    private static String lastCompressionLevelValue;
+    private static int lastCompressionLevel = Deflater.DEFAULT_COMPRESSION;
+
     private final int entryCompressionMethod;
+    private final int compressionLevel;
     private final Zip64Mode zip64Mode;
 
     public DefaultZipCompressor(boolean allowZip64Mode, int entryCompressionMethod) {
+        this(allowZip64Mode, entryCompressionMethod, getCompressionLevel());
+    }
+
+    public DefaultZipCompressor(boolean allowZip64Mode, int entryCompressionMethod, int compressionLevel) {
+        if (!isValidCompressionLevel(compressionLevel)) {
+            throw new IllegalArgumentException(String.format("Invalid compression level %s. Expected -1 (default) or a compression level from 0 to 9.", compressionLevel));
+        }
         this.entryCompressionMethod = entryCompressionMethod;
+        this.compressionLevel = compressionLevel;
         zip64Mode = allowZip64Mode ? Zip64Mode.AsNeeded : Zip64Mode.Never;
     }
 
+    /**
+     * Returns the deflate level selected by the {@value #COMPRESSION_LEVEL_PROPERTY} system property, or the default level when not set.
+     *
+     * <p>Each new value of the property is validated once. An invalid value is reported as a warning and the default level is used instead.</p>
+     */
+    public static synchronized int getCompressionLevel() {
+        String value = System.getProperty(COMPRESSION_LEVEL_PROPERTY);
+        if (value == null) {
+            return Deflater.DEFAULT_COMPRESSION;
+        }
+        if (!value.equals(lastCompressionLevelValue)) {
+            lastCompressionLevel = parseCompressionLevel(value);
+            lastCompressionLevelValue = value;
+        }
+        return lastCompressionLevel;
+    }
+
+    private static int parseCompressionLevel(String value) {
+        try {
+            int level = Integer.parseInt(value.trim());
+            if (isValidCompressionLevel(level)) {
+                return level;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        LOGGER.warn("Ignoring invalid value '{}' for system property '{}'. Expected -1 (default) or a compression level from 0 to 9.", value, COMPRESSION_LEVEL_PROPERTY);
+        return Deflater.DEFAULT_COMPRESSION;
+    }
+
+    private static boolean isValidCompressionLevel(int level) {
+        return level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION;
+    }
+
+    public int getEntryCompressionMethod() {
+        return entryCompressionMethod;
+    }
+
+    /**
+     * Returns the deflate level of the entries, from 0 (fastest) to 9 (smallest), or -1 for the default level.
+     */
+    public int getLevel() {
+        return compressionLevel;
+    }
+
+    public boolean isZip64Allowed() {
+        return zip64Mode == Zip64Mode.AsNeeded;
+    }
+
     public ZipOutputStream createArchiveOutputStream(File destination) {
         try {
             ZipOutputStream outStream = new ZipOutputStream(destination);
             outStream.setUseZip64(zip64Mode);
             outStream.setMethod(entryCompressionMethod);
+            outStream.setLevel(compressionLevel);
             return outStream;
         } catch (Exception e) {
             String message = String.format("Unable to create ZIP output stream for file %s.", destination);
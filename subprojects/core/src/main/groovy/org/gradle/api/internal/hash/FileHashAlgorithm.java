@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash;
+
+/**
+ * The hash functions available for fingerprinting file content. Each algorithm uses its own file hash cache, so that builds using
+ * different algorithms can share a cache directory.
+ */
+public enum FileHashAlgorithm {
+    MD5("fileHashes") {
+        @Override
+        public Hasher createHasher() {
+            return new DefaultHasher();
+        }
+    },
+    MURMUR3("fileHashes-murmur3") {
+        @Override
+        public Hasher createHasher() {
+            return new Murmur3Hasher();
+        }
+    };
+
+    public final static String ALGORITHM_PROPERTY = "org.gradle.hashing.algorithm";
+
+    private final String cacheName;
+
+    FileHashAlgorithm(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public abstract Hasher createHasher();
+
+    /**
+     * Returns the algorithm selected for the current build, defaulting to MD5.
+     */
+    public static FileHashAlgorithm current() {
+        String algorithm = System.getProperty(ALGORITHM_PROPERTY);
+        if (algorithm == null) {
+            return MD5;
+        }
+        for (FileHashAlgorithm candidate : values()) {
+            if (candidate.name().equalsIgnoreCase(algorithm)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown file hash algorithm '%s' specified by system property '%s'.", algorithm, ALGORITHM_PROPERTY));
+    }
+}
@@ -15,8 +15,16 @@
  */
 package org.gradle.api.internal.hash;
 
+import org.gradle.api.file.FileTreeElement;
+
 import java.io.File;
 
 public interface Hasher {
     byte[] hash(File file);
+
+    /**
+     * Hashes the content of the given element. The content is read through {@link FileTreeElement#open()}, so that the entries of an archive
+     * are hashed without being extracted.
+     */
+    byte[] hash(FileTreeElement fileDetails);
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.internal.os.OperatingSystem;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Hashes file content with the non-cryptographic 128 bit Murmur3 hash function. Large files are read through a memory mapping.
+ */
+public class Murmur3Hasher implements Hasher {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+
+    private final long mappedReadThreshold;
+
+    public Murmur3Hasher() {
+        // Windows does not allow a file to be deleted while it is mapped, and a mapping is only released when the buffer is garbage collected
+        this(OperatingSystem.current().isWindows() ? Long.MAX_VALUE : 1024 * 1024);
+    }
+
+    Murmur3Hasher(long mappedReadThreshold) {
+        this.mappedReadThreshold = mappedReadThreshold;
+    }
+
+    public byte[] hash(File file) {
+        try {
+            FileInputStream inputStream = new FileInputStream(file);
+            try {
+                com.google.common.hash.Hasher hasher = HASH_FUNCTION.newHasher();
+                FileChannel channel = inputStream.getChannel();
+                long size = channel.size();
+                if (size >= mappedReadThreshold) {
+                    hashMapped(channel, size, hasher);
+                } else {
+                    hashStream(inputStream, hasher);
+                }
+                return hasher.hash().asBytes();
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create MURMUR3 hash for file %s.", file.getAbsolutePath()), e);
+        }
+    }
+
+    public byte[] hash(FileTreeElement fileDetails) {
+        try {
+            InputStream inputStream = fileDetails.open();
+            try {
+                com.google.common.hash.Hasher hasher = HASH_FUNCTION.newHasher();
+                hashStream(inputStream, hasher);
+                return hasher.hash().asBytes();
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create MURMUR3 hash for %s.", fileDetails), e);
+        }
+    }
+
+    private static void hashMapped(FileChannel channel, long size, com.google.common.hash.Hasher hasher) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position));
+            while (region.hasRemaining()) {
+                int count = Math.min(buffer.length, region.remaining());
+                region.get(buffer, 0, count);
+                hasher.putBytes(buffer, 0, count);
+            }
+        }
+    }
+
+    private static void hashStream(InputStream inputStream, com.google.common.hash.Hasher hasher) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (true) {
+            int nread = inputStream.read(buffer);
+            if (nread < 0) {
+                break;
+            }
+            hasher.putBytes(buffer, 0, nread);
+        }
+    }
+}
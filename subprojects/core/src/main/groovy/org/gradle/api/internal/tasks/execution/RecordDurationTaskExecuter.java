@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.util.Clock;
+
+/**
+ * A {@link TaskExecuter} which records how long the task took to execute, so that later builds can schedule long running tasks early.
+ */
+public class RecordDurationTaskExecuter implements TaskExecuter {
+    private final TaskDurationRepository repository;
+    private final TaskExecuter executer;
+
+    public RecordDurationTaskExecuter(TaskDurationRepository repository, TaskExecuter executer) {
+        this.repository = repository;
+        this.executer = executer;
+    }
+
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        Clock clock = new Clock();
+        executer.execute(task, state, context);
+        repository.recordDuration(task.getPath(), clock.getTimeInMs());
+    }
+}
@@ -18,8 +18,10 @@ package org.gradle.api.tasks.bundling;
 import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.Incubating;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.archive.ParallelZipCopyAction;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.copy.*;
+import org.gradle.internal.concurrent.ExecutorFactory;
 
 /**
  * Assembles a ZIP archive.
@@ -38,11 +40,15 @@ public class Zip extends AbstractArchiveTask {
     }
 
     protected ZipCompressor getCompressor() {
+        return new DefaultZipCompressor(allowZip64, getEntryCompressionMethod());
+    }
+
+    private int getEntryCompressionMethod() {
         switch (entryCompression) {
             case DEFLATED:
-                return new DefaultZipCompressor(allowZip64, ZipOutputStream.DEFLATED);
+                return ZipOutputStream.DEFLATED;
             case STORED:
-                return new DefaultZipCompressor(allowZip64, ZipOutputStream.STORED);
+                return ZipOutputStream.STORED;
             default:
                 throw new IllegalArgumentException(String.format("Unknown Compression type %s", entryCompression));
         }
@@ -51,7 +57,15 @@ public class Zip extends AbstractArchiveTask {
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
-        return new ZipCopyAction(getArchivePath(), getCompressor(), documentationRegistry, encoding);
+        ZipCompressor compressor = getCompressor();
+        // The parallel action does its own compression, so it can only stand in for the default compressor
+        if (ParallelZipCopyAction.isEnabled() && compressor.getClass() == DefaultZipCompressor.class && !((DefaultZipCompressor) compressor).isZip64Allowed()) {
+            DefaultZipCompressor defaultCompressor = (DefaultZipCompressor) compressor;
+            ExecutorFactory executorFactory = getServices().get(ExecutorFactory.class);
+            return new ParallelZipCopyAction(getArchivePath(), defaultCompressor.getEntryCompressionMethod(), defaultCompressor.getLevel(), executorFactory,
+                    Runtime.getRuntime().availableProcessors(), documentationRegistry, encoding, ParallelZipCopyAction.isIncrementalEnabled());
+        }
+        return new ZipCopyAction(getArchivePath(), compressor, documentationRegistry, encoding);
     }
 
     /**
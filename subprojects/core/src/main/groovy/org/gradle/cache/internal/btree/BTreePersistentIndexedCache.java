@@ -17,6 +17,7 @@ package org.gradle.cache.internal.btree;
 
 import org.gradle.api.UncheckedIOException;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
@@ -41,6 +42,10 @@ import java.util.*;
 // todo - merge adjacent free blocks
 // todo - use more efficient lookup for free block with nearest size
 public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
+    public final static String MAPPED_STORE_PROPERTY = "org.gradle.cache.mapped";
+    public final static String BLOCK_CACHE_SIZE_PROPERTY = "org.gradle.cache.blockcache.size";
+    private static final long DEFAULT_BLOCK_CACHE_SIZE_MB = 4;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
     private final File cacheFile;
     private final Serializer<K> keySerializer;
@@ -48,6 +53,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private final short maxChildIndexEntries;
     private final int minIndexChildNodes;
     private final StateCheckBlockStore store;
+    private final CachingBlockStore cachingStore;
     private HeaderBlock header;
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
@@ -56,12 +62,17 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries, createFileStore(cacheFile));
+    }
+
+    BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                short maxChildIndexEntries, int maxFreeListEntries, BlockStore fileStore) {
         this.cacheFile = cacheFile;
         this.keySerializer = keySerializer;
         this.serializer = valueSerializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
+        cachingStore = new CachingBlockStore(fileStore, getBlockCacheSize(), IndexBlock.class, DataBlock.class, FreeListBlockStore.FreeListBlock.class);
         store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
         try {
             open();
@@ -70,6 +81,25 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    private static BlockStore createFileStore(File cacheFile) {
+        if ("true".equalsIgnoreCase(System.getProperty(MAPPED_STORE_PROPERTY)) && !OperatingSystem.current().isWindows()) {
+            return new MappedFileBlockStore(cacheFile);
+        }
+        return new FileBackedBlockStore(cacheFile);
+    }
+
+    private static long getBlockCacheSize() {
+        String size = System.getProperty(BLOCK_CACHE_SIZE_PROPERTY);
+        if (size == null) {
+            return DEFAULT_BLOCK_CACHE_SIZE_MB * 1024 * 1024;
+        }
+        try {
+            return Long.parseLong(size.trim()) * 1024 * 1024;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid block cache size '%s' specified by system property '%s'. Expected a number of megabytes.", size, BLOCK_CACHE_SIZE_PROPERTY), e);
+        }
+    }
+
     @Override
     public String toString() {
         return String.format("cache %s (%s)", cacheFile.getName(), cacheFile);
@@ -190,6 +220,9 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public void close() {
         LOGGER.debug("Closing {}", this);
+        if (store.isOpen()) {
+            LOGGER.info("Block cache usage for {}: {}", this, cachingStore.getStatistics());
+        }
         try {
             store.close();
         } catch (Exception e) {
@@ -637,13 +670,11 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private class DataBlock extends BlockPayload {
         private int size;
         private byte[] serialisedValue;
-        private V value;
 
         private DataBlock() {
         }
 
         public DataBlock(V value) throws Exception {
-            this.value = value;
             setValue(value);
             size = serialisedValue.length;
         }
@@ -657,10 +688,8 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
 
         public V getValue() throws Exception {
-            if (value == null) {
-                value = serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(serialisedValue)));
-            }
-            return value;
+            // Always deserialize, as data blocks are shared through the block cache and values may be mutable
+            return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(serialisedValue)));
         }
 
         @Override
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The format of a block in a cache file, shared by the file based {@link BlockStore} implementations. A block consists of a header holding a marker,
+ * the payload type and the payload size, followed by the payload and a tail holding the number of bytes written for the header and payload.
+ */
+final class BlockFormat {
+    static final int HEADER_SIZE = 2 + Block.INT_SIZE;
+    static final int TAIL_SIZE = Block.LONG_SIZE;
+    static final int BLOCK_MARKER = 0xCC;
+
+    private BlockFormat() {
+    }
+
+    /**
+     * Writes the given block to the given stream, and flushes the stream.
+     */
+    static void write(Block block, int payloadSize, OutputStream target) throws Exception {
+        CountingOutputStream countingOutputStream = new CountingOutputStream(target);
+        DataOutputStream outputStream = new DataOutputStream(countingOutputStream);
+
+        BlockPayload payload = block.getPayload();
+
+        // Write header
+        outputStream.writeByte(BLOCK_MARKER);
+        outputStream.writeByte(payload.getType());
+        outputStream.writeInt(payloadSize);
+
+        // Write body
+        payload.write(outputStream);
+
+        // Write count
+        outputStream.writeLong(countingOutputStream.getCount());
+        outputStream.flush();
+    }
+
+    /**
+     * Reads the given block, stored at the given position of a file of the given length, from the given stream.
+     *
+     * @return the payload size of the block.
+     */
+    static int read(Block block, long pos, long fileSize, InputStream source) throws Exception {
+        if (pos + HEADER_SIZE >= fileSize) {
+            throw block.blockCorruptedException();
+        }
+
+        CountingInputStream countingInputStream = new CountingInputStream(source);
+        DataInputStream inputStream = new DataInputStream(countingInputStream);
+
+        BlockPayload payload = block.getPayload();
+
+        // Read header
+        byte type = inputStream.readByte();
+        if (type != (byte) BLOCK_MARKER) {
+            throw block.blockCorruptedException();
+        }
+        type = inputStream.readByte();
+        if (type != (byte) payload.getType()) {
+            throw block.blockCorruptedException();
+        }
+
+        // Read body
+        int payloadSize = inputStream.readInt();
+        if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > fileSize) {
+            throw block.blockCorruptedException();
+        }
+        payload.read(inputStream);
+
+        // Read and verify count
+        long actualCount = countingInputStream.getCount();
+        long count = inputStream.readLong();
+        if (actualCount != count) {
+            throw block.blockCorruptedException();
+        }
+        return payloadSize;
+    }
+}
@@ -15,34 +15,44 @@
  */
 package org.gradle.cache.internal.btree;
 
-import org.apache.commons.collections.map.LRUMap;
-
 import java.util.*;
 
+/**
+ * A {@link BlockStore} that keeps dirty blocks until they are flushed, and keeps recently used blocks of the cacheable types in memory, up to a budget
+ * of serialized block bytes. The least recently used blocks are evicted when the budget is exceeded.
+ */
 public class CachingBlockStore implements BlockStore {
     private final BlockStore store;
     private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
-    private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
+    private final Map<BlockPointer, CachedBlock> blockCache = new LinkedHashMap<BlockPointer, CachedBlock>(16, 0.75f, true);
     private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
+    private final long maxCachedBytes;
+    private final BlockCacheStatistics statistics = new BlockCacheStatistics();
+    private long cachedBytes;
 
-    public CachingBlockStore(BlockStore store, Class<? extends BlockPayload>... cacheableBlockTypes) {
+    public CachingBlockStore(BlockStore store, long maxCachedBytes, Class<? extends BlockPayload>... cacheableBlockTypes) {
         this.store = store;
+        this.maxCachedBytes = maxCachedBytes;
         cachableTypes.addAll(Arrays.asList(cacheableBlockTypes));
     }
 
+    public BlockCacheStatistics getStatistics() {
+        return statistics;
+    }
+
     public void open(Runnable initAction, Factory factory) {
         store.open(initAction, factory);
     }
 
     public void close() {
         flush();
-        indexBlockCache.clear();
+        clearCache();
         store.close();
     }
 
     public void clear() {
         dirty.clear();
-        indexBlockCache.clear();
+        clearCache();
         store.clear();
     }
 
@@ -62,7 +72,7 @@ public class CachingBlockStore implements BlockStore {
 
     public void remove(BlockPayload block) {
         dirty.remove(block.getPos());
-        indexBlockCache.remove(block.getPos());
+        uncache(block.getPos());
         store.remove(block);
     }
 
@@ -77,9 +87,13 @@ public class CachingBlockStore implements BlockStore {
         if (block != null) {
             return block;
         }
-        block = payloadType.cast(indexBlockCache.get(pos));
-        if (block != null) {
-            return block;
+        CachedBlock cached = blockCache.get(pos);
+        if (cached != null) {
+            statistics.hits++;
+            return payloadType.cast(cached.payload);
+        }
+        if (cachableTypes.contains(payloadType)) {
+            statistics.misses++;
         }
         block = store.read(pos, payloadType);
         maybeCache(block);
@@ -93,8 +107,44 @@ public class CachingBlockStore implements BlockStore {
     }
 
     private <T extends BlockPayload> void maybeCache(T block) {
-        if (cachableTypes.contains(block.getClass())) {
-            indexBlockCache.put(block.getPos(), block);
+        if (!cachableTypes.contains(block.getClass())) {
+            return;
+        }
+        int size = block.getSize();
+        uncache(block.getPos());
+        if (size > maxCachedBytes) {
+            return;
+        }
+        blockCache.put(block.getPos(), new CachedBlock(block, size));
+        cachedBytes += size;
+        Iterator<CachedBlock> iterator = blockCache.values().iterator();
+        while (cachedBytes > maxCachedBytes) {
+            CachedBlock eldest = iterator.next();
+            iterator.remove();
+            cachedBytes -= eldest.size;
+            statistics.evictions++;
+        }
+    }
+
+    private void uncache(BlockPointer pos) {
+        CachedBlock removed = blockCache.remove(pos);
+        if (removed != null) {
+            cachedBytes -= removed.size;
+        }
+    }
+
+    private void clearCache() {
+        blockCache.clear();
+        cachedBytes = 0;
+    }
+
+    private static class CachedBlock {
+        final BlockPayload payload;
+        final int size;
+
+        CachedBlock(BlockPayload payload, int size) {
+            this.payload = payload;
+            this.size = size;
         }
     }
 }
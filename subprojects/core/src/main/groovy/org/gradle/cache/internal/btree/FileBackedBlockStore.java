@@ -15,8 +15,6 @@
  */
 package org.gradle.cache.internal.btree;
 
-import com.google.common.io.CountingInputStream;
-import com.google.common.io.CountingOutputStream;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.io.RandomAccessFileOutputStream;
@@ -122,10 +120,6 @@ public class FileBackedBlockStore implements BlockStore {
     }
 
     private final class BlockImpl extends Block {
-        private static final int HEADER_SIZE = 2 + INT_SIZE;
-        private static final int TAIL_SIZE = LONG_SIZE;
-        static final int BLOCK_MARKER = 0xCC;
-
         private BlockPointer pos;
         private int payloadSize;
 
@@ -163,12 +157,12 @@ public class FileBackedBlockStore implements BlockStore {
             if (payloadSize < 0) {
                 payloadSize = getPayload().getSize();
             }
-            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+            return payloadSize + BlockFormat.HEADER_SIZE + BlockFormat.TAIL_SIZE;
         }
 
         @Override
         public void setSize(int size) {
-            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            int newPayloadSize = size - BlockFormat.HEADER_SIZE - BlockFormat.TAIL_SIZE;
             assert newPayloadSize >= payloadSize;
             payloadSize = newPayloadSize;
         }
@@ -177,26 +171,10 @@ public class FileBackedBlockStore implements BlockStore {
             long pos = getPos().getPos();
             file.seek(pos);
 
-            CountingOutputStream countingOutputStream = new CountingOutputStream(new BufferedOutputStream(
-                new RandomAccessFileOutputStream(file)));
-            DataOutputStream outputStream = new DataOutputStream(countingOutputStream);
-
-            BlockPayload payload = getPayload();
-
-            // Write header
-            outputStream.writeByte(BLOCK_MARKER);
-            outputStream.writeByte(payload.getType());
-            outputStream.writeInt(payloadSize);
-            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
-
-            // Write body
-            payload.write(outputStream);
-
-            // Write count
-            outputStream.writeLong(countingOutputStream.getCount());
-            outputStream.close();
+            BlockFormat.write(this, payloadSize, new BufferedOutputStream(new RandomAccessFileOutputStream(file)));
 
             // Pad
+            long finalSize = pos + getSize();
             if (currentFileSize < finalSize) {
                 file.setLength(finalSize);
                 currentFileSize = finalSize;
@@ -206,41 +184,8 @@ public class FileBackedBlockStore implements BlockStore {
         public void read() throws Exception {
             long pos = getPos().getPos();
             assert pos >= 0;
-            if (pos + HEADER_SIZE >= currentFileSize) {
-                throw blockCorruptedException();
-            }
             file.seek(pos);
-
-            CountingInputStream countingInputStream = new CountingInputStream(new BufferedInputStream(
-                    new RandomAccessFileInputStream(file)));
-            DataInputStream inputStream = new DataInputStream(countingInputStream);
-
-            BlockPayload payload = getPayload();
-
-            // Read header
-            byte type = inputStream.readByte();
-            if (type != (byte) BLOCK_MARKER) {
-                throw blockCorruptedException();
-            }
-            type = inputStream.readByte();
-            if (type != (byte) payload.getType()) {
-                throw blockCorruptedException();
-            }
-
-            // Read body
-            payloadSize = inputStream.readInt();
-            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
-                throw blockCorruptedException();
-            }
-            payload.read(inputStream);
-
-            // Read and verify count
-            long actualCount = countingInputStream.getCount();
-            long count = inputStream.readLong();
-            if (actualCount != count) {
-                throw blockCorruptedException();
-            }
-            inputStream.close();
+            payloadSize = BlockFormat.read(this, pos, currentFileSize, new BufferedInputStream(new RandomAccessFileInputStream(file)));
         }
 
         public RuntimeException blockCorruptedException() {
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link BlockStore} that reads blocks directly from a memory mapping of the cache file, so that a block can be read without any system calls once
+ * its region of the file has been mapped. The file is mapped in fixed size regions, which are remapped when the file grows past their mapped extent.
+ * Blocks are written through the file channel and use the same {@link BlockFormat} as {@link FileBackedBlockStore}, so the two stores can be used on the same file.
+ *
+ * <p>This store must not be used on Windows, where a mapped file can be neither truncated nor deleted until the mapping has been garbage collected.</p>
+ */
+public class MappedFileBlockStore implements BlockStore {
+    static final int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+
+    private final File cacheFile;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    MappedFileBlockStore(File cacheFile, int regionSize) {
+        this.cacheFile = cacheFile;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache '%s'", cacheFile);
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
+            currentFileSize = file.length();
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        regions.clear();
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void clear() {
+        // Discard the mappings before truncating the file, as accessing a mapping beyond the end of the file fails
+        regions.clear();
+        try {
+            file.setLength(0);
+            currentFileSize = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = 0;
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(new BlockPointer(0), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Returns the mapped region containing the given position, mapping or remapping the region when required.
+     */
+    private MappedByteBuffer region(long pos) throws IOException {
+        int index = (int) (pos / regionSize);
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        long regionStart = (long) index * regionSize;
+        long requiredLength = Math.min(regionSize, currentFileSize - regionStart);
+        MappedByteBuffer region = regions.get(index);
+        if (region == null || region.capacity() < requiredLength) {
+            region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, requiredLength);
+            regions.set(index, region);
+        }
+        return region;
+    }
+
+    /**
+     * Reads bytes from the mapped regions of the file, starting at a given position.
+     */
+    private class MappedInputStream extends InputStream {
+        private long pos;
+
+        MappedInputStream(long pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos >= currentFileSize) {
+                return -1;
+            }
+            MappedByteBuffer region = region(pos);
+            int value = region.get((int) (pos % regionSize)) & 0xff;
+            pos++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (pos >= currentFileSize) {
+                return -1;
+            }
+            ByteBuffer region = region(pos).duplicate();
+            region.position((int) (pos % regionSize));
+            int count = Math.min(length, region.remaining());
+            region.get(buffer, offset, count);
+            pos += count;
+            return count;
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = new BlockPointer(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + BlockFormat.HEADER_SIZE + BlockFormat.TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - BlockFormat.HEADER_SIZE - BlockFormat.TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(getSize());
+            BlockFormat.write(this, payloadSize, bytes);
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            long writePos = pos;
+            while (buffer.hasRemaining()) {
+                writePos += channel.write(buffer, writePos);
+            }
+
+            // Pad
+            long finalSize = pos + getSize();
+            if (currentFileSize < finalSize) {
+                file.setLength(finalSize);
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            payloadSize = BlockFormat.read(this, pos, currentFileSize, new MappedInputStream(pos));
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+}
@@ -41,9 +41,16 @@ abstract class AbstractTaskPlanExecutor implements TaskPlanExecutor {
 
         public void run() {
             long busy = 0;
+            long waiting = 0;
             long start = System.currentTimeMillis();
             TaskInfo task;
-            while ((task = taskExecutionPlan.getTaskToExecute()) != null) {
+            while (true) {
+                long startWaiting = System.currentTimeMillis();
+                task = taskExecutionPlan.getTaskToExecute();
+                waiting += System.currentTimeMillis() - startWaiting;
+                if (task == null) {
+                    break;
+                }
                 final String taskPath = task.getTask().getPath();
                 LOGGER.info("{} ({}) started.", taskPath, Thread.currentThread());
                 long startTask = System.currentTimeMillis();
@@ -55,9 +62,8 @@ abstract class AbstractTaskPlanExecutor implements TaskPlanExecutor {
                 }
             }
             long total = System.currentTimeMillis() - start;
-            //TODO SF it would be nice to print one-line statement that concludes the utilisation of the worker threads
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Task worker [{}] finished, busy: {}, idle: {}", Thread.currentThread(), prettyTime(busy), prettyTime(total - busy));
+            if (LOGGER.isInfoEnabled()) {
+                LOGGER.info("Task worker [{}] finished, total: {}, busy: {}, waiting for tasks: {}", Thread.currentThread(), prettyTime(total), prettyTime(busy), prettyTime(waiting));
             }
         }
 
@@ -22,6 +22,7 @@ import com.google.common.base.StandardSystemProperty;
 import com.google.common.collect.*;
 import org.gradle.api.*;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository;
 import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
 import org.gradle.api.internal.tasks.TaskContainerInternal;
 import org.gradle.api.logging.Logger;
@@ -80,18 +81,28 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private boolean tasksCancelled;
 
     private final boolean intraProjectParallelization;
+    private final TaskDurationRepository taskDurationRepository;
 
-    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization, TaskDurationRepository taskDurationRepository) {
         this.cancellationToken = cancellationToken;
         this.intraProjectParallelization = intraProjectParallelization;
+        this.taskDurationRepository = taskDurationRepository;
 
         if (intraProjectParallelization) {
             LOGGER.info("intra project task parallelization is enabled");
         }
     }
 
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+        this(cancellationToken, intraProjectParallelization, TaskDurationRepository.NOOP);
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, TaskDurationRepository taskDurationRepository) {
+        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE), taskDurationRepository);
+    }
+
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken) {
-        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE));
+        this(cancellationToken, TaskDurationRepository.NOOP);
     }
 
     public void addToTaskGraph(Collection<? extends Task> tasks) {
@@ -309,6 +320,31 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         executionQueue.addAll(executionPlan.values());
     }
 
+    private void calculateCriticalPathCosts() {
+        // The plan is in dependency order, so walking it backwards visits every task after all of the tasks that wait for it.
+        // Until a task is visited its cost holds the highest cost of the tasks waiting for it.
+        List<TaskInfo> tasks = new ArrayList<TaskInfo>(executionPlan.values());
+        Map<String, Long> durations = taskDurationRepository.getDurations(Lists.transform(tasks, new Function<TaskInfo, String>() {
+            public String apply(TaskInfo taskInfo) {
+                return taskInfo.getTask().getPath();
+            }
+        }));
+        for (TaskInfo taskInfo : tasks) {
+            taskInfo.setCriticalPathCost(0);
+        }
+        for (TaskInfo taskInfo : Lists.reverse(tasks)) {
+            // Tasks that have not run before count as the shortest possible task
+            Long duration = durations.get(taskInfo.getTask().getPath());
+            long cost = taskInfo.getCriticalPathCost() + (duration == null ? 1 : Math.max(duration, 1));
+            taskInfo.setCriticalPathCost(cost);
+            for (TaskInfo successor : Iterables.concat(taskInfo.getDependencySuccessors(), taskInfo.getMustSuccessors(), taskInfo.getShouldSuccessors())) {
+                if (executionPlan.containsKey(successor.getTask()) && successor.getCriticalPathCost() < cost) {
+                    successor.setCriticalPathCost(cost);
+                }
+            }
+        }
+    }
+
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
         if (!walkedShouldRunAfterEdges.isEmpty() && walkedShouldRunAfterEdges.peek().to.equals(taskNode)) {
             walkedShouldRunAfterEdges.pop();
@@ -451,6 +487,24 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         this.failureHandler = handler;
     }
 
+    public void prioritizeCriticalPath() {
+        lock.lock();
+        try {
+            calculateCriticalPathCosts();
+            // Stable sort, so tasks with the same cost keep their plan order. A task always costs more than the tasks that run after it,
+            // so dependency and should-run-after order is preserved as well.
+            Collections.sort(executionQueue, new Comparator<TaskInfo>() {
+                public int compare(TaskInfo first, TaskInfo second) {
+                    long firstCost = first.getCriticalPathCost();
+                    long secondCost = second.getCriticalPathCost();
+                    return firstCost > secondCost ? -1 : firstCost == secondCost ? 0 : 1;
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public TaskInfo getTaskToExecute() {
         lock.lock();
         try {
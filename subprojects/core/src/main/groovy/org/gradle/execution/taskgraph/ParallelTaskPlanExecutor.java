@@ -43,6 +43,7 @@ class ParallelTaskPlanExecutor extends AbstractTaskPlanExecutor {
     public void process(TaskExecutionPlan taskExecutionPlan, Action<? super TaskInternal> taskWorker) {
         StoppableExecutor executor = executorFactory.create("Task worker");
         try {
+            taskExecutionPlan.prioritizeCriticalPath();
             startAdditionalWorkers(taskExecutionPlan, taskWorker, executor);
             taskWorker(taskExecutionPlan, taskWorker).run();
             taskExecutionPlan.awaitCompletion();
@@ -47,4 +47,11 @@ public interface TaskExecutionPlan {
      * @return The task, or null if no matching tasks remain.
      */
     TaskInfo getTaskToExecute();
+
+    /**
+     * Requests that {@link #getTaskToExecute()} hands out ready-to-execute tasks with the longest chain of waiting tasks behind them first,
+     * rather than in plan order. Where known, the durations of previous executions are used to weigh the tasks in the chain.
+     * Intended for use when several workers execute the plan concurrently.
+     */
+    void prioritizeCriticalPath();
 }
@@ -36,6 +36,7 @@ public class TaskInfo implements Comparable<TaskInfo> {
     private final TreeSet<TaskInfo> mustSuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> shouldSuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> finalizers = new TreeSet<TaskInfo>();
+    private long criticalPathCost;
 
     public TaskInfo(TaskInternal task) {
         this.task = task;
@@ -167,6 +168,18 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return shouldSuccessors;
     }
 
+    /**
+     * The cost of the longest chain of tasks in the plan that starts with this task and ends with a task that nothing else waits for,
+     * in milliseconds where the durations of the tasks in the chain are known.
+     */
+    public long getCriticalPathCost() {
+        return criticalPathCost;
+    }
+
+    public void setCriticalPathCost(long criticalPathCost) {
+        this.criticalPathCost = criticalPathCost;
+    }
+
     public boolean getDependenciesProcessed() {
         return dependenciesProcessed;
     }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link FileWatcherFactory} whose watchers all share a single watcher created by the given factory. The shared watcher is started when
+ * something is first watched, keeps watching everything that any of the watchers asked for, and is stopped when this factory is stopped.
+ *
+ * <p>Each watcher receives the events for the files it asked to watch, and the events that do not name a file. Stopping a watcher stops the
+ * delivery of events to it. If the shared watcher fails, all current watchers are notified and the next watch starts a new shared watcher.</p>
+ */
+public class SharedFileWatcherFactory implements FileWatcherFactory, Stoppable {
+    private final FileWatcherFactory fileWatcherFactory;
+    private final Object lock = new Object();
+    private final List<SharedFileWatcher> watchers = new CopyOnWriteArrayList<SharedFileWatcher>();
+    private FileWatcher watcher;
+    private boolean stopped;
+
+    public SharedFileWatcherFactory(FileWatcherFactory fileWatcherFactory) {
+        this.fileWatcherFactory = fileWatcherFactory;
+    }
+
+    @Override
+    public FileWatcher watch(Action<? super Throwable> onError, FileWatcherListener listener) {
+        SharedFileWatcher sharedWatcher = new SharedFileWatcher(onError, listener);
+        watchers.add(sharedWatcher);
+        return sharedWatcher;
+    }
+
+    private FileWatcher getWatcher() {
+        synchronized (lock) {
+            if (stopped) {
+                throw new IllegalStateException("Cannot watch files, as the shared file watcher has been stopped.");
+            }
+            if (watcher == null) {
+                watcher = fileWatcherFactory.watch(new Action<Throwable>() {
+                    @Override
+                    public void execute(Throwable throwable) {
+                        watchFailed(throwable);
+                    }
+                }, new FileWatcherListener() {
+                    @Override
+                    public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                        for (SharedFileWatcher sharedWatcher : watchers) {
+                            sharedWatcher.changed(event);
+                        }
+                    }
+                });
+            }
+            return watcher;
+        }
+    }
+
+    private void watchFailed(Throwable failure) {
+        synchronized (lock) {
+            watcher = null;
+        }
+        for (SharedFileWatcher sharedWatcher : watchers) {
+            sharedWatcher.failed(failure);
+        }
+    }
+
+    @Override
+    public void stop() {
+        FileWatcher currentWatcher;
+        synchronized (lock) {
+            stopped = true;
+            currentWatcher = watcher;
+            watcher = null;
+        }
+        for (SharedFileWatcher sharedWatcher : watchers) {
+            sharedWatcher.stop();
+        }
+        if (currentWatcher != null) {
+            currentWatcher.stop();
+        }
+    }
+
+    private class SharedFileWatcher implements FileWatcher {
+        private final Action<? super Throwable> onError;
+        private final FileWatcherListener listener;
+        private volatile FileSystemSubset watched = FileSystemSubset.builder().build();
+        private volatile boolean running = true;
+
+        private SharedFileWatcher(Action<? super Throwable> onError, FileWatcherListener listener) {
+            this.onError = onError;
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public void watch(FileSystemSubset fileSystemSubset) throws IOException {
+            synchronized (this) {
+                watched = FileSystemSubset.builder().add(watched).add(fileSystemSubset).build();
+            }
+            getWatcher().watch(fileSystemSubset);
+        }
+
+        private void changed(FileWatcherEvent event) {
+            if (running && (event.getFile() == null || watched.contains(event.getFile()))) {
+                listener.onChange(this, event);
+            }
+        }
+
+        private void failed(Throwable failure) {
+            if (running) {
+                stop();
+                onError.execute(failure);
+            }
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+            watchers.remove(this);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.gradle.api.Action;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.DefaultClassPathProvider;
 import org.gradle.api.internal.DefaultClassPathRegistry;
+import org.gradle.api.internal.changedetection.state.DirectoryTreeSnapshotCache;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.cache.CacheRepository;
@@ -29,6 +30,10 @@ import org.gradle.deployment.internal.DefaultDeploymentRegistry;
 import org.gradle.deployment.internal.DeploymentRegistry;
 import org.gradle.internal.Factory;
 import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.filewatch.DefaultFileSystemChangeWaiterFactory;
+import org.gradle.internal.filewatch.FileSystemChangeWaiterFactory;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.SharedFileWatcherFactory;
 import org.gradle.internal.id.LongIdGenerator;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistration;
@@ -63,6 +68,18 @@ public class BuildSessionScopeServices extends DefaultServiceRegistry {
         return new DefaultDeploymentRegistry();
     }
 
+    FileWatcherFactory decorateFileWatcherFactory(FileWatcherFactory fileWatcherFactory) {
+        return new SharedFileWatcherFactory(fileWatcherFactory);
+    }
+
+    FileSystemChangeWaiterFactory createFileSystemChangeWaiterFactory(FileWatcherFactory fileWatcherFactory) {
+        return new DefaultFileSystemChangeWaiterFactory(fileWatcherFactory);
+    }
+
+    DirectoryTreeSnapshotCache createDirectoryTreeSnapshotCache(FileWatcherFactory fileWatcherFactory) {
+        return new DirectoryTreeSnapshotCache(fileWatcherFactory);
+    }
+
     protected Factory<WorkerProcessBuilder> createWorkerProcessFactory(StartParameter startParameter, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
                                                                        FileResolver fileResolver) {
         return new DefaultWorkerProcessFactory(
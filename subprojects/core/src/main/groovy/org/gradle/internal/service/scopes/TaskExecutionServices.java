@@ -24,7 +24,7 @@ import org.gradle.api.internal.changedetection.changes.DefaultTaskArtifactStateR
 import org.gradle.api.internal.changedetection.changes.ShortCircuitTaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.state.*;
 import org.gradle.api.internal.file.FileResolver;
-import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.FileHashAlgorithm;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
@@ -44,7 +44,7 @@ import org.gradle.internal.serialize.SerializerRegistry;
 
 public class TaskExecutionServices {
 
-    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, Gradle gradle) {
+    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, TaskDurationRepository taskDurationRepository, ListenerManager listenerManager, Gradle gradle) {
         // TODO - need a more comprehensible way to only collect inputs for the outer build
         //      - we are trying to ignore buildSrc here, but also avoid weirdness with use of GradleBuild tasks
         boolean isOuterBuild = gradle.getParent() == null;
@@ -60,8 +60,10 @@ public class TaskExecutionServices {
                         new ValidatingTaskExecuter(
                             new SkipUpToDateTaskExecuter(repository,
                                 new PostExecutionAnalysisTaskExecuter(
-                                    new ExecuteActionsTaskExecuter(
-                                        listenerManager.getBroadcaster(TaskActionListener.class)
+                                    new RecordDurationTaskExecuter(taskDurationRepository,
+                                        new ExecuteActionsTaskExecuter(
+                                            listenerManager.getBroadcaster(TaskActionListener.class)
+                                        )
                                     )
                                 )
                             )
@@ -82,13 +84,30 @@ public class TaskExecutionServices {
         return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator);
     }
 
-    FileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
-        return new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner);
+    TaskDurationRepository createTaskDurationRepository(TaskArtifactStateCacheAccess cacheAccess) {
+        return new CacheBackedTaskDurationRepository(cacheAccess);
     }
 
-    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileSnapshotter fileSnapshotter,
-                                                                  StringInterner stringInterner, FileResolver fileResolver) {
-        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver);
+    CachingFileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
+        FileHashAlgorithm hashAlgorithm = FileHashAlgorithm.current();
+        return new CachingFileSnapshotter(hashAlgorithm.createHasher(), hashAlgorithm.getCacheName(), cacheAccess, stringInterner);
+    }
+
+    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, CachingFileSnapshotter fileSnapshotter,
+                                                                  StringInterner stringInterner, FileResolver fileResolver, BuildOperationProcessor buildOperationProcessor,
+                                                                  DirectoryTreeSnapshotCache treeSnapshotCache, ListenerManager listenerManager) {
+        FileCollectionSnapshotter fileCollectionSnapshotter;
+        if (ParallelFileCollectionSnapshotter.isEnabled()) {
+            fileCollectionSnapshotter = new ParallelFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, buildOperationProcessor);
+        } else {
+            fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver);
+        }
+        FileCollectionSnapshotter inputFilesSnapshotter = fileCollectionSnapshotter;
+        if (startParameter.isContinuous()) {
+            WatchedDirectoryTreeSnapshotter watchedDirectoryTreeSnapshotter = new WatchedDirectoryTreeSnapshotter(fileCollectionSnapshotter, treeSnapshotCache, fileResolver);
+            listenerManager.addListener(watchedDirectoryTreeSnapshotter);
+            inputFilesSnapshotter = watchedDirectoryTreeSnapshotter;
+        }
         FileCollectionSnapshotter discoveredFileCollectionSnapshotter = new MinimalFileSetSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver);
 
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess, stringInterner);
@@ -111,7 +130,7 @@ public class TaskExecutionServices {
                 taskHistoryRepository,
                 instantiator,
                 outputFilesSnapshotter,
-                fileCollectionSnapshotter,
+                inputFilesSnapshotter,
                 discoveredFileCollectionSnapshotter
             )
         );
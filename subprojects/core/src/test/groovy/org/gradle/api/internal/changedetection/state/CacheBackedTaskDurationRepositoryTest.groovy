@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class CacheBackedTaskDurationRepositoryTest extends Specification {
+    final TaskArtifactStateCacheAccess cacheAccess = Mock()
+    final PersistentIndexedCache<String, Long> indexedCache = Mock()
+    TaskDurationRepository repository
+
+    def setup() {
+        1 * cacheAccess.createCache("taskDurations", String, _) >> indexedCache
+        repository = new CacheBackedTaskDurationRepository(cacheAccess)
+    }
+
+    def "loads durations of tasks that have been executed before"() {
+        when:
+        def durations = repository.getDurations([":a", ":b", ":c"])
+
+        then:
+        durations == [":a": 100L, ":c": 5L]
+        1 * cacheAccess.useCache(_, _ as Factory) >> { String operation, Factory action -> action.create() }
+        1 * indexedCache.get(":a") >> 100L
+        1 * indexedCache.get(":b") >> null
+        1 * indexedCache.get(":c") >> 5L
+        0 * _._
+    }
+
+    def "records duration of a task"() {
+        when:
+        repository.recordDuration(":a", 25)
+
+        then:
+        1 * cacheAccess.useCache(_, _ as Runnable) >> { String operation, Runnable action -> action.run() }
+        1 * indexedCache.put(":a", 25L)
+        0 * _._
+    }
+}
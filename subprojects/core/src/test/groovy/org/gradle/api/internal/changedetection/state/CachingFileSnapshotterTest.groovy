@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import org.gradle.api.file.FileTreeElement
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.hash.Hasher
 import org.gradle.cache.PersistentIndexedCache
@@ -104,4 +105,59 @@ class CachingFileSnapshotterTest extends Specification {
         1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
         0 * _._
     }
+
+    def calculatesSnapshotWithoutUsingCache() {
+        when:
+        def result = hasher.calculateSnapshot(fileDetails())
+
+        then:
+        result.hash == hash
+
+        and:
+        1 * target.hash(file) >> hash
+        0 * _._
+    }
+
+    def findsCachedSnapshotWhenTimestampAndLengthHaveNotChanged() {
+        when:
+        def result = hasher.findCachedSnapshot(fileDetails())
+
+        then:
+        result.hash == hash
+
+        and:
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
+        0 * _._
+    }
+
+    def doesNotFindCachedSnapshotWhenTimestampHasChanged() {
+        when:
+        def result = hasher.findCachedSnapshot(fileDetails())
+
+        then:
+        result == null
+
+        and:
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), 124)
+        0 * _._
+    }
+
+    def cachesCalculatedSnapshot() {
+        def fileInfo = new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
+
+        when:
+        hasher.cacheSnapshot(fileDetails(), fileInfo)
+
+        then:
+        1 * cache.put(file.getAbsolutePath(), fileInfo)
+        0 * _._
+    }
+
+    private FileTreeElement fileDetails() {
+        return Stub(FileTreeElement) {
+            getFile() >> file
+            getSize() >> file.length()
+            getLastModified() >> file.lastModified()
+        }
+    }
 }
@@ -18,6 +18,7 @@ package org.gradle.api.internal.changedetection.state
 
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.internal.serialize.SerializerSpec
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
 
 class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
 
@@ -36,4 +37,59 @@ class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
         out.snapshots['2'] instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot
         ((DefaultFileCollectionSnapshotter.FileHashSnapshot) out.snapshots['3']).hash == "foo".bytes
     }
+
+    def "reads and writes paths sharing prefixes"() {
+        def paths = ["/a/b/c/File1.java", "/a/b/c/File2.java", "/a/b/d", "/a/b", "/x/y.txt", "/a/b/c/d/e/File3.java", "", "/\uD83D\uDE00/a", "/\uD83D\uDE01/b"]
+        def snapshots = paths.collectEntries { [it, new DefaultFileCollectionSnapshotter.FileHashSnapshot(it.bytes)] }
+
+        when:
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots), serializer)
+
+        then:
+        out.snapshots.keySet() == paths as Set
+        paths.each { assert ((DefaultFileCollectionSnapshotter.FileHashSnapshot) out.snapshots[it]).hash == it.bytes }
+    }
+
+    def "writes shared path prefixes only once"() {
+        def snapshots = (1..100).collectEntries { ["/some/project/src/main/java/org/gradle/File${it}.java".toString(), DefaultFileCollectionSnapshotter.MissingFileSnapshot.getInstance()] }
+
+        expect:
+        toBytes(new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots), serializer).length < legacyBytes(snapshots).length / 4
+    }
+
+    def "reads snapshot written in the original format"() {
+        def snapshots = [
+                "/some/dir": DefaultFileCollectionSnapshotter.DirSnapshot.getInstance(),
+                "/some/missing": DefaultFileCollectionSnapshotter.MissingFileSnapshot.getInstance(),
+                "/some/dir/file": new DefaultFileCollectionSnapshotter.FileHashSnapshot("foo".bytes)]
+
+        when:
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = fromBytes(legacyBytes(snapshots), serializer)
+
+        then:
+        out.snapshots.size() == 3
+        out.snapshots['/some/dir'] instanceof DefaultFileCollectionSnapshotter.DirSnapshot
+        out.snapshots['/some/missing'] instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot
+        ((DefaultFileCollectionSnapshotter.FileHashSnapshot) out.snapshots['/some/dir/file']).hash == "foo".bytes
+    }
+
+    private static byte[] legacyBytes(Map<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot> snapshots) {
+        def bytes = new ByteArrayOutputStream()
+        def encoder = new KryoBackedEncoder(bytes)
+        encoder.writeSmallInt(snapshots.size())
+        snapshots.each { key, value ->
+            encoder.writeString(key)
+            if (value instanceof DefaultFileCollectionSnapshotter.DirSnapshot) {
+                encoder.writeByte((byte) 1)
+            } else if (value instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot) {
+                encoder.writeByte((byte) 2)
+            } else {
+                encoder.writeByte((byte) 3)
+                encoder.writeByte((byte) value.hash.length)
+                encoder.writeBytes(value.hash)
+            }
+        }
+        encoder.flush()
+        return bytes.toByteArray()
+    }
 }
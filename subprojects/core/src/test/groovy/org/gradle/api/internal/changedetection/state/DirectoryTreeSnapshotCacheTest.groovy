@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.Action
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.filewatch.FileWatcher
+import org.gradle.internal.filewatch.FileWatcherEvent
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.filewatch.FileWatcherListener
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class DirectoryTreeSnapshotCacheTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def watcher = Mock(FileWatcher)
+    def watcherFactory = Mock(FileWatcherFactory)
+    def cache = new DirectoryTreeSnapshotCache(watcherFactory)
+    def root = new File("root").absoluteFile
+    def tree = new DirectoryFileTree(root)
+    def snapshot = Stub(FileCollectionSnapshot)
+    Action<? super Throwable> onError
+    FileWatcherListener listener
+
+    def setup() {
+        _ * watcherFactory.watch(_, _) >> { Action<? super Throwable> action, FileWatcherListener l ->
+            onError = action
+            listener = l
+            watcher
+        }
+    }
+
+    def "remembers snapshot of watched tree"() {
+        when:
+        def token = cache.startWatching(tree)
+        cache.put(tree, token, snapshot)
+
+        then:
+        1 * watcher.watch(_)
+        cache.get(tree) == snapshot
+        cache.get(new DirectoryFileTree(root)) == snapshot
+    }
+
+    def "tree with different patterns is a different entry"() {
+        when:
+        cache.put(tree, cache.startWatching(tree), snapshot)
+
+        then:
+        cache.get(new DirectoryFileTree(root, new PatternSet().include("**/*.java"))) == null
+    }
+
+    def "forgets tree when a file below its root changes"() {
+        given:
+        def other = new DirectoryFileTree(new File("other").absoluteFile)
+        cache.put(tree, cache.startWatching(tree), snapshot)
+        cache.put(other, cache.startWatching(other), snapshot)
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.modify(new File(root, "a/b.txt")))
+
+        then:
+        cache.get(tree) == null
+        cache.get(other) == snapshot
+    }
+
+    def "does not confuse siblings sharing a name prefix"() {
+        given:
+        cache.put(tree, cache.startWatching(tree), snapshot)
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.create(new File(root.path + "-other")))
+
+        then:
+        cache.get(tree) == snapshot
+    }
+
+    def "forgets everything on undefined change"() {
+        given:
+        cache.put(tree, cache.startWatching(tree), snapshot)
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.undefined())
+
+        then:
+        cache.get(tree) == null
+    }
+
+    def "does not remember snapshot when anything changes while it is taken"() {
+        when:
+        def token = cache.startWatching(tree)
+        listener.onChange(watcher, FileWatcherEvent.modify(new File("elsewhere").absoluteFile))
+        cache.put(tree, token, snapshot)
+
+        then:
+        cache.get(tree) == null
+    }
+
+    def "forgets trees that overlap invalidated files"() {
+        given:
+        def child = new DirectoryFileTree(new File(root, "child"))
+        cache.put(tree, cache.startWatching(tree), snapshot)
+        cache.put(child, cache.startWatching(child), snapshot)
+
+        when:
+        cache.invalidate([root])
+
+        then:
+        cache.get(tree) == null
+        cache.get(child) == null
+    }
+
+    def "stops remembering when watching fails"() {
+        given:
+        cache.put(tree, cache.startWatching(tree), snapshot)
+
+        when:
+        onError.execute(new RuntimeException())
+        def token = cache.startWatching(tree)
+        cache.put(tree, token, snapshot)
+
+        then:
+        token == -1
+        cache.get(tree) == null
+    }
+
+    def "stops remembering when watch cannot be registered"() {
+        given:
+        watcher.watch(_) >> { throw new IOException() }
+
+        when:
+        def token = cache.startWatching(tree)
+
+        then:
+        token == -1
+    }
+
+    def "stops watcher when stopped"() {
+        given:
+        cache.startWatching(tree)
+
+        when:
+        cache.stop()
+
+        then:
+        1 * watcher.stop()
+    }
+
+    def "reuses snapshot of changed tree until the change is reported"() {
+        given:
+        def dir = tmpDir.createDir("dir")
+        def file = dir.createFile("a.txt")
+        def watchedTree = new DirectoryFileTree(dir)
+        cache.put(watchedTree, cache.startWatching(watchedTree), snapshot)
+
+        when:
+        file << "changed"
+
+        then:
+        cache.get(watchedTree) == snapshot
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.modify(file))
+
+        then:
+        cache.get(watchedTree) == null
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+@UsesNativeServices
+class ParallelFileCollectionSnapshotterTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def fileSnapshotter = Mock(CachingFileSnapshotter)
+    def cacheAccess = Stub(TaskArtifactStateCacheAccess)
+    def executorFactory = new DefaultExecutorFactory()
+    def buildOperationProcessor = new DefaultBuildOperationProcessor(executorFactory, 4)
+    def snapshotter = new ParallelFileCollectionSnapshotter(fileSnapshotter, cacheAccess, new StringInterner(), TestFiles.resolver(), buildOperationProcessor)
+
+    def setup() {
+        cacheAccess.useCache(_, _) >> { String name, Runnable action ->
+            action.run()
+        }
+    }
+
+    def cleanup() {
+        buildOperationProcessor.stop()
+        executorFactory.stop()
+    }
+
+    def "uses cached snapshots and hashes only files whose snapshot is out of date"() {
+        given:
+        def cached = tmpDir.createFile("cached")
+        def changed = tmpDir.createFile("changed")
+        def added = tmpDir.createFile("added")
+        def cachedInfo = fileInfo("cached")
+        def changedInfo = fileInfo("changed")
+        def addedInfo = fileInfo("added")
+
+        when:
+        def snapshot = snapshotter.snapshot(files(cached, changed, added))
+
+        then:
+        1 * fileSnapshotter.findCachedSnapshot({ it.file == cached }) >> cachedInfo
+        1 * fileSnapshotter.findCachedSnapshot({ it.file == changed }) >> null
+        1 * fileSnapshotter.findCachedSnapshot({ it.file == added }) >> null
+        1 * fileSnapshotter.calculateSnapshot({ it.file == changed }) >> changedInfo
+        1 * fileSnapshotter.calculateSnapshot({ it.file == added }) >> addedInfo
+        1 * fileSnapshotter.cacheSnapshot({ it.file == changed }, changedInfo)
+        1 * fileSnapshotter.cacheSnapshot({ it.file == added }, addedInfo)
+        0 * fileSnapshotter._
+
+        and:
+        snapshot.snapshot.findSnapshot(cached).hash == cachedInfo.hash
+        snapshot.snapshot.findSnapshot(changed).hash == changedInfo.hash
+        snapshot.snapshot.findSnapshot(added).hash == addedInfo.hash
+    }
+
+    def "does not hash anything when all snapshots are cached"() {
+        given:
+        def file = tmpDir.createFile("file")
+        def dir = tmpDir.createDir("dir")
+        def missing = tmpDir.file("missing")
+
+        when:
+        def snapshot = snapshotter.snapshot(files(file, dir, missing))
+
+        then:
+        1 * fileSnapshotter.findCachedSnapshot({ it.file == file }) >> fileInfo("file")
+        0 * fileSnapshotter._
+
+        and:
+        snapshot.files.files as List == [file]
+        snapshot.allFiles.files as Set == [file, missing] as Set
+    }
+
+    def "hashes many files concurrently"() {
+        given:
+        def inputs = (1..50).collect { tmpDir.createFile("file${it}") }
+
+        when:
+        def snapshot = snapshotter.snapshot(files(inputs as File[]))
+
+        then:
+        50 * fileSnapshotter.findCachedSnapshot(_) >> null
+        50 * fileSnapshotter.calculateSnapshot(_) >> { args -> fileInfo(args[0].file.name) }
+        50 * fileSnapshotter.cacheSnapshot(_, _)
+
+        and:
+        inputs.every { snapshot.snapshot.findSnapshot(it).hash == it.name.bytes }
+    }
+
+    private static CachingFileSnapshotter.FileInfo fileInfo(String hash) {
+        new CachingFileSnapshotter.FileInfo(hash.bytes, 0, 0)
+    }
+
+    private static FileCollection files(File... files) {
+        new SimpleFileCollection(files)
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.Task
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.FileHashSnapshot
+import org.gradle.api.internal.file.FileResolver
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.tasks.TaskOutputs
+import org.gradle.api.tasks.TaskState
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class WatchedDirectoryTreeSnapshotterTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def delegate = Mock(FileCollectionSnapshotter)
+    def cache = Mock(DirectoryTreeSnapshotCache)
+    def snapshotter = new WatchedDirectoryTreeSnapshotter(delegate, cache, Stub(FileResolver))
+
+    def "reuses remembered snapshot of directory tree"() {
+        given:
+        def dir = tmpDir.createDir("dir")
+        def tree = new FileTreeAdapter(new DirectoryFileTree(dir))
+
+        when:
+        def snapshot = snapshotter.snapshot(tree)
+
+        then:
+        1 * cache.get({ it.dir == dir }) >> snapshotOf(new File(dir, "a"))
+        0 * delegate._
+        snapshot.files.files == [new File(dir, "a")] as Set
+    }
+
+    def "snapshots and remembers directory tree that is not known"() {
+        given:
+        def dir = tmpDir.createDir("dir")
+        def tree = new FileTreeAdapter(new DirectoryFileTree(dir))
+        def treeSnapshot = snapshotOf(new File(dir, "a"))
+
+        when:
+        def snapshot = snapshotter.snapshot(tree)
+
+        then:
+        1 * cache.get(_) >> null
+
+        then:
+        1 * cache.startWatching({ it.dir == dir }) >> 12
+
+        then:
+        1 * delegate.snapshot(_) >> treeSnapshot
+
+        then:
+        1 * cache.put({ it.dir == dir }, 12, treeSnapshot)
+        snapshot.files.files == [new File(dir, "a")] as Set
+    }
+
+    def "does not remember snapshot when tree cannot be watched"() {
+        given:
+        def dir = tmpDir.createDir("dir")
+
+        when:
+        snapshotter.snapshot(new FileTreeAdapter(new DirectoryFileTree(dir)))
+
+        then:
+        1 * cache.startWatching(_) >> -1
+        1 * delegate.snapshot(_) >> snapshotOf()
+        0 * cache.put(_, _, _)
+    }
+
+    def "does not use cache for other files"() {
+        given:
+        def file = tmpDir.createFile("file")
+        def missingDir = tmpDir.file("missing")
+
+        when:
+        def snapshot = snapshotter.snapshot(new SimpleFileCollection(file, missingDir))
+
+        then:
+        _ * delegate.snapshot(_) >> snapshotOf(file)
+        0 * cache._
+        snapshot.files.files == [file] as Set
+    }
+
+    def "forgets trees overlapping the outputs of executed task"() {
+        given:
+        def task = Mock(Task)
+        def outputs = Mock(TaskOutputs)
+        def outputFiles = new SimpleFileCollection(tmpDir.file("out"))
+        _ * task.outputs >> outputs
+        _ * outputs.files >> outputFiles
+
+        when:
+        snapshotter.afterExecute(task, Stub(TaskState))
+
+        then:
+        1 * cache.invalidate(outputFiles)
+    }
+
+    def snapshotOf(File... files) {
+        def snapshots = [:]
+        files.each { snapshots[it.absolutePath] = new FileHashSnapshot(new byte[0]) }
+        return new FileCollectionSnapshotImpl(snapshots)
+    }
+}
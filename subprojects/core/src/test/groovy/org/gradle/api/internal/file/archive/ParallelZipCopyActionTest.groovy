@@ -0,0 +1,375 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive
+
+import org.apache.tools.zip.ZipOutputStream
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
+import org.gradle.api.tasks.bundling.Zip
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.zip.Deflater
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
+import static org.hamcrest.Matchers.equalTo
+
+class ParallelZipCopyActionTest extends Specification {
+
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def executorFactory = new DefaultExecutorFactory()
+    TestFile zipFile
+    def encoding = 'UTF-8'
+
+    def setup() {
+        zipFile = tmpDir.getTestDirectory().file("test.zip")
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    void createsZipFile() {
+        given:
+        zip(action(ZipOutputStream.DEFLATED), dir("dir"), file("dir/file1"), file("file2"))
+
+        when:
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+
+        then:
+        expandDir.file("dir/file1").assertContents(equalTo("contents of dir/file1"))
+        expandDir.file("file2").assertContents(equalTo("contents of file2"))
+    }
+
+    void writesEntriesInVisitOrderWithExpectedAttributes() {
+        given:
+        zip(action(ZipOutputStream.DEFLATED), dir("dir"), file("dir/file1"), file("file2"))
+
+        when:
+        def zip = new ZipFile(zipFile)
+        def entries = zip.entries().toList()
+
+        then:
+        entries*.name == ["dir/", "dir/file1", "file2"]
+        entries[0].directory
+        entries[1].method == ZipEntry.DEFLATED
+        entries[1].size == "contents of dir/file1".length()
+        zip.getInputStream(entries[2]).text == "contents of file2"
+
+        cleanup:
+        zip?.close()
+    }
+
+    void storesEntriesThatAreAlreadyCompressed() {
+        given:
+        zip(action(ZipOutputStream.DEFLATED), file("lib/some.jar"), file("image.PNG"), file("file.txt"))
+
+        when:
+        def zip = new ZipFile(zipFile)
+
+        then:
+        zip.getEntry("lib/some.jar").method == ZipEntry.STORED
+        zip.getEntry("image.PNG").method == ZipEntry.STORED
+        zip.getEntry("file.txt").method == ZipEntry.DEFLATED
+        zip.getInputStream(zip.getEntry("lib/some.jar")).text == "contents of lib/some.jar"
+
+        cleanup:
+        zip?.close()
+    }
+
+    void storesAllEntriesWhenCompressionIsDisabled() {
+        given:
+        zip(action(ZipOutputStream.STORED), file("file.txt"))
+
+        when:
+        def zip = new ZipFile(zipFile)
+
+        then:
+        zip.getEntry("file.txt").method == ZipEntry.STORED
+        zip.getInputStream(zip.getEntry("file.txt")).text == "contents of file.txt"
+
+        cleanup:
+        zip?.close()
+    }
+
+    void producesSameArchiveRegardlessOfNumberOfThreads() {
+        given:
+        def files = (1..50).collect { file("dir/file$it") } as FileCopyDetailsInternal[]
+        zip(action(ZipOutputStream.DEFLATED, 1), files)
+        def singleThreaded = zipFile.bytes
+
+        when:
+        zip(action(ZipOutputStream.DEFLATED, 8), files)
+
+        then:
+        zipFile.bytes == singleThreaded
+    }
+
+    void readsContentOfEachFileOnce() {
+        given:
+        def details = file("file.txt")
+
+        when:
+        zip(action(ZipOutputStream.DEFLATED), details)
+
+        then:
+        1 * details.open() >> new ByteArrayInputStream("contents of file.txt".bytes)
+        0 * details.getSize()
+        0 * details.copyTo(_)
+    }
+
+    void compressesLargeFilesOnCallingThread() {
+        given:
+        def content = "some content\n" * (ParallelZipCopyAction.MAX_IN_MEMORY_ENTRY_SIZE / 10)
+        zip(action(ZipOutputStream.DEFLATED), file("small"), file("large", content), file("other.jar", content))
+
+        when:
+        def zip = new ZipFile(zipFile)
+
+        then:
+        zip.entries().toList()*.name == ["small", "large", "other.jar"]
+        zip.getEntry("large").size == content.length()
+        zip.getEntry("large").compressedSize < content.length()
+        zip.getInputStream(zip.getEntry("large")).text == content
+        zip.getEntry("other.jar").method == ZipEntry.STORED
+        zip.getInputStream(zip.getEntry("other.jar")).text == content
+
+        cleanup:
+        zip?.close()
+    }
+
+    void reusesCompressedContentOfUnchangedEntriesInIncrementalMode() {
+        given:
+        def content = "unchanged " * 1000
+        zip(incrementalAction(Deflater.NO_COMPRESSION), file("unchanged", content), file("changed", "old " * 1000))
+        def uncompressedSize = new ZipFile(zipFile).withCloseable { it.getEntry("unchanged").compressedSize }
+        // Pretend that the archive was created with the best compression level, so that the uncompressed content can only end up in the new archive if it is reused
+        replaceArchiveComment(Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION)
+
+        when:
+        zip(incrementalAction(Deflater.BEST_COMPRESSION), file("unchanged", content), file("changed", "new " * 1000), file("added", "added " * 1000))
+        def zip = new ZipFile(zipFile)
+
+        then:
+        zip.getEntry("unchanged").compressedSize == uncompressedSize
+        zip.getEntry("changed").compressedSize < 1000
+        zip.getEntry("added").compressedSize < 1000
+        zip.getInputStream(zip.getEntry("unchanged")).text == content
+        zip.getInputStream(zip.getEntry("changed")).text == "new " * 1000
+        zip.getInputStream(zip.getEntry("added")).text == "added " * 1000
+        !new File(zipFile.path + ".tmp").exists()
+        !new File(zipFile.path + ".staging").exists()
+
+        cleanup:
+        zip?.close()
+    }
+
+    void recompressesUnchangedEntriesWhenCompressionLevelChangesInIncrementalMode() {
+        given:
+        def content = "unchanged " * 1000
+        def large = "large content\n" * (ParallelZipCopyAction.MAX_IN_MEMORY_ENTRY_SIZE / 10)
+        zip(incrementalAction(Deflater.NO_COMPRESSION), file("unchanged", content), file("large", large))
+        def uncompressedSize = new ZipFile(zipFile).withCloseable { it.getEntry("unchanged").compressedSize }
+
+        when:
+        zip(incrementalAction(Deflater.BEST_COMPRESSION), file("unchanged", content), file("large", large))
+        def zip = new ZipFile(zipFile)
+
+        then:
+        uncompressedSize >= content.length()
+        zip.getEntry("unchanged").compressedSize < 1000
+        zip.getEntry("large").compressedSize < large.length() / 10
+        zip.getInputStream(zip.getEntry("unchanged")).text == content
+        zip.comment == ParallelZipCopyAction.getArchiveComment(Deflater.BEST_COMPRESSION)
+
+        cleanup:
+        zip?.close()
+    }
+
+    void readsContentOfUnchangedLargeFileOnceInIncrementalMode() {
+        given:
+        def large = "large content\n" * (ParallelZipCopyAction.MAX_IN_MEMORY_ENTRY_SIZE / 10)
+        zip(incrementalAction(), file("large", large))
+        def details = file("large", large)
+
+        when:
+        zip(incrementalAction(), details)
+
+        then:
+        1 * details.open() >> new ByteArrayInputStream(large.bytes)
+        0 * details.getSize()
+        0 * details.copyTo(_)
+        new ZipFile(zipFile).withCloseable { it.getInputStream(it.getEntry("large")).text } == large
+        !new File(zipFile.path + ".large").exists()
+    }
+
+    void incrementalArchiveIsSameAsArchiveCreatedFromScratch() {
+        given:
+        def large = "large content\n" * (ParallelZipCopyAction.MAX_IN_MEMORY_ENTRY_SIZE / 10)
+        def changedLarge = large.replaceFirst("large", "LARGE")
+        zip(incrementalAction(), file("a"), file("b", "old b"), file("large", large), file("other-large", large))
+        zip(incrementalAction(), file("a"), file("b", "new b"), file("large", large), file("other-large", changedLarge))
+        def incremental = zipFile.bytes
+
+        when:
+        zipFile.delete()
+        zip(incrementalAction(), file("a"), file("b", "new b"), file("large", large), file("other-large", changedLarge))
+
+        then:
+        zipFile.bytes == incremental
+        def zip = new ZipFile(zipFile)
+        zip.getInputStream(zip.getEntry("other-large")).text == changedLarge
+
+        cleanup:
+        zip?.close()
+    }
+
+    void sortsEntriesAndNormalizesTimestampsInIncrementalMode() {
+        given:
+        zip(incrementalAction(), file("z", "z", 1000L), dir("META-INF"), file("META-INF/MANIFEST.MF", "manifest", 2000L), file("a", "a", 3000L))
+        def first = zipFile.bytes
+        zipFile.delete()
+
+        when:
+        zip(incrementalAction(), file("a", "a", 4000L), file("META-INF/MANIFEST.MF", "manifest", 5000L), dir("META-INF"), file("z", "z", 6000L))
+        def zip = new ZipFile(zipFile)
+        def entries = zip.entries().toList()
+
+        then:
+        zipFile.bytes == first
+        entries*.name == ["META-INF/", "META-INF/MANIFEST.MF", "a", "z"]
+        entries.every { it.time == ParallelZipCopyAction.CONSTANT_TIME_FOR_ZIP_ENTRIES }
+
+        cleanup:
+        zip?.close()
+    }
+
+    void wrapsFailureToOpenOutputFile() {
+        given:
+        def invalidZipFile = tmpDir.createDir("test.zip")
+
+        when:
+        zip(new ParallelZipCopyAction(invalidZipFile, ZipOutputStream.STORED, Deflater.DEFAULT_COMPRESSION, executorFactory, 2, new DocumentationRegistry(), encoding, false))
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not create ZIP '%s'.", zipFile)
+    }
+
+    void wrapsZip64Failure() {
+        given:
+        def docRegistry = Mock(DocumentationRegistry)
+        1 * docRegistry.getDslRefForProperty(Zip, "zip64") >> "doc url"
+        0 * docRegistry._
+        def files = [dir("dir")] * 0x10000 as FileCopyDetailsInternal[]
+
+        when:
+        zip(new ParallelZipCopyAction(zipFile, ZipOutputStream.STORED, Deflater.DEFAULT_COMPRESSION, executorFactory, 2, docRegistry, encoding, false), files)
+
+        then:
+        def e = thrown(org.gradle.api.tasks.bundling.internal.Zip64RequiredException)
+        e.message == "${zipFile} contains more than 65535 entries.\n\nTo build this archive, please enable the zip64 extension.\nSee: doc url"
+    }
+
+    void wrapsFailureToAddElement() {
+        given:
+        Throwable failure = new RuntimeException("broken")
+        def brokenFile = brokenFile("dir/file1", failure)
+
+        when:
+        zip(action(ZipOutputStream.DEFLATED), brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+    }
+
+    private ParallelZipCopyAction action(int method, int maxThreads = 4) {
+        new ParallelZipCopyAction(zipFile, method, Deflater.DEFAULT_COMPRESSION, executorFactory, maxThreads, new DocumentationRegistry(), encoding, false)
+    }
+
+    private ParallelZipCopyAction incrementalAction(int level = Deflater.DEFAULT_COMPRESSION) {
+        new ParallelZipCopyAction(zipFile, ZipOutputStream.DEFLATED, level, executorFactory, 4, new DocumentationRegistry(), encoding, true)
+    }
+
+    private void replaceArchiveComment(int oldCompressionLevel, int newCompressionLevel) {
+        def oldComment = ParallelZipCopyAction.getArchiveComment(oldCompressionLevel).bytes
+        def newComment = ParallelZipCopyAction.getArchiveComment(newCompressionLevel).bytes
+        def bytes = zipFile.bytes
+        assert oldComment.length == newComment.length
+        assert Arrays.equals(Arrays.copyOfRange(bytes, bytes.length - oldComment.length, bytes.length), oldComment)
+        System.arraycopy(newComment, 0, bytes, bytes.length - newComment.length, newComment.length)
+        zipFile.bytes = bytes
+    }
+
+    private static void zip(ParallelZipCopyAction action, final FileCopyDetailsInternal... files) {
+        action.execute(new CopyActionProcessingStream() {
+            public void process(CopyActionProcessingStreamAction streamAction) {
+                for (FileCopyDetailsInternal f : files) {
+                    streamAction.processFile(f);
+                }
+            }
+        });
+    }
+
+    private FileCopyDetailsInternal file(final String path, final String content = "contents of $path", long lastModified = 1000L) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> lastModified
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.getSize() >> content.length()
+        mock.open() >> { new ByteArrayInputStream(content.bytes) }
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            out << content
+        }
+        mock
+    }
+
+    private FileCopyDetailsInternal dir(final String path) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> true
+        mock.getMode() >> 2
+        mock
+    }
+
+    private FileCopyDetailsInternal brokenFile(final String path, final Throwable failure) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.open() >> {
+            failure.fillInStackTrace()
+            throw failure
+        }
+        mock
+    }
+}
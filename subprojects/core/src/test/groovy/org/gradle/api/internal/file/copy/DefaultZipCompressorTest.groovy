@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy
+
+import org.apache.tools.zip.ZipOutputStream
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.zip.Deflater
+
+class DefaultZipCompressorTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
+
+    def "uses default level when property is not set"() {
+        expect:
+        new DefaultZipCompressor(false, ZipOutputStream.DEFLATED).level == Deflater.DEFAULT_COMPRESSION
+    }
+
+    def "uses level selected by property"() {
+        when:
+        System.setProperty(DefaultZipCompressor.COMPRESSION_LEVEL_PROPERTY, value)
+
+        then:
+        new DefaultZipCompressor(false, ZipOutputStream.DEFLATED).level == level
+
+        where:
+        value | level
+        "-1"  | -1
+        "0"   | 0
+        " 9 " | 9
+    }
+
+    def "uses default level when property is invalid"() {
+        when:
+        System.setProperty(DefaultZipCompressor.COMPRESSION_LEVEL_PROPERTY, value)
+
+        then:
+        new DefaultZipCompressor(false, ZipOutputStream.DEFLATED).level == Deflater.DEFAULT_COMPRESSION
+
+        where:
+        value << ["10", "-2", "fast"]
+    }
+
+    def "rejects invalid level"() {
+        when:
+        new DefaultZipCompressor(false, ZipOutputStream.DEFLATED, 10)
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "Invalid compression level 10. Expected -1 (default) or a compression level from 0 to 9."
+    }
+}
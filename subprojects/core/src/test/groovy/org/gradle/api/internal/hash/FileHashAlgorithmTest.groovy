@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class FileHashAlgorithmTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def "defaults to MD5"() {
+        expect:
+        FileHashAlgorithm.current() == FileHashAlgorithm.MD5
+        FileHashAlgorithm.current().createHasher() instanceof DefaultHasher
+        FileHashAlgorithm.current().cacheName == "fileHashes"
+    }
+
+    def "algorithm can be selected using system property"() {
+        given:
+        System.setProperty(FileHashAlgorithm.ALGORITHM_PROPERTY, "murmur3")
+
+        expect:
+        FileHashAlgorithm.current() == FileHashAlgorithm.MURMUR3
+        FileHashAlgorithm.current().createHasher() instanceof Murmur3Hasher
+        FileHashAlgorithm.current().cacheName == "fileHashes-murmur3"
+    }
+
+    def "fails for unknown algorithm"() {
+        given:
+        System.setProperty(FileHashAlgorithm.ALGORITHM_PROPERTY, "crc")
+
+        when:
+        FileHashAlgorithm.current()
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "Unknown file hash algorithm 'crc' specified by system property 'org.gradle.hashing.algorithm'."
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import com.google.common.hash.Hashing
+import org.gradle.api.UncheckedIOException
+import org.gradle.api.file.FileTreeElement
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class Murmur3HasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def "calculates 128 bit hash of file content"() {
+        def file = tmpDir.file("file.txt")
+        file.text = "some content"
+
+        expect:
+        def hash = new Murmur3Hasher().hash(file)
+        hash.length == 16
+        hash == Hashing.murmur3_128().hashBytes("some content".bytes).asBytes()
+    }
+
+    def "hash changes when file content changes"() {
+        def file = tmpDir.file("file.txt")
+        def hasher = new Murmur3Hasher()
+
+        when:
+        file.text = "content"
+        def original = hasher.hash(file)
+        file.text = "changed"
+
+        then:
+        hasher.hash(file) != original
+    }
+
+    def "memory mapped and streamed reads produce the same hash"() {
+        def file = tmpDir.file("large.bin")
+        def content = new byte[300 * 1024]
+        new Random(12).nextBytes(content)
+        file.bytes = content
+
+        expect:
+        new Murmur3Hasher(0).hash(file) == new Murmur3Hasher(Long.MAX_VALUE).hash(file)
+        new Murmur3Hasher(0).hash(file) == Hashing.murmur3_128().hashBytes(content).asBytes()
+    }
+
+    def "hashes empty file"() {
+        def file = tmpDir.createFile("empty")
+
+        expect:
+        new Murmur3Hasher(0).hash(file) == Hashing.murmur3_128().hashBytes(new byte[0]).asBytes()
+    }
+
+    def "hashes content of file tree element"() {
+        def file = tmpDir.file("file.txt")
+        file.text = "some content"
+        def element = Stub(FileTreeElement) {
+            open() >> new ByteArrayInputStream("some content".bytes)
+        }
+
+        expect:
+        new Murmur3Hasher().hash(element) == new Murmur3Hasher().hash(file)
+    }
+
+    def "reports missing file"() {
+        def file = tmpDir.file("missing")
+
+        when:
+        new Murmur3Hasher().hash(file)
+
+        then:
+        UncheckedIOException e = thrown()
+        e.message == "Failed to create MURMUR3 hash for file ${file.absolutePath}."
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository
+import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionContext
+import org.gradle.api.internal.tasks.TaskStateInternal
+import spock.lang.Specification
+
+class RecordDurationTaskExecuterTest extends Specification {
+    def target = Mock(TaskExecuter)
+    def repository = Mock(TaskDurationRepository)
+    def task = Mock(TaskInternal)
+    def state = Mock(TaskStateInternal)
+    def context = Mock(TaskExecutionContext)
+    final RecordDurationTaskExecuter executer = new RecordDurationTaskExecuter(repository, target)
+
+    def recordsDurationOfTaskExecution() {
+        given:
+        task.path >> ":a"
+
+        when:
+        executer.execute(task, state, context)
+
+        then:
+        1 * target.execute(task, state, context)
+
+        then:
+        1 * repository.recordDuration(":a", { it >= 0 })
+        0 * repository._
+    }
+}
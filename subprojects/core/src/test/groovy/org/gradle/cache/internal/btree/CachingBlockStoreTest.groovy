@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import spock.lang.Specification
+
+class CachingBlockStoreTest extends Specification {
+    def backingStore = Mock(BlockStore)
+    def store = new CachingBlockStore(backingStore, 100, TestBlock)
+
+    def "reads block from backing store on miss and from memory on hit"() {
+        def block = new TestBlock(1, 40)
+
+        when:
+        def first = store.read(block.pos, TestBlock)
+        def second = store.read(block.pos, TestBlock)
+
+        then:
+        1 * backingStore.read(block.pos, TestBlock) >> block
+        0 * backingStore._
+
+        and:
+        first.is(block)
+        second.is(block)
+        store.statistics.hits == 1
+        store.statistics.misses == 1
+        store.statistics.evictions == 0
+    }
+
+    def "evicts least recently used blocks when byte budget is exceeded"() {
+        def block1 = new TestBlock(1, 40)
+        def block2 = new TestBlock(2, 40)
+        def block3 = new TestBlock(3, 40)
+        backingStore.read(block1.pos, TestBlock) >> block1
+        backingStore.read(block2.pos, TestBlock) >> block2
+        backingStore.read(block3.pos, TestBlock) >> block3
+
+        given:
+        store.read(block1.pos, TestBlock)
+        store.read(block2.pos, TestBlock)
+        store.read(block1.pos, TestBlock)
+        store.read(block3.pos, TestBlock)
+
+        when:
+        store.read(block1.pos, TestBlock)
+        store.read(block2.pos, TestBlock)
+
+        then:
+        store.statistics.hits == 2
+        store.statistics.misses == 4
+        store.statistics.evictions == 2
+    }
+
+    def "does not cache blocks larger than the byte budget"() {
+        def block = new TestBlock(1, 200)
+
+        when:
+        store.read(block.pos, TestBlock)
+        store.read(block.pos, TestBlock)
+
+        then:
+        2 * backingStore.read(block.pos, TestBlock) >> block
+        store.statistics.misses == 2
+        store.statistics.evictions == 0
+    }
+
+    def "does not cache or count blocks of other types"() {
+        def block = new OtherBlock()
+
+        when:
+        store.read(block.pos, OtherBlock)
+        store.read(block.pos, OtherBlock)
+
+        then:
+        2 * backingStore.read(block.pos, OtherBlock) >> block
+        store.statistics.hits == 0
+        store.statistics.misses == 0
+    }
+
+    def "discards removed block"() {
+        def block = new TestBlock(1, 40)
+
+        when:
+        store.read(block.pos, TestBlock)
+        store.remove(block)
+        store.read(block.pos, TestBlock)
+
+        then:
+        2 * backingStore.read(block.pos, TestBlock) >> block
+        1 * backingStore.remove(block)
+        store.statistics.hits == 0
+    }
+
+    def "written block is served from memory after flush"() {
+        def block = new TestBlock(1, 40)
+
+        when:
+        store.write(block)
+        store.flush()
+        def result = store.read(block.pos, TestBlock)
+
+        then:
+        1 * backingStore.write(block)
+        0 * backingStore.read(_, _)
+
+        and:
+        result.is(block)
+        store.statistics.hits == 1
+    }
+
+    static class TestBlock extends BlockPayload {
+        final BlockPointer pos
+        final int size
+
+        TestBlock(long pos, int size) {
+            this.pos = new BlockPointer(pos)
+            this.size = size
+        }
+
+        @Override
+        BlockPointer getPos() {
+            return pos
+        }
+
+        @Override
+        protected int getSize() {
+            return size
+        }
+
+        @Override
+        protected int getType() {
+            return 1
+        }
+
+        @Override
+        protected void read(DataInputStream inputStream) {
+        }
+
+        @Override
+        protected void write(DataOutputStream outputStream) {
+        }
+    }
+
+    static class OtherBlock extends TestBlock {
+        OtherBlock() {
+            super(12, 10)
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.test.fixtures.file.TestFile;
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+public class MappedFileBlockStoreTest {
+    private static final int SMALL_REGION_SIZE = 1024;
+
+    @Rule
+    public TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider();
+    private final Serializer<String> stringSerializer = new DefaultSerializer<String>();
+    private final Serializer<Integer> integerSerializer = new DefaultSerializer<Integer>();
+    private TestFile cacheFile;
+
+    @Before
+    public void setup() {
+        cacheFile = tmpDir.file("cache.bin");
+    }
+
+    private BTreePersistentIndexedCache<String, Integer> mappedCache() {
+        return new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100, new MappedFileBlockStore(cacheFile, SMALL_REGION_SIZE));
+    }
+
+    private BTreePersistentIndexedCache<String, Integer> fileBackedCache() {
+        return new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100, new FileBackedBlockStore(cacheFile));
+    }
+
+    @Test
+    public void readsEntriesSpanningMultipleRegions() {
+        BTreePersistentIndexedCache<String, Integer> cache = mappedCache();
+        put(cache, 0, 500);
+        assertContains(cache, 0, 500);
+        cache.reset();
+        assertContains(cache, 0, 500);
+        cache.verify();
+        cache.close();
+    }
+
+    @Test
+    public void readsEntriesAddedAfterRegionWasMapped() {
+        BTreePersistentIndexedCache<String, Integer> cache = mappedCache();
+        put(cache, 0, 10);
+        assertContains(cache, 0, 10);
+        put(cache, 10, 200);
+        assertContains(cache, 0, 200);
+        cache.verify();
+        cache.close();
+    }
+
+    @Test
+    public void canReadCacheWrittenByFileBackedStore() {
+        BTreePersistentIndexedCache<String, Integer> cache = fileBackedCache();
+        put(cache, 0, 200);
+        cache.close();
+
+        cache = mappedCache();
+        assertContains(cache, 0, 200);
+        cache.verify();
+        cache.close();
+    }
+
+    @Test
+    public void fileBackedStoreCanReadCacheWrittenByMappedStore() {
+        BTreePersistentIndexedCache<String, Integer> cache = mappedCache();
+        put(cache, 0, 200);
+        cache.close();
+
+        cache = fileBackedCache();
+        assertContains(cache, 0, 200);
+        cache.verify();
+        cache.close();
+    }
+
+    @Test
+    public void discardsTruncatedCacheFile() throws IOException {
+        BTreePersistentIndexedCache<String, Integer> cache = mappedCache();
+        cache.put("key_1", 99);
+
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+        file.setLength(file.length() - 10);
+        file.close();
+
+        cache.reset();
+
+        assertNull(cache.get("key_1"));
+        cache.verify();
+        cache.put("key_1", 12);
+        assertThat(cache.get("key_1"), equalTo(12));
+        cache.close();
+    }
+
+    private static void put(BTreePersistentIndexedCache<String, Integer> cache, int from, int to) {
+        for (int i = from; i < to; i++) {
+            cache.put(String.format("key_%d", i), i);
+        }
+    }
+
+    private static void assertContains(BTreePersistentIndexedCache<String, Integer> cache, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertThat(cache.get(String.format("key_%d", i)), equalTo(i));
+        }
+    }
+}
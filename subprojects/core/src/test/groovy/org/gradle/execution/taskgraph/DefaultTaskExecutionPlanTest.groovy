@@ -21,6 +21,7 @@ import org.gradle.api.CircularReferenceException
 import org.gradle.api.Task
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository
 import org.gradle.api.internal.project.DefaultProject
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.specs.Spec
@@ -434,6 +435,57 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         orderingRule << ['dependsOn', 'mustRunAfter' , 'shouldRunAfter']
     }
 
+    def "tasks with the longest chain of tasks waiting for them are executed first when critical path is prioritized"() {
+        given:
+        Task a = task("a");
+        Task b = task("b");
+        Task c = task("c", dependsOn: [b]);
+        Task d = task("d", dependsOn: [c]);
+
+        when:
+        addToGraphAndPopulate([a, d])
+        executionPlan.prioritizeCriticalPath()
+
+        then:
+        executionPlan.tasks == [a, b, c, d]
+        executedTasks == [b, c, a, d]
+    }
+
+    def "durations of previous executions are used when critical path is prioritized"() {
+        given:
+        Task a = task("a");
+        Task b = task("b");
+        Task c = task("c", dependsOn: [b]);
+        def durations = Stub(TaskDurationRepository) {
+            getDurations(_) >> [":a": 1000L, ":b": 10L, ":c": 10L]
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, durations)
+
+        when:
+        addToGraphAndPopulate([a, c])
+        executionPlan.prioritizeCriticalPath()
+
+        then:
+        executedTasks == [a, b, c]
+    }
+
+    def "#orderingRule ordering is honoured when critical path is prioritized"() {
+        given:
+        Task a = task("a");
+        Task b = task("b", (orderingRule): [a]);
+        Task c = task("c", dependsOn: [b]);
+
+        when:
+        addToGraphAndPopulate([a, c])
+        executionPlan.prioritizeCriticalPath()
+
+        then:
+        executedTasks == [a, b, c]
+
+        where:
+        orderingRule << ['mustRunAfter', 'shouldRunAfter']
+    }
+
     def "cannot add task with circular reference"() {
         Task a = createTask("a")
         Task b = task("b", dependsOn: [a])
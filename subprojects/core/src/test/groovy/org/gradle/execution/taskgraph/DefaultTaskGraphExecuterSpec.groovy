@@ -23,6 +23,7 @@ import org.gradle.api.execution.internal.InternalTaskExecutionListener
 import org.gradle.api.execution.internal.TaskOperationInternal
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository
 import org.gradle.api.internal.tasks.TaskExecuter
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.tasks.TaskDependency
@@ -41,7 +42,7 @@ class DefaultTaskGraphExecuterSpec extends Specification {
     def project = ProjectBuilder.builder().build()
     def listenerManager = new DefaultListenerManager()
     def executer = Mock(TaskExecuter)
-    def taskExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(), Factories.constant(executer), cancellationToken, Stub(TimeProvider), Stub(BuildOperationExecutor))
+    def taskExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(), Factories.constant(executer), cancellationToken, Stub(TimeProvider), Stub(BuildOperationExecutor), TaskDurationRepository.NOOP)
 
     def "notifies task listener as tasks are executed"() {
         def listener = Mock(TaskExecutionListener)
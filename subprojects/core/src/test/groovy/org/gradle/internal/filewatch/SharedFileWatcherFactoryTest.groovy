@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch
+
+import org.gradle.api.Action
+import org.gradle.api.internal.file.FileSystemSubset
+import spock.lang.Specification
+
+class SharedFileWatcherFactoryTest extends Specification {
+    def delegateWatcher = Mock(FileWatcher)
+    def delegateFactory = Mock(FileWatcherFactory)
+    def factory = new SharedFileWatcherFactory(delegateFactory)
+    def dir1 = new File("dir1").absoluteFile
+    def dir2 = new File("dir2").absoluteFile
+    Action<? super Throwable> onError
+    FileWatcherListener listener
+
+    def setup() {
+        _ * delegateFactory.watch(_, _) >> { Action<? super Throwable> action, FileWatcherListener l ->
+            onError = action
+            listener = l
+            delegateWatcher
+        }
+    }
+
+    def "watchers share a single watcher"() {
+        given:
+        def watcher1 = factory.watch(Stub(Action), Stub(FileWatcherListener))
+        def watcher2 = factory.watch(Stub(Action), Stub(FileWatcherListener))
+
+        when:
+        watcher1.watch(subset(dir1))
+        watcher2.watch(subset(dir2))
+
+        then:
+        1 * delegateFactory.watch(_, _) >> delegateWatcher
+        2 * delegateWatcher.watch(_)
+    }
+
+    def "delivers events to the watchers watching the changed file"() {
+        given:
+        def listener1 = Mock(FileWatcherListener)
+        def listener2 = Mock(FileWatcherListener)
+        def watcher1 = factory.watch(Stub(Action), listener1)
+        def watcher2 = factory.watch(Stub(Action), listener2)
+        watcher1.watch(subset(dir1))
+        watcher2.watch(subset(dir2))
+        def event = FileWatcherEvent.modify(new File(dir1, "a.txt"))
+
+        when:
+        listener.onChange(delegateWatcher, event)
+
+        then:
+        1 * listener1.onChange(watcher1, event)
+        0 * listener2._
+    }
+
+    def "delivers events without a file to all watchers"() {
+        given:
+        def listener1 = Mock(FileWatcherListener)
+        def listener2 = Mock(FileWatcherListener)
+        def watcher1 = factory.watch(Stub(Action), listener1)
+        def watcher2 = factory.watch(Stub(Action), listener2)
+        watcher1.watch(subset(dir1))
+        watcher2.watch(subset(dir2))
+        def event = FileWatcherEvent.undefined()
+
+        when:
+        listener.onChange(delegateWatcher, event)
+
+        then:
+        1 * listener1.onChange(watcher1, event)
+        1 * listener2.onChange(watcher2, event)
+    }
+
+    def "stopped watcher receives no events and does not stop the shared watcher"() {
+        given:
+        def listener1 = Mock(FileWatcherListener)
+        def watcher1 = factory.watch(Stub(Action), listener1)
+        watcher1.watch(subset(dir1))
+
+        when:
+        watcher1.stop()
+        listener.onChange(delegateWatcher, FileWatcherEvent.modify(new File(dir1, "a.txt")))
+
+        then:
+        !watcher1.running
+        0 * listener1._
+        0 * delegateWatcher.stop()
+    }
+
+    def "notifies watchers of failure and starts a new watcher on next watch"() {
+        given:
+        def onError1 = Mock(Action)
+        def watcher1 = factory.watch(onError1, Stub(FileWatcherListener))
+        watcher1.watch(subset(dir1))
+        def failure = new RuntimeException()
+
+        when:
+        onError.execute(failure)
+
+        then:
+        1 * onError1.execute(failure)
+        !watcher1.running
+
+        when:
+        factory.watch(Stub(Action), Stub(FileWatcherListener)).watch(subset(dir2))
+
+        then:
+        1 * delegateFactory.watch(_, _) >> delegateWatcher
+    }
+
+    def "stops shared watcher when stopped"() {
+        given:
+        def watcher1 = factory.watch(Stub(Action), Stub(FileWatcherListener))
+        watcher1.watch(subset(dir1))
+
+        when:
+        factory.stop()
+
+        then:
+        1 * delegateWatcher.stop()
+        !watcher1.running
+    }
+
+    def subset(File dir) {
+        return FileSystemSubset.builder().add(dir).build()
+    }
+}
@@ -27,6 +27,10 @@ import org.gradle.cache.internal.DefaultCacheRepository
 import org.gradle.deployment.internal.DefaultDeploymentRegistry
 import org.gradle.deployment.internal.DeploymentRegistry
 import org.gradle.internal.classpath.ClassPath
+import org.gradle.internal.filewatch.DefaultFileSystemChangeWaiterFactory
+import org.gradle.internal.filewatch.FileSystemChangeWaiterFactory
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.filewatch.SharedFileWatcherFactory
 import org.gradle.internal.service.ServiceRegistry
 import org.gradle.messaging.remote.MessagingServer
 import org.gradle.process.internal.DefaultWorkerProcessFactory
@@ -83,6 +87,24 @@ class BuildSessionScopeServicesTest extends Specification {
         registry.get(WorkerProcessClassPathProvider) == registry.get(WorkerProcessClassPathProvider)
     }
 
+    def "provides a FileWatcherFactory that shares one watcher"() {
+        setup:
+        expectParentServiceLocated(FileWatcherFactory)
+
+        expect:
+        registry.get(FileWatcherFactory) instanceof SharedFileWatcherFactory
+        registry.get(FileWatcherFactory) == registry.get(FileWatcherFactory)
+    }
+
+    def "provides a FileSystemChangeWaiterFactory"() {
+        setup:
+        expectParentServiceLocated(FileWatcherFactory)
+
+        expect:
+        registry.get(FileSystemChangeWaiterFactory) instanceof DefaultFileSystemChangeWaiterFactory
+        registry.get(FileSystemChangeWaiterFactory) == registry.get(FileSystemChangeWaiterFactory)
+    }
+
     private <T> T expectParentServiceLocated(Class<T> type) {
         T t = Mock(type)
         parent.get(type) >> t
@@ -17,6 +17,7 @@ package org.gradle.internal.service.scopes
 
 import org.gradle.StartParameter
 import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.changedetection.state.DirectoryTreeSnapshotCache
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache
 import org.gradle.api.internal.file.FileResolver
 import org.gradle.api.internal.tasks.TaskExecuter
@@ -54,6 +55,8 @@ class TaskExecutionServicesTest extends Specification {
         _ * parent.get(StartParameter) >> Mock(StartParameter)
         _ * parent.get(FileResolver) >> Mock(FileResolver)
         _ * parent.get(StringInterner) >> new StringInterner()
+        _ * parent.get(DirectoryTreeSnapshotCache) >> Mock(DirectoryTreeSnapshotCache)
+        _ * parent.get(ExecutorFactory) >> Mock(ExecutorFactory)
         _ * cacheRepository.cache(gradle, 'taskArtifacts') >> cacheBuilder
         _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
         _ * cacheBuilder.withLockOptions(!null) >> cacheBuilder
@@ -22,7 +22,17 @@ public interface ComponentMetadataProcessor {
         @Override
         public void processMetadata(MutableModuleComponentResolveMetaData metadata) {
         }
+
+        @Override
+        public boolean hasRules() {
+            return false;
+        }
     };
 
     void processMetadata(MutableModuleComponentResolveMetaData metadata);
+
+    /**
+     * Returns true when any rule has been registered, in which case the processed meta-data may differ from what the repository provides.
+     */
+    boolean hasRules();
 }
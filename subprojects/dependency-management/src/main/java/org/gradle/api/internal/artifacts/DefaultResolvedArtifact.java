@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.artifacts.ResolvedModuleVersion;
 import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
@@ -27,14 +28,20 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
     private final ResolvedModuleVersion owner;
     private final IvyArtifactName artifact;
     private final ComponentArtifactIdentifier artifactId;
+    private final String repositoryId;
     private Factory<File> artifactSource;
     private File file;
 
     public DefaultResolvedArtifact(ResolvedModuleVersion owner, IvyArtifactName artifact, ComponentArtifactIdentifier artifactId, Factory<File> artifactSource) {
+        this(owner, artifact, artifactId, artifactSource, null);
+    }
+
+    public DefaultResolvedArtifact(ResolvedModuleVersion owner, IvyArtifactName artifact, ComponentArtifactIdentifier artifactId, Factory<File> artifactSource, @Nullable String repositoryId) {
         this.owner = owner;
         this.artifact = artifact;
         this.artifactId = artifactId;
         this.artifactSource = artifactSource;
+        this.repositoryId = repositoryId;
     }
 
     public ResolvedModuleVersion getModuleVersion() {
@@ -85,7 +92,19 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
         return artifact.getClassifier();
     }
 
-    public File getFile() {
+    /**
+     * Returns the id of the repository that the file of this artifact is fetched from, or null when it does not come from a repository.
+     */
+    @Nullable
+    public String getRepositoryId() {
+        return repositoryId;
+    }
+
+    public synchronized boolean isFileResolved() {
+        return file != null;
+    }
+
+    public synchronized File getFile() {
         if (file == null) {
             file = artifactSource.create();
             artifactSource = null;
@@ -26,22 +26,30 @@ import org.gradle.api.artifacts.ResolvedModuleVersion;
 import java.util.*;
 
 public class DefaultResolvedDependency implements ResolvedDependency {
+    private static final Comparator<ResolvedArtifact> ARTIFACT_COMPARATOR = new ResolvedArtifactComparator();
+
     private final Set<ResolvedDependency> children = new LinkedHashSet<ResolvedDependency>();
     private final Set<ResolvedDependency> parents = new LinkedHashSet<ResolvedDependency>();
     private final Map<ResolvedDependency, Set<ResolvedArtifact>> parentArtifacts = new LinkedHashMap<ResolvedDependency, Set<ResolvedArtifact>>();
-    private final String name;
     private final ResolvedConfigurationIdentifier id;
     private final Set<ResolvedArtifact> moduleArtifacts;
-    private final Map<ResolvedDependency, Set<ResolvedArtifact>> allArtifactsCache = new HashMap<ResolvedDependency, Set<ResolvedArtifact>>();
+    private Map<ResolvedDependency, Set<ResolvedArtifact>> allArtifactsCache;
     private Set<ResolvedArtifact> allModuleArtifactsCache;
+    private String name;
 
     public DefaultResolvedDependency(ModuleVersionIdentifier moduleVersionIdentifier, String configuration) {
-        this.name = String.format("%s:%s:%s", moduleVersionIdentifier.getGroup(), moduleVersionIdentifier.getName(), moduleVersionIdentifier.getVersion());
-        id = new ResolvedConfigurationIdentifier(moduleVersionIdentifier, configuration);
-        this.moduleArtifacts = new TreeSet<ResolvedArtifact>(new ResolvedArtifactComparator());
+        this(new ResolvedConfigurationIdentifier(moduleVersionIdentifier, configuration));
+    }
+
+    public DefaultResolvedDependency(ResolvedConfigurationIdentifier id) {
+        this.id = id;
+        this.moduleArtifacts = new TreeSet<ResolvedArtifact>(ARTIFACT_COMPARATOR);
     }
 
     public String getName() {
+        if (name == null) {
+            name = String.format("%s:%s:%s", id.getModuleGroup(), id.getModuleName(), id.getModuleVersion());
+        }
         return name;
     }
 
@@ -106,6 +114,9 @@ public class DefaultResolvedDependency implements ResolvedDependency {
     }
 
     public Set<ResolvedArtifact> getAllArtifacts(ResolvedDependency parent) {
+        if (allArtifactsCache == null) {
+            allArtifactsCache = new HashMap<ResolvedDependency, Set<ResolvedArtifact>>();
+        }
         if (allArtifactsCache.get(parent) == null) {
             Set<ResolvedArtifact> allArtifacts = new LinkedHashSet<ResolvedArtifact>();
             allArtifacts.addAll(getArtifacts(parent));
@@ -124,7 +135,7 @@ public class DefaultResolvedDependency implements ResolvedDependency {
     }
 
     public String toString() {
-        return name + ";" + getConfiguration();
+        return getName() + ";" + getConfiguration();
     }
 
     @Override
@@ -153,7 +164,7 @@ public class DefaultResolvedDependency implements ResolvedDependency {
     public void addParentSpecificArtifacts(ResolvedDependency parent, Set<ResolvedArtifact> artifacts) {
         Set<ResolvedArtifact> parentArtifacts = this.parentArtifacts.get(parent);
         if (parentArtifacts == null) {
-            parentArtifacts = new TreeSet<ResolvedArtifact>(new ResolvedArtifactComparator());
+            parentArtifacts = new TreeSet<ResolvedArtifact>(ARTIFACT_COMPARATOR);
             this.parentArtifacts.put(parent, parentArtifacts);
         }
         parentArtifacts.addAll(artifacts);
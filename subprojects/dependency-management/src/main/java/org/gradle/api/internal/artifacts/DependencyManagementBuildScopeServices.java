@@ -27,6 +27,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemory
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.*;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryModuleDescriptorCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.ConfigurationComponentMetaDataBuilder;
@@ -35,7 +36,9 @@ import org.gradle.api.internal.artifacts.ivyservice.projectmodule.DefaultProject
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.DefaultProjectPublicationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDependencyResolver;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublicationRegistry;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ComponentMetaDataPrefetcherFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultArtifactDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ResolvedGraphCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.*;
 import org.gradle.api.internal.artifacts.repositories.transport.RepositoryTransportFactory;
@@ -51,6 +54,7 @@ import org.gradle.api.internal.project.ProjectRegistry;
 import org.gradle.cache.CacheRepository;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetaData;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.resource.cached.ByUrlCachedExternalResourceIndex;
 import org.gradle.internal.resource.cached.ivy.ArtifactAtRepositoryCachedArtifactIndex;
@@ -66,8 +70,8 @@ import org.gradle.util.BuildCommencedTimeProvider;
  * The set of dependency management services that are created per build.
  */
 class DependencyManagementBuildScopeServices {
-    InMemoryCachedRepositoryFactory createInMemoryDependencyMetadataCache() {
-        return new InMemoryCachedRepositoryFactory();
+    InMemoryCachedRepositoryFactory createInMemoryDependencyMetadataCache(InMemoryModuleDescriptorCache inMemoryModuleDescriptorCache) {
+        return new InMemoryCachedRepositoryFactory(inMemoryModuleDescriptorCache);
     }
 
     DependencyManagementServices createDependencyManagementServices(ServiceRegistry parent) {
@@ -112,11 +116,13 @@ class DependencyManagementBuildScopeServices {
         );
     }
 
-    ModuleMetaDataCache createModuleDescriptorCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ResolverStrategy resolverStrategy) {
+    ModuleMetaDataCache createModuleDescriptorCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ResolverStrategy resolverStrategy,
+                                                    InMemoryModuleDescriptorCache inMemoryModuleDescriptorCache) {
         return new DefaultModuleMetaDataCache(
             timeProvider,
             cacheLockingManager,
-            resolverStrategy
+            resolverStrategy,
+            inMemoryModuleDescriptorCache
         );
     }
 
@@ -207,6 +213,9 @@ class DependencyManagementBuildScopeServices {
                                                                 CacheLockingManager cacheLockingManager,
                                                                 IvyContextManager ivyContextManager,
                                                                 VersionComparator versionComparator,
+                                                                ComponentMetaDataPrefetcherFactory prefetcherFactory,
+                                                                ResolvedGraphCache resolvedGraphCache,
+                                                                VersionSelectorScheme versionSelectorScheme,
                                                                 ServiceRegistry serviceRegistry) {
         DefaultArtifactDependencyResolver resolver = new DefaultArtifactDependencyResolver(
             serviceRegistry,
@@ -214,11 +223,27 @@ class DependencyManagementBuildScopeServices {
             dependencyDescriptorFactory,
             cacheLockingManager,
             ivyContextManager,
-            versionComparator
+            versionComparator,
+            prefetcherFactory,
+            resolvedGraphCache,
+            versionSelectorScheme
         );
         return new CacheLockingArtifactDependencyResolver(cacheLockingManager, resolver);
     }
 
+    ComponentMetaDataPrefetcherFactory createComponentMetaDataPrefetcherFactory(ExecutorFactory executorFactory, CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager,
+                                                                                VersionSelectorScheme versionSelectorScheme) {
+        return new ComponentMetaDataPrefetcherFactory(executorFactory, cacheLockingManager, ivyContextManager, versionSelectorScheme);
+    }
+
+    ResolvedGraphCache createResolvedGraphCache(CacheLockingManager cacheLockingManager, StartParameter startParameter) {
+        return new ResolvedGraphCache(cacheLockingManager, startParameter);
+    }
+
+    ParallelArtifactDownloader createParallelArtifactDownloader(ExecutorFactory executorFactory, CacheLockingManager cacheLockingManager) {
+        return new ParallelArtifactDownloader(executorFactory, cacheLockingManager);
+    }
+
     ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileProvider temporaryFileProvider) {
         return new ResolutionResultsStoreFactory(temporaryFileProvider);
     }
@@ -20,6 +20,8 @@ import org.gradle.api.internal.artifacts.component.ComponentIdentifierFactory;
 import org.gradle.api.internal.artifacts.component.DefaultComponentIdentifierFactory;
 import org.gradle.api.internal.artifacts.ivyservice.DefaultIvyContextManager;
 import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.ParsedPomCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryModuleDescriptorCache;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.*;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.*;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
@@ -61,4 +63,12 @@ class DependencyManagementGlobalScopeServices {
     ResourceConnectorFactory createFileConnectorFactory() {
         return new FileConnectorFactory();
     }
+
+    ParsedPomCache createParsedPomCache() {
+        return new ParsedPomCache();
+    }
+
+    InMemoryModuleDescriptorCache createInMemoryModuleDescriptorCache() {
+        return new InMemoryModuleDescriptorCache();
+    }
 }
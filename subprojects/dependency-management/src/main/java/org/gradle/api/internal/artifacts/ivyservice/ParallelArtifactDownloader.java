@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.DefaultBuildOperationProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetches the files of a set of resolved artifacts concurrently, ahead of them being requested one at a time.
+ *
+ * <p>The artifacts are grouped by the repository they come from, and the number of artifacts fetched at the same time from a single repository
+ * is limited by the {@value #CONCURRENCY_PROPERTY} system property. When the property is not set, or is set to 1, nothing is fetched ahead.</p>
+ *
+ * <p>Each fetch goes through the usual artifact resolver, which takes the artifact cache lock for the cache access and releases it
+ * for the download itself. The calling thread releases the lock while it waits.</p>
+ */
+public class ParallelArtifactDownloader implements Stoppable {
+    public final static String CONCURRENCY_PROPERTY = "org.gradle.artifacts.download.concurrency";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelArtifactDownloader.class);
+    private static final int MAX_CONCURRENT_DOWNLOADS = 16;
+
+    private final ExecutorFactory executorFactory;
+    private final CacheLockingManager cacheLockingManager;
+    private DefaultBuildOperationProcessor buildOperationProcessor;
+
+    public ParallelArtifactDownloader(ExecutorFactory executorFactory, CacheLockingManager cacheLockingManager) {
+        this.executorFactory = executorFactory;
+        this.cacheLockingManager = cacheLockingManager;
+    }
+
+    public static int getConcurrencyPerRepository() {
+        return Math.max(1, Integer.getInteger(CONCURRENCY_PROPERTY, 1));
+    }
+
+    /**
+     * Fetches the files of those of the given artifacts that come from a repository and have not been fetched yet.
+     * Failures are ignored, the artifact is fetched again when its file is requested and the failure is reported then.
+     */
+    public void download(Collection<? extends ResolvedArtifact> artifacts) {
+        int concurrency = getConcurrencyPerRepository();
+        if (concurrency == 1) {
+            return;
+        }
+
+        Map<String, List<DefaultResolvedArtifact>> artifactsByRepository = Maps.newLinkedHashMap();
+        int count = 0;
+        for (ResolvedArtifact artifact : artifacts) {
+            if (!(artifact instanceof DefaultResolvedArtifact)) {
+                continue;
+            }
+            DefaultResolvedArtifact resolvedArtifact = (DefaultResolvedArtifact) artifact;
+            if (resolvedArtifact.getRepositoryId() == null || resolvedArtifact.isFileResolved()) {
+                continue;
+            }
+            List<DefaultResolvedArtifact> repositoryArtifacts = artifactsByRepository.get(resolvedArtifact.getRepositoryId());
+            if (repositoryArtifacts == null) {
+                repositoryArtifacts = Lists.newArrayList();
+                artifactsByRepository.put(resolvedArtifact.getRepositoryId(), repositoryArtifacts);
+            }
+            repositoryArtifacts.add(resolvedArtifact);
+            count++;
+        }
+        if (count < 2) {
+            return;
+        }
+
+        // Each repository gets at most 'concurrency' operations, which fetch their share of the artifacts one after the other
+        final BuildOperationQueue<DownloadOperation> queue = getBuildOperationProcessor().newQueue(new DownloadWorker(), null);
+        for (Map.Entry<String, List<DefaultResolvedArtifact>> entry : artifactsByRepository.entrySet()) {
+            List<DefaultResolvedArtifact> repositoryArtifacts = entry.getValue();
+            int operations = Math.min(concurrency, repositoryArtifacts.size());
+            for (int i = 0; i < operations; i++) {
+                List<DefaultResolvedArtifact> share = Lists.newArrayList();
+                for (int j = i; j < repositoryArtifacts.size(); j += operations) {
+                    share.add(repositoryArtifacts.get(j));
+                }
+                queue.add(new DownloadOperation(entry.getKey(), share));
+            }
+        }
+        cacheLockingManager.longRunningOperation("Download artifacts", new Runnable() {
+            public void run() {
+                queue.waitForCompletion();
+            }
+        });
+    }
+
+    private synchronized DefaultBuildOperationProcessor getBuildOperationProcessor() {
+        if (buildOperationProcessor == null) {
+            buildOperationProcessor = new DefaultBuildOperationProcessor(executorFactory, MAX_CONCURRENT_DOWNLOADS);
+        }
+        return buildOperationProcessor;
+    }
+
+    public synchronized void stop() {
+        if (buildOperationProcessor != null) {
+            buildOperationProcessor.stop();
+            buildOperationProcessor = null;
+        }
+    }
+
+    private static class DownloadOperation implements BuildOperation {
+        private final String repositoryId;
+        private final List<DefaultResolvedArtifact> artifacts;
+
+        DownloadOperation(String repositoryId, List<DefaultResolvedArtifact> artifacts) {
+            this.repositoryId = repositoryId;
+            this.artifacts = artifacts;
+        }
+
+        public String getDescription() {
+            return "download " + artifacts.size() + " artifacts from repository " + repositoryId;
+        }
+    }
+
+    private static class DownloadWorker implements BuildOperationWorker<DownloadOperation> {
+        public String getDisplayName() {
+            return "artifact downloader";
+        }
+
+        public void execute(DownloadOperation operation) {
+            for (DefaultResolvedArtifact artifact : operation.artifacts) {
+                try {
+                    artifact.getFile();
+                } catch (Throwable e) {
+                    LOGGER.debug("Could not download {}.", artifact, e);
+                }
+            }
+        }
+    }
+}
@@ -16,14 +16,19 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 class InMemoryCacheStats {
     int cacheInstances;
     int reposWrapped;
-    int metadataServed;
-    int artifactsServed;
+    final AtomicInteger metadataServed = new AtomicInteger();
+    final AtomicInteger metadataMissed = new AtomicInteger();
+    final AtomicInteger artifactsServed = new AtomicInteger();
+    long descriptorsServed;
+    long descriptorsParsed;
     public String toString() {
         return String.format(
-                "Repos cached: %s, cache instances: %s, modules served from cache: %s, artifacts: %s",
-                reposWrapped, cacheInstances, metadataServed, artifactsServed);
+                "Repos cached: %s, cache instances: %s, modules served from cache: %s, modules missed: %s, artifacts: %s, cached descriptors served from the daemon: %s, parsed: %s",
+                reposWrapped, cacheInstances, metadataServed, metadataMissed, artifactsServed, descriptorsServed, descriptorsParsed);
     }
 }
@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
 
 import com.google.common.collect.MapMaker;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryModuleDescriptorCache;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.concurrent.Stoppable;
@@ -25,7 +26,10 @@ import org.gradle.internal.concurrent.Stoppable;
 import java.util.Map;
 
 /**
- * Caches the dependency metadata (descriptors, artifact files) in memory.
+ * Caches the dependency metadata (descriptors, artifact files) in memory for the duration of a build.
+ *
+ * <p>The descriptors read from the persistent module meta-data cache are also kept across builds, by the daemon scoped
+ * {@link InMemoryModuleDescriptorCache}. The statistics of both caches are logged at the end of the build.</p>
  */
 public class InMemoryCachedRepositoryFactory implements Stoppable {
 
@@ -37,6 +41,16 @@ public class InMemoryCachedRepositoryFactory implements Stoppable {
 
     final InMemoryCacheStats stats = new InMemoryCacheStats();
 
+    private final InMemoryModuleDescriptorCache descriptorCache;
+    private final long descriptorHitsAtStart;
+    private final long descriptorMissesAtStart;
+
+    public InMemoryCachedRepositoryFactory(InMemoryModuleDescriptorCache descriptorCache) {
+        this.descriptorCache = descriptorCache;
+        this.descriptorHitsAtStart = descriptorCache.getHits();
+        this.descriptorMissesAtStart = descriptorCache.getMisses();
+    }
+
     public ModuleComponentRepository cached(ModuleComponentRepository input) {
         if ("false".equalsIgnoreCase(System.getProperty(TOGGLE_PROPERTY))) {
             return input;
@@ -57,6 +71,12 @@ public class InMemoryCachedRepositoryFactory implements Stoppable {
 
     public void stop() {
         cachePerRepo.clear();
-        LOG.debug("In-memory dependency metadata cache closed. {}", stats);
+        stats.descriptorsServed = descriptorCache.getHits() - descriptorHitsAtStart;
+        stats.descriptorsParsed = descriptorCache.getMisses() - descriptorMissesAtStart;
+        if (stats.reposWrapped > 0) {
+            LOG.lifecycle("In-memory dependency metadata cache closed. {}, descriptors held by the daemon: {}", stats, descriptorCache.getSize());
+        } else {
+            LOG.debug("In-memory dependency metadata cache closed. {}", stats);
+        }
     }
 }
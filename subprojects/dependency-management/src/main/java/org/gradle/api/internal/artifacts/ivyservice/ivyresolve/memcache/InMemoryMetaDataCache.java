@@ -21,15 +21,15 @@ import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult.State.Listed;
 
 class InMemoryMetaDataCache {
-    private final Map<ModuleVersionSelector, Set<String>> moduleVersionListing = new HashMap<ModuleVersionSelector, Set<String>>();
-    private final Map<ModuleComponentIdentifier, CachedModuleVersionResult> metaData = new HashMap<ModuleComponentIdentifier, CachedModuleVersionResult>();
+    private final Map<ModuleVersionSelector, Set<String>> moduleVersionListing = new ConcurrentHashMap<ModuleVersionSelector, Set<String>>();
+    private final Map<ModuleComponentIdentifier, CachedModuleVersionResult> metaData = new ConcurrentHashMap<ModuleComponentIdentifier, CachedModuleVersionResult>();
     private InMemoryCacheStats stats;
 
     InMemoryMetaDataCache(InMemoryCacheStats stats) {
@@ -54,10 +54,11 @@ class InMemoryMetaDataCache {
     boolean supplyMetaData(ModuleComponentIdentifier requested, BuildableModuleComponentMetaDataResolveResult result) {
         CachedModuleVersionResult fromCache = metaData.get(requested);
         if (fromCache == null) {
+            stats.metadataMissed.incrementAndGet();
             return false;
         }
         fromCache.supply(result);
-        stats.metadataServed++;
+        stats.metadataServed.incrementAndGet();
         return true;
     }
 
@@ -48,9 +48,15 @@ public final class GradlePomModuleDescriptorParser extends AbstractModuleDescrip
     private static final String DEPENDENCY_IMPORT_SCOPE = "import";
     private final VersionSelectorScheme gradleVersionSelectorScheme;
     private final VersionSelectorScheme mavenVersionSelectorScheme;
+    private final ParsedPomCache parsedPomCache;
 
     public GradlePomModuleDescriptorParser(VersionSelectorScheme gradleVersionSelectorScheme) {
+        this(gradleVersionSelectorScheme, new ParsedPomCache());
+    }
+
+    public GradlePomModuleDescriptorParser(VersionSelectorScheme gradleVersionSelectorScheme, ParsedPomCache parsedPomCache) {
         this.gradleVersionSelectorScheme = gradleVersionSelectorScheme;
+        this.parsedPomCache = parsedPomCache;
         mavenVersionSelectorScheme = new MavenVersionSelectorScheme(gradleVersionSelectorScheme);
     }
 
@@ -64,7 +70,7 @@ public final class GradlePomModuleDescriptorParser extends AbstractModuleDescrip
     }
 
     protected DefaultMavenModuleResolveMetaData doParseDescriptor(DescriptorParseContext parserSettings, LocallyAvailableExternalResource resource, boolean validate) throws IOException, ParseException, SAXException {
-        PomReader pomReader = new PomReader(resource);
+        PomReader pomReader = new PomReader(resource, parsedPomCache);
         GradlePomModuleDescriptorBuilder mdBuilder = new GradlePomModuleDescriptorBuilder(pomReader, gradleVersionSelectorScheme, mavenVersionSelectorScheme);
 
         doParsePom(parserSettings, mdBuilder, pomReader);
@@ -209,7 +215,7 @@ public final class GradlePomModuleDescriptorParser extends AbstractModuleDescrip
      */
     private PomReader parseOtherPom(DescriptorParseContext parseContext, ModuleComponentIdentifier parentId) throws IOException, SAXException {
         LocallyAvailableExternalResource localResource = parseContext.getMetaDataArtifact(parentId, ArtifactType.MAVEN_POM);
-        PomReader pomReader = new PomReader(localResource);
+        PomReader pomReader = new PomReader(localResource, parsedPomCache);
         GradlePomModuleDescriptorBuilder mdBuilder = new GradlePomModuleDescriptorBuilder(pomReader, gradleVersionSelectorScheme, mavenVersionSelectorScheme);
         doParsePom(parseContext, mdBuilder, pomReader);
         return pomReader;
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.internal.hash.HashValue;
+
+/**
+ * An in-memory cache of parsed POMs, keyed by the SHA-1 of the POM content. This lives as long as the daemon, so that POMs
+ * shared by many modules, such as parent POMs and imported BOMs, are parsed once rather than for every module and every build.
+ */
+public class ParsedPomCache {
+    private static final int MAX_ENTRIES = 2000;
+
+    private final Cache<HashValue, PomElement> cache = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).build();
+
+    public PomElement get(HashValue sha1) {
+        return cache.getIfPresent(sha1);
+    }
+
+    public void put(HashValue sha1, PomElement parsedPom) {
+        cache.put(sha1, parsedPom);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.gradle.api.Nullable;
+
+import java.util.List;
+
+/**
+ * An element of a parsed POM. Holds the name of the element, the text directly contained in it and the child elements.
+ * Instances are immutable, so that a parsed POM can be shared.
+ *
+ * @see PomStaxParser
+ */
+public final class PomElement {
+    private final String name;
+    private final String textContent;
+    private final List<PomElement> children;
+
+    public PomElement(String name, String textContent, List<PomElement> children) {
+        this.name = name;
+        this.textContent = textContent;
+        this.children = children;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the text and CDATA sections directly contained in this element. Text of child elements is not included.
+     */
+    public String getTextContent() {
+        return textContent;
+    }
+
+    public List<PomElement> getChildren() {
+        return children;
+    }
+
+    /**
+     * Returns the first child element with the given name, or null if there is none.
+     */
+    @Nullable
+    public PomElement getFirstChild(String name) {
+        for (PomElement child : children) {
+            if (name.equals(child.getName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the text content of the first child element with the given name, or null if there is none.
+     */
+    @Nullable
+    public String getFirstChildText(String name) {
+        PomElement child = getFirstChild(name);
+        return child == null ? null : child.getTextContent();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -19,28 +19,20 @@ import org.apache.ivy.core.IvyPatternHelper;
 import org.apache.ivy.core.module.descriptor.License;
 import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
-import org.apache.ivy.util.XMLHelper;
 import org.gradle.api.Transformer;
 import org.gradle.api.internal.artifacts.ivyservice.IvyUtil;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.data.MavenDependencyKey;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.data.PomDependencyMgt;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.data.PomProfile;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.EntityResolver;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
-import javax.xml.parsers.DocumentBuilder;
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
 
-import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomDomParser.*;
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomStaxParser.*;
 
 /**
  * Copied from org.apache.ivy.plugins.parser.m2.PomReader.
@@ -87,25 +79,40 @@ public class PomReader implements PomParent {
     private final Map<MavenDependencyKey, PomDependencyMgt> importedDependencyMgts = new LinkedHashMap<MavenDependencyKey, PomDependencyMgt>();
     private Map<MavenDependencyKey, PomDependencyData> resolvedDependencies;
 
-    private final Element projectElement;
-    private final Element parentElement;
+    private final String systemId;
+    private final PomElement projectElement;
+    private final PomElement parentElement;
 
     public PomReader(final LocallyAvailableExternalResource resource) throws SAXException {
-        final String systemId = resource.getLocalResource().getFile().toURI().toASCIIString();
-        Document pomDomDoc = resource.withContent(new Transformer<Document, InputStream>() {
-            public Document transform(InputStream inputStream) {
-                try {
-                    return parseToDom(inputStream, systemId);
-                } catch (Exception e) {
-                    throw new MetaDataParseException("POM", resource, e);
+        this(resource, null);
+    }
+
+    /**
+     * @param parsedPomCache The cache to look the parsed POM up in, by the SHA-1 of its content. May be null.
+     */
+    public PomReader(final LocallyAvailableExternalResource resource, ParsedPomCache parsedPomCache) throws SAXException {
+        systemId = resource.getLocalResource().getFile().toURI().toASCIIString();
+        HashValue sha1 = parsedPomCache == null ? null : resource.getLocalResource().getSha1();
+        PomElement parsedPom = sha1 == null ? null : parsedPomCache.get(sha1);
+        if (parsedPom == null) {
+            parsedPom = resource.withContent(new Transformer<PomElement, InputStream>() {
+                public PomElement transform(InputStream inputStream) {
+                    try {
+                        return parse(inputStream, systemId);
+                    } catch (Exception e) {
+                        throw new MetaDataParseException("POM", resource, e);
+                    }
                 }
+            });
+            if (sha1 != null) {
+                parsedPomCache.put(sha1, parsedPom);
             }
-        });
-        projectElement = pomDomDoc.getDocumentElement();
-        if (!PROJECT.equals(projectElement.getNodeName()) && !MODEL.equals(projectElement.getNodeName())) {
+        }
+        projectElement = parsedPom;
+        if (!PROJECT.equals(projectElement.getName()) && !MODEL.equals(projectElement.getName())) {
             throw new SAXParseException("project must be the root tag", systemId, systemId, 0, 0);
         }
-        parentElement = getFirstChildElement(projectElement, PARENT);
+        parentElement = projectElement.getFirstChild(PARENT);
 
         setDefaultParentGavProperties();
         setPomProperties();
@@ -185,28 +192,17 @@ public class PomReader implements PomParent {
 
     @Override
     public String toString() {
-        return projectElement.getOwnerDocument().getDocumentURI();
-    }
-
-    public static Document parseToDom(InputStream stream, String systemId) throws IOException, SAXException {
-        EntityResolver entityResolver = new EntityResolver() {
-            public InputSource resolveEntity(String publicId, String systemId)
-                    throws SAXException, IOException {
-                if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
-                    return new InputSource(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
-                }
-                return null;
-            }
-        };
-        InputStream dtdStream = new AddDTDFilterInputStream(stream);
-        DocumentBuilder docBuilder = XMLHelper.getDocBuilder(entityResolver);
-        return docBuilder.parse(dtdStream, systemId);
+        return systemId;
     }
 
     public boolean hasParent() {
         return parentElement != null;
     }
 
+    private String getParentText(String name) {
+        return parentElement == null ? null : parentElement.getFirstChildText(name);
+    }
+
     public Map<String, String> getProperties() {
         return properties;
     }
@@ -219,56 +215,56 @@ public class PomReader implements PomParent {
     }
 
     public String getGroupId() {
-        String groupId = getFirstChildText(projectElement , GROUP_ID);
+        String groupId = projectElement.getFirstChildText(GROUP_ID);
         if (groupId == null) {
-            groupId = getFirstChildText(parentElement, GROUP_ID);
+            groupId = getParentText(GROUP_ID);
         }
         return replaceProps(groupId);
 
     }
 
     public String getParentGroupId() {
-        String groupId = getFirstChildText(parentElement , GROUP_ID);
+        String groupId = getParentText(GROUP_ID);
         if (groupId == null) {
-            groupId = getFirstChildText(projectElement, GROUP_ID);
+            groupId = projectElement.getFirstChildText(GROUP_ID);
         }
         return replaceProps(groupId);
     }
 
     public String getArtifactId() {
-        String val = getFirstChildText(projectElement , ARTIFACT_ID);
+        String val = projectElement.getFirstChildText(ARTIFACT_ID);
         if (val == null) {
-            val = getFirstChildText(parentElement, ARTIFACT_ID);
+            val = getParentText(ARTIFACT_ID);
         }
         return replaceProps(val);
     }
 
     public String getParentArtifactId() {
-        String val = getFirstChildText(parentElement , ARTIFACT_ID);
+        String val = getParentText(ARTIFACT_ID);
         if (val == null) {
-            val = getFirstChildText(projectElement, ARTIFACT_ID);
+            val = projectElement.getFirstChildText(ARTIFACT_ID);
         }
         return replaceProps(val);
     }
 
     public String getVersion() {
-        String val = getFirstChildText(projectElement , VERSION);
+        String val = projectElement.getFirstChildText(VERSION);
         if (val == null) {
-            val = getFirstChildText(parentElement, VERSION);
+            val = getParentText(VERSION);
         }
         return replaceProps(val);
     }
 
     public String getParentVersion() {
-        String val = getFirstChildText(parentElement , VERSION);
+        String val = getParentText(VERSION);
         if (val == null) {
-            val = getFirstChildText(projectElement, VERSION);
+            val = projectElement.getFirstChildText(VERSION);
         }
         return replaceProps(val);
     }
 
     public String getPackaging() {
-        String val = getFirstChildText(projectElement , PACKAGING);
+        String val = projectElement.getFirstChildText(PACKAGING);
         if (val == null) {
             val = "jar";
         }
@@ -276,7 +272,7 @@ public class PomReader implements PomParent {
     }
 
     public String getHomePage() {
-        String val = getFirstChildText(projectElement, HOMEPAGE);
+        String val = projectElement.getFirstChildText(HOMEPAGE);
         if (val == null) {
             val = "";
         }
@@ -284,7 +280,7 @@ public class PomReader implements PomParent {
     }
 
     public String getDescription() {
-        String val = getFirstChildText(projectElement, DESCRIPTION);
+        String val = projectElement.getFirstChildText(DESCRIPTION);
         if (val == null) {
             val = "";
         }
@@ -292,16 +288,15 @@ public class PomReader implements PomParent {
     }
 
     public List<License> getLicenses() {
-        Element licenses = getFirstChildElement(projectElement, LICENSES);
+        PomElement licenses = projectElement.getFirstChild(LICENSES);
         if (licenses == null) {
             return Collections.emptyList();
         }
-        licenses.normalize();
         List<License> lics = new ArrayList<License>();
-        for (Element license : getAllChilds(licenses)) {
-            if (LICENSE.equals(license.getNodeName())) {
-                String name = getFirstChildText(license, LICENSE_NAME);
-                String url = getFirstChildText(license, LICENSE_URL);
+        for (PomElement license : licenses.getChildren()) {
+            if (LICENSE.equals(license.getName())) {
+                String name = license.getFirstChildText(LICENSE_NAME);
+                String url = license.getFirstChildText(LICENSE_URL);
 
                 if ((name == null) && (url == null)) {
                     // move to next license
@@ -320,14 +315,14 @@ public class PomReader implements PomParent {
     }
 
     public ModuleRevisionId getRelocation() {
-        Element distrMgt = getFirstChildElement(projectElement, DISTRIBUTION_MGT);
-        Element relocation = getFirstChildElement(distrMgt , RELOCATION);
+        PomElement distrMgt = projectElement.getFirstChild(DISTRIBUTION_MGT);
+        PomElement relocation = distrMgt == null ? null : distrMgt.getFirstChild(RELOCATION);
         if (relocation == null) {
             return null;
         } else {
-            String relocGroupId = getFirstChildText(relocation, GROUP_ID);
-            String relocArtId = getFirstChildText(relocation, ARTIFACT_ID);
-            String relocVersion = getFirstChildText(relocation, VERSION);
+            String relocGroupId = relocation.getFirstChildText(GROUP_ID);
+            String relocArtId = relocation.getFirstChildText(ARTIFACT_ID);
+            String relocVersion = relocation.getFirstChildText(VERSION);
             relocGroupId = relocGroupId == null ? getGroupId() : relocGroupId;
             relocArtId = relocArtId == null ? getArtifactId() : relocArtId;
             relocVersion = relocVersion == null ? getVersion() : relocVersion;
@@ -368,15 +363,13 @@ public class PomReader implements PomParent {
         return dependencies;
     }
 
-    private List<PomDependencyData> getDependencyData(Element parentElement) {
+    private List<PomDependencyData> getDependencyData(PomElement parentElement) {
         List<PomDependencyData> depElements = new ArrayList<PomDependencyData>();
-        Element dependenciesElement = getFirstChildElement(parentElement, DEPENDENCIES);
+        PomElement dependenciesElement = parentElement.getFirstChild(DEPENDENCIES);
         if (dependenciesElement != null) {
-            NodeList childs = dependenciesElement.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element && DEPENDENCY.equals(node.getNodeName())) {
-                    depElements.add(new PomDependencyData((Element) node));
+            for (PomElement node : dependenciesElement.getChildren()) {
+                if (DEPENDENCY.equals(node.getName())) {
+                    depElements.add(new PomDependencyData(node));
                 }
             }
         }
@@ -425,17 +418,15 @@ public class PomReader implements PomParent {
         return declaredDependencyMgts;
     }
 
-    private List<PomDependencyMgt> getDependencyMgt(Element parentElement) {
+    private List<PomDependencyMgt> getDependencyMgt(PomElement parentElement) {
         List<PomDependencyMgt> depMgmtElements = new ArrayList<PomDependencyMgt>();
-        Element dependenciesElement = getFirstChildElement(parentElement, DEPENDENCY_MGT);
-        dependenciesElement = getFirstChildElement(dependenciesElement, DEPENDENCIES);
+        PomElement dependencyMgtElement = parentElement.getFirstChild(DEPENDENCY_MGT);
+        PomElement dependenciesElement = dependencyMgtElement == null ? null : dependencyMgtElement.getFirstChild(DEPENDENCIES);
 
         if (dependenciesElement != null) {
-            NodeList childs = dependenciesElement.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element && DEPENDENCY.equals(node.getNodeName())) {
-                    depMgmtElements.add(new PomDependencyMgtElement((Element) node));
+            for (PomElement node : dependenciesElement.getChildren()) {
+                if (DEPENDENCY.equals(node.getName())) {
+                    depMgmtElements.add(new PomDependencyMgtElement(node));
                 }
             }
         }
@@ -460,9 +451,9 @@ public class PomReader implements PomParent {
     }
 
     public class PomDependencyMgtElement implements PomDependencyMgt {
-        private final Element depElement;
+        private final PomElement depElement;
 
-        PomDependencyMgtElement(Element depElement) {
+        PomDependencyMgtElement(PomElement depElement) {
             this.depElement = depElement;
         }
 
@@ -474,7 +465,7 @@ public class PomReader implements PomParent {
          * @see org.apache.ivy.plugins.parser.m2.PomDependencyMgt#getGroupId()
          */
         public String getGroupId() {
-            String val = getFirstChildText(depElement , GROUP_ID);
+            String val = depElement.getFirstChildText(GROUP_ID);
             return replaceProps(val);
         }
 
@@ -482,7 +473,7 @@ public class PomReader implements PomParent {
          * @see org.apache.ivy.plugins.parser.m2.PomDependencyMgt#getArtifaceId()
          */
         public String getArtifactId() {
-            String val = getFirstChildText(depElement , ARTIFACT_ID);
+            String val = depElement.getFirstChildText(ARTIFACT_ID);
             return replaceProps(val);
         }
 
@@ -490,17 +481,17 @@ public class PomReader implements PomParent {
          * @see org.apache.ivy.plugins.parser.m2.PomDependencyMgt#getVersion()
          */
         public String getVersion() {
-            String val = getFirstChildText(depElement , VERSION);
+            String val = depElement.getFirstChildText(VERSION);
             return replaceProps(val);
         }
 
         public String getScope() {
-            String val = getFirstChildText(depElement , SCOPE);
+            String val = depElement.getFirstChildText(SCOPE);
             return replaceProps(val);
         }
 
         public String getType() {
-            String val = getFirstChildText(depElement , TYPE);
+            String val = depElement.getFirstChildText(TYPE);
             val = replaceProps(val);
 
             if(val == null) {
@@ -511,20 +502,18 @@ public class PomReader implements PomParent {
         }
 
         public String getClassifier() {
-            String val = getFirstChildText(depElement , CLASSIFIER);
+            String val = depElement.getFirstChildText(CLASSIFIER);
             return replaceProps(val);
         }
 
         public List<ModuleId> getExcludedModules() {
-            Element exclusionsElement = getFirstChildElement(depElement, EXCLUSIONS);
+            PomElement exclusionsElement = depElement.getFirstChild(EXCLUSIONS);
             List<ModuleId> exclusions = new LinkedList<ModuleId>();
             if (exclusionsElement != null) {
-                NodeList childs = exclusionsElement.getChildNodes();
-                for (int i = 0; i < childs.getLength(); i++) {
-                    Node node = childs.item(i);
-                    if (node instanceof Element && EXCLUSION.equals(node.getNodeName())) {
-                        String groupId = getFirstChildText((Element) node, GROUP_ID);
-                        String artifactId = getFirstChildText((Element) node, ARTIFACT_ID);
+                for (PomElement node : exclusionsElement.getChildren()) {
+                    if (EXCLUSION.equals(node.getName())) {
+                        String groupId = node.getFirstChildText(GROUP_ID);
+                        String artifactId = node.getFirstChildText(ARTIFACT_ID);
                         if ((groupId != null) && (artifactId != null)) {
                             exclusions.add(IvyUtil.createModuleId(groupId, artifactId));
                         }
@@ -536,29 +525,28 @@ public class PomReader implements PomParent {
     }
 
     public class PomDependencyData extends PomDependencyMgtElement {
-        private final Element depElement;
-        PomDependencyData(Element depElement) {
+        private final PomElement depElement;
+        PomDependencyData(PomElement depElement) {
             super(depElement);
             this.depElement = depElement;
         }
 
         public boolean isOptional() {
-            Element e = getFirstChildElement(depElement, OPTIONAL);
-            return (e != null) && "true".equalsIgnoreCase(getTextContent(e));
+            return "true".equalsIgnoreCase(depElement.getFirstChildText(OPTIONAL));
         }
     }
 
     public class PomProfileElement implements PomProfile {
-        private final Element element;
+        private final PomElement element;
         private List<PomDependencyMgt> declaredDependencyMgts;
         private List<PomDependencyData> declaredDependencies;
 
-        PomProfileElement(Element element) {
+        PomProfileElement(PomElement element) {
             this.element = element;
         }
 
         public String getId() {
-            return getFirstChildText(element, PROFILE_ID);
+            return element.getFirstChildText(PROFILE_ID);
         }
 
         public Map<String, String> getProperties() {
@@ -591,20 +579,20 @@ public class PomReader implements PomParent {
         if(declaredActivePomProfiles == null) {
             List<PomProfile> activeByDefaultPomProfiles = new ArrayList<PomProfile>();
             List<PomProfile> activeByAbsenceOfPropertyPomProfiles = new ArrayList<PomProfile>();
-            Element profilesElement = getFirstChildElement(projectElement, PROFILES);
+            PomElement profilesElement = projectElement.getFirstChild(PROFILES);
 
             if(profilesElement != null) {
-                for(Element profileElement : getAllChilds(profilesElement)) {
-                    if(PROFILE.equals(profileElement.getNodeName())) {
-                        Element activationElement = getFirstChildElement(profileElement, PROFILE_ACTIVATION);
+                for(PomElement profileElement : profilesElement.getChildren()) {
+                    if(PROFILE.equals(profileElement.getName())) {
+                        PomElement activationElement = profileElement.getFirstChild(PROFILE_ACTIVATION);
 
                         if(activationElement != null) {
-                            String activeByDefault = getFirstChildText(activationElement, PROFILE_ACTIVATION_ACTIVE_BY_DEFAULT);
+                            String activeByDefault = activationElement.getFirstChildText(PROFILE_ACTIVATION_ACTIVE_BY_DEFAULT);
 
                             if(activeByDefault != null && "true".equals(activeByDefault)) {
                                 activeByDefaultPomProfiles.add(new PomProfileElement(profileElement));
                             } else {
-                                Element propertyElement = getFirstChildElement(activationElement, PROFILE_ACTIVATION_PROPERTY);
+                                PomElement propertyElement = activationElement.getFirstChild(PROFILE_ACTIVATION_PROPERTY);
 
                                 if(propertyElement != null) {
                                     if(isActivationPropertyActivated(propertyElement)) {
@@ -642,8 +630,8 @@ public class PomReader implements PomParent {
      * @return Activation indicator
      * @see <a href="http://books.sonatype.com/mvnref-book/reference/profiles-sect-activation.html#profiles-sect-activation-config">Maven documentation</a>
      */
-    private boolean isActivationPropertyActivated(Element propertyElement) {
-        String propertyName = getFirstChildText(propertyElement, "name");
+    private boolean isActivationPropertyActivated(PomElement propertyElement) {
+        String propertyName = propertyElement.getFirstChildText("name");
         return propertyName.startsWith("!");
     }
 
@@ -654,14 +642,13 @@ public class PomReader implements PomParent {
         return getPomProperties(projectElement);
     }
 
-    private Map<String, String> getPomProperties(Element parentElement) {
+    private Map<String, String> getPomProperties(PomElement parentElement) {
         Map<String, String> pomProperties = new HashMap<String, String>();
-        Element propsEl = getFirstChildElement(parentElement, PROPERTIES);
+        PomElement propsEl = parentElement.getFirstChild(PROPERTIES);
         if (propsEl != null) {
-            propsEl.normalize();
-        }
-        for (Element prop : getAllChilds(propsEl)) {
-            pomProperties.put(prop.getNodeName(), getTextContent(prop));
+            for (PomElement prop : propsEl.getChildren()) {
+                pomProperties.put(prop.getName(), prop.getTextContent());
+            }
         }
         return pomProperties;
     }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses a POM into a tree of {@link PomElement}, using a streaming parser.
+ *
+ * <p>Only the elements that are used to build the module descriptor are kept, such as the coordinates, the dependencies, the dependency management,
+ * the properties and the profiles. Everything else, such as the build and reporting sections, is skipped without being materialized.</p>
+ */
+public final class PomStaxParser {
+    private static final ElementFilter PROJECT_FILTER = createProjectFilter();
+    private static final XMLResolver ENTITY_RESOLVER = new XMLResolver() {
+        public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) throws XMLStreamException {
+            if ((systemID != null) && systemID.endsWith("m2-entities.ent")) {
+                return org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent");
+            }
+            return null;
+        }
+    };
+    private static XMLInputFactory inputFactory;
+
+    private PomStaxParser() {}
+
+    /**
+     * Parses the given POM content. The root element is kept whatever its name, it is up to the caller to validate it.
+     */
+    public static PomElement parse(InputStream stream, String systemId) throws IOException, XMLStreamException {
+        XMLStreamReader reader = createReader(new AddDTDFilterInputStream(stream), systemId);
+        try {
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // Skip the prolog
+            }
+            return readElement(reader, PROJECT_FILTER);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static synchronized XMLStreamReader createReader(InputStream stream, String systemId) throws XMLStreamException {
+        if (inputFactory == null) {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, true);
+            factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+            factory.setXMLResolver(ENTITY_RESOLVER);
+            inputFactory = factory;
+        }
+        return inputFactory.createXMLStreamReader(systemId, stream);
+    }
+
+    /**
+     * Reads the element the reader is positioned at, up to and including its end tag.
+     */
+    private static PomElement readElement(XMLStreamReader reader, ElementFilter filter) throws XMLStreamException {
+        String name = reader.getLocalName();
+        StringBuilder text = new StringBuilder();
+        List<PomElement> children = null;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    ElementFilter childFilter = filter.getChildFilter(reader.getLocalName());
+                    if (childFilter == null) {
+                        skipElement(reader);
+                    } else {
+                        if (children == null) {
+                            children = new ArrayList<PomElement>();
+                        }
+                        children.add(readElement(reader, childFilter));
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    List<PomElement> childElements = children == null ? Collections.<PomElement>emptyList() : ImmutableList.copyOf(children);
+                    return new PomElement(name, text.toString(), childElements);
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static ElementFilter createProjectFilter() {
+        ElementFilter coordinates = new ElementFilter().keep("groupId", "artifactId", "version");
+        ElementFilter dependency = new ElementFilter()
+                .keep("groupId", "artifactId", "version", "scope", "type", "classifier", "optional")
+                .keep("exclusions", new ElementFilter().keep("exclusion", new ElementFilter().keep("groupId", "artifactId")));
+        ElementFilter dependencies = new ElementFilter().keep("dependency", dependency);
+        ElementFilter dependencyManagement = new ElementFilter().keep("dependencies", dependencies);
+        ElementFilter properties = new ElementFilter().keepAll();
+        ElementFilter profile = new ElementFilter()
+                .keep("id")
+                .keep("activation", new ElementFilter().keep("activeByDefault").keep("property", new ElementFilter().keep("name")))
+                .keep("properties", properties)
+                .keep("dependencies", dependencies)
+                .keep("dependencyManagement", dependencyManagement);
+        return new ElementFilter()
+                .keep("groupId", "artifactId", "version", "packaging", "url", "description")
+                .keep("licenses", new ElementFilter().keep("license", new ElementFilter().keep("name", "url")))
+                .keep("parent", coordinates)
+                .keep("distributionManagement", new ElementFilter().keep("relocation", coordinates))
+                .keep("dependencies", dependencies)
+                .keep("dependencyManagement", dependencyManagement)
+                .keep("properties", properties)
+                .keep("profiles", new ElementFilter().keep("profile", profile));
+    }
+
+    /**
+     * Describes which child elements of an element are kept.
+     */
+    private static class ElementFilter {
+        private static final ElementFilter TEXT_ONLY = new ElementFilter();
+        private final Map<String, ElementFilter> children = new HashMap<String, ElementFilter>();
+        private boolean keepAll;
+
+        ElementFilter keep(String... names) {
+            for (String name : names) {
+                children.put(name, TEXT_ONLY);
+            }
+            return this;
+        }
+
+        ElementFilter keep(String name, ElementFilter filter) {
+            children.put(name, filter);
+            return this;
+        }
+
+        ElementFilter keepAll() {
+            keepAll = true;
+            return this;
+        }
+
+        ElementFilter getChildFilter(String name) {
+            ElementFilter filter = children.get(name);
+            if (filter == null && keepAll) {
+                return TEXT_ONLY;
+            }
+            return filter;
+        }
+    }
+}
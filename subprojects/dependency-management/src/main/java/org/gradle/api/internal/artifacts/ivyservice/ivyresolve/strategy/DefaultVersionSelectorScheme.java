@@ -16,16 +16,32 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 public class DefaultVersionSelectorScheme implements VersionSelectorScheme {
+    private static final int MAX_CACHED_SELECTORS = 10000;
+
     private final VersionComparator versionComparator;
+    // Selectors are immutable, so each selector string is only compiled once
+    private final Cache<String, VersionSelector> selectors = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SELECTORS).build();
 
     public DefaultVersionSelectorScheme(VersionComparator versionComparator) {
         this.versionComparator = versionComparator;
     }
 
     public VersionSelector parseSelector(String selectorString) {
+        VersionSelector selector = selectors.getIfPresent(selectorString);
+        if (selector == null) {
+            selector = createSelector(selectorString);
+            selectors.put(selectorString, selector);
+        }
+        return selector;
+    }
+
+    private VersionSelector createSelector(String selectorString) {
         if (VersionRangeSelector.ALL_RANGE.matcher(selectorString).matches()) {
-            return new VersionRangeSelector(selectorString, versionComparator.asStringComparator());
+            return new VersionRangeSelector(selectorString, versionComparator.asVersionComparator());
         }
 
         if (selectorString.endsWith("+")) {
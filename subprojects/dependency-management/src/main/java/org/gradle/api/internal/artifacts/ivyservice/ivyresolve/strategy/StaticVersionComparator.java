@@ -76,6 +76,15 @@ class StaticVersionComparator implements Comparator<Version> {
     }
 
     private boolean isNumber(String str) {
-        return str.matches("\\d+");
+        if (str.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            char ch = str.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 }
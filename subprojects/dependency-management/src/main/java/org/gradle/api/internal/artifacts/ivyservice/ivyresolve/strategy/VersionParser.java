@@ -16,14 +16,32 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.gradle.api.Transformer;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Parses version strings. The parsed versions are immutable and are shared by all parsers in the process, so that a version that
+ * appears in many version listings, or that is compared many times during conflict resolution, is only parsed once.
+ */
 public class VersionParser implements Transformer<Version, String> {
+    private static final int MAX_CACHED_VERSIONS = 50000;
+    private static final Cache<String, Version> VERSIONS = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_VERSIONS).build();
+
     @Override
     public Version transform(String original) {
+        Version version = VERSIONS.getIfPresent(original);
+        if (version == null) {
+            version = parse(original);
+            VERSIONS.put(original, version);
+        }
+        return version;
+    }
+
+    private Version parse(String original) {
         List<String> parts = new ArrayList<String>();
         boolean digit = false;
         int startPart = 0;
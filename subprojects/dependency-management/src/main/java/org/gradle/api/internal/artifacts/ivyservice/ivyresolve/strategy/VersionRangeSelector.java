@@ -97,9 +97,12 @@ public class VersionRangeSelector extends AbstractVersionSelector {
     private final boolean upperInclusive;
     private final String lowerBound;
     private final boolean lowerInclusive;
-    private final Comparator<String> comparator;
+    private final Version upperBoundVersion;
+    private final Version lowerBoundVersion;
+    private final Comparator<Version> comparator;
+    private final VersionParser versionParser = new VersionParser();
 
-    public VersionRangeSelector(String selector, Comparator<String> comparator) {
+    public VersionRangeSelector(String selector, Comparator<Version> comparator) {
         super(selector);
         this.comparator = comparator;
 
@@ -137,6 +140,8 @@ public class VersionRangeSelector extends AbstractVersionSelector {
                 }
             }
         }
+        lowerBoundVersion = lowerBound == null ? null : versionParser.transform(lowerBound);
+        upperBoundVersion = upperBound == null ? null : versionParser.transform(upperBound);
     }
 
     public boolean isDynamic() {
@@ -152,10 +157,11 @@ public class VersionRangeSelector extends AbstractVersionSelector {
     }
 
     public boolean accept(String candidate) {
-        if (lowerBound != null && !isHigher(candidate, lowerBound, lowerInclusive)) {
+        Version candidateVersion = versionParser.transform(candidate);
+        if (lowerBoundVersion != null && !isHigher(candidateVersion, lowerBoundVersion, lowerInclusive)) {
             return false;
         }
-        if (upperBound != null && !isLower(candidate, upperBound, upperInclusive)) {
+        if (upperBoundVersion != null && !isLower(candidateVersion, upperBoundVersion, upperInclusive)) {
             return false;
         }
         return true;
@@ -164,7 +170,7 @@ public class VersionRangeSelector extends AbstractVersionSelector {
     /**
      * Tells if version1 is lower than version2.
      */
-    private boolean isLower(String version1, String version2, boolean inclusive) {
+    private boolean isLower(Version version1, Version version2, boolean inclusive) {
         int result = comparator.compare(version1, version2);
         return result <= (inclusive ? 0 : -1);
     }
@@ -172,7 +178,7 @@ public class VersionRangeSelector extends AbstractVersionSelector {
     /**
      * Tells if version1 is higher than version2.
      */
-    private boolean isHigher(String version1, String version2, boolean inclusive) {
+    private boolean isHigher(Version version1, Version version2, boolean inclusive) {
         int result = comparator.compare(version1, version2);
         return result >= (inclusive ? 0 : 1);
     }
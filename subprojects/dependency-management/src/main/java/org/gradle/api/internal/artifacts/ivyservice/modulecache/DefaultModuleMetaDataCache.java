@@ -42,11 +42,14 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
     private final CacheLockingManager cacheLockingManager;
 
     private final ModuleDescriptorStore moduleDescriptorStore;
+    private final InMemoryModuleDescriptorCache descriptorCache;
     private PersistentIndexedCache<RevisionKey, ModuleDescriptorCacheEntry> cache;
 
-    public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ResolverStrategy resolverStrategy) {
+    public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ResolverStrategy resolverStrategy,
+                                      InMemoryModuleDescriptorCache descriptorCache) {
         this.timeProvider = timeProvider;
         this.cacheLockingManager = cacheLockingManager;
+        this.descriptorCache = descriptorCache;
 
         moduleDescriptorStore = new ModuleDescriptorStore(new PathKeyFileStore(cacheLockingManager.createMetaDataStore()), new IvyXmlModuleDescriptorWriter(), new IvyXmlModuleDescriptorParser(resolverStrategy));
     }
@@ -70,7 +73,15 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         if (entry.isMissing()) {
             return new DefaultCachedMetaData(entry, null, timeProvider);
         }
-        ModuleDescriptor descriptor = moduleDescriptorStore.getModuleDescriptor(repository, componentId);
+        ModuleDescriptor descriptor = descriptorCache.get(entry.moduleDescriptorHash);
+        if (descriptor == null) {
+            descriptor = moduleDescriptorStore.getModuleDescriptor(repository, componentId);
+            if (descriptor != null) {
+                descriptorCache.put(entry.moduleDescriptorHash, descriptor);
+            }
+        } else if (!moduleDescriptorStore.hasModuleDescriptor(repository, componentId)) {
+            descriptor = null;
+        }
         if (descriptor == null) {
             // Descriptor file has been deleted - ignore the entry
             return null;
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemoryCachedRepositoryFactory;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory cache of the module descriptors read from the module meta-data cache, keyed by the hash of the descriptor file.
+ * This lives as long as the daemon, so that builds run by the same daemon do not parse the same cached descriptors over and over.
+ *
+ * <p>Only the parsing is skipped. Whether a cached entry may be used at all is still decided by the cache policy, based on the
+ * persistent cache entry, so entries are expired and refreshed exactly as without this cache. The values are softly referenced
+ * and the number of entries is bounded, so the cache gives memory back when the daemon needs it.</p>
+ */
+public class InMemoryModuleDescriptorCache {
+    private static final int MAX_ENTRIES = 20000;
+
+    private final Cache<BigInteger, ModuleDescriptor> descriptors = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).softValues().build();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ModuleDescriptor get(BigInteger descriptorHash) {
+        if (!isEnabled()) {
+            return null;
+        }
+        ModuleDescriptor descriptor = descriptors.getIfPresent(descriptorHash);
+        if (descriptor == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return descriptor;
+    }
+
+    public void put(BigInteger descriptorHash, ModuleDescriptor descriptor) {
+        if (isEnabled()) {
+            descriptors.put(descriptorHash, descriptor);
+        }
+    }
+
+    private static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(InMemoryCachedRepositoryFactory.TOGGLE_PROPERTY));
+    }
+
+    /**
+     * Returns the number of descriptors served from this cache since it was created.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of descriptors that had to be parsed since this cache was created.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getSize() {
+        return descriptors.size();
+    }
+}
@@ -50,6 +50,10 @@ public class ModuleDescriptorStore {
         return null;
     }
 
+    public boolean hasModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
+        return metaDataStore.get(getFilePath(repository, moduleComponentIdentifier)) != null;
+    }
+
     public LocallyAvailableResource putModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier, final ModuleDescriptor moduleDescriptor) {
         String filePath = getFilePath(repository, moduleComponentIdentifier);
         return metaDataStore.add(filePath, new Action<File>() {
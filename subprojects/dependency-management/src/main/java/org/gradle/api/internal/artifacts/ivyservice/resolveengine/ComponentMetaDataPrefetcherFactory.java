@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.apache.ivy.Ivy;
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.DefaultBuildOperationProcessor;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentIdResolveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates {@link ComponentMetaDataPrefetcher} instances that fetch component meta-data and version listings using a small, shared pool of threads.
+ *
+ * <p>Prefetching is disabled unless the {@value #TOGGLE_PROPERTY} system property is set to {@code true}.</p>
+ */
+public class ComponentMetaDataPrefetcherFactory implements Stoppable {
+    public final static String TOGGLE_PROPERTY = "org.gradle.resolution.prefetch";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComponentMetaDataPrefetcherFactory.class);
+    private static final int MAX_CONCURRENT_FETCHES = 8;
+
+    private final ExecutorFactory executorFactory;
+    private final CacheLockingManager cacheLockingManager;
+    private final IvyContextManager ivyContextManager;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private DefaultBuildOperationProcessor buildOperationProcessor;
+
+    public ComponentMetaDataPrefetcherFactory(ExecutorFactory executorFactory, CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager,
+                                              VersionSelectorScheme versionSelectorScheme) {
+        this.executorFactory = executorFactory;
+        this.cacheLockingManager = cacheLockingManager;
+        this.ivyContextManager = ivyContextManager;
+        this.versionSelectorScheme = versionSelectorScheme;
+    }
+
+    public static boolean isEnabled() {
+        return "true".equalsIgnoreCase(System.getProperty(TOGGLE_PROPERTY));
+    }
+
+    /**
+     * Creates a prefetcher that uses the given resolvers, or returns null when prefetching is disabled. The id resolver is used to list versions only,
+     * so it should be the resolver of the repositories, without any dependency substitution applied.
+     */
+    @Nullable
+    public ComponentMetaDataPrefetcher create(ComponentMetaDataResolver resolver, DependencyToComponentIdResolver idResolver) {
+        if (!isEnabled()) {
+            return null;
+        }
+        return new ConcurrentComponentMetaDataPrefetcher(resolver, idResolver);
+    }
+
+    private synchronized DefaultBuildOperationProcessor getBuildOperationProcessor() {
+        if (buildOperationProcessor == null) {
+            buildOperationProcessor = new DefaultBuildOperationProcessor(executorFactory, MAX_CONCURRENT_FETCHES);
+        }
+        return buildOperationProcessor;
+    }
+
+    public synchronized void stop() {
+        if (buildOperationProcessor != null) {
+            buildOperationProcessor.stop();
+            buildOperationProcessor = null;
+        }
+    }
+
+    private class ConcurrentComponentMetaDataPrefetcher implements ComponentMetaDataPrefetcher {
+        private final ComponentMetaDataResolver resolver;
+        private final DependencyToComponentIdResolver idResolver;
+
+        ConcurrentComponentMetaDataPrefetcher(ComponentMetaDataResolver resolver, DependencyToComponentIdResolver idResolver) {
+            this.resolver = resolver;
+            this.idResolver = idResolver;
+        }
+
+        public void prefetch(List<Request> requests) {
+            if (requests.size() == 1) {
+                // Nothing to overlap with, leave it to the traversal
+                return;
+            }
+            List<FetchOperation> operations = new ArrayList<FetchOperation>(requests.size());
+            for (final Request request : requests) {
+                operations.add(new FetchOperation("meta-data for " + request) {
+                    void fetch() {
+                        resolver.resolve(request.getComponentId(), request.getOverrideMetadata(), request.getResult());
+                    }
+                });
+            }
+            run(operations);
+        }
+
+        public void prefetchVersions(List<DependencyMetaData> dependencies) {
+            List<FetchOperation> operations = new ArrayList<FetchOperation>(dependencies.size());
+            for (final DependencyMetaData dependency : dependencies) {
+                if (!versionSelectorScheme.parseSelector(dependency.getRequested().getVersion()).isDynamic()) {
+                    continue;
+                }
+                operations.add(new FetchOperation("versions of " + dependency.getRequested()) {
+                    void fetch() {
+                        idResolver.resolve(dependency, new DefaultBuildableComponentIdResolveResult());
+                    }
+                });
+            }
+            if (operations.size() > 1) {
+                run(operations);
+            }
+        }
+
+        private void run(List<FetchOperation> operations) {
+            final BuildOperationQueue<FetchOperation> queue = getBuildOperationProcessor().newQueue(new FetchWorker(), null);
+            for (FetchOperation operation : operations) {
+                queue.add(operation);
+            }
+            // The calling thread owns the cache for the whole resolve, release it so that the workers can use it
+            cacheLockingManager.longRunningOperation("Prefetch component meta-data", new Runnable() {
+                public void run() {
+                    queue.waitForCompletion();
+                }
+            });
+        }
+    }
+
+    private static abstract class FetchOperation implements BuildOperation {
+        private final String description;
+
+        FetchOperation(String description) {
+            this.description = description;
+        }
+
+        abstract void fetch();
+
+        public String getDescription() {
+            return "fetch " + description;
+        }
+    }
+
+    private class FetchWorker implements BuildOperationWorker<FetchOperation> {
+        public String getDisplayName() {
+            return "component meta-data prefetcher";
+        }
+
+        public void execute(final FetchOperation operation) {
+            try {
+                ivyContextManager.withIvy(new Action<Ivy>() {
+                    public void execute(Ivy ivy) {
+                        cacheLockingManager.useCache("Prefetch " + operation.description, new Runnable() {
+                            public void run() {
+                                operation.fetch();
+                            }
+                        });
+                    }
+                });
+            } catch (Throwable e) {
+                // Leave the result empty, the component is resolved again when the traversal reaches it and the failure is reported then
+                LOGGER.debug("Could not prefetch {}.", operation.description, e);
+            }
+        }
+    }
+}
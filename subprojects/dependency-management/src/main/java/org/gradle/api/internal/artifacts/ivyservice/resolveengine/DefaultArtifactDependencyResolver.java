@@ -32,13 +32,17 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ErrorHandlingArti
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolverProviderFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.DependencyDescriptorFactory;
-import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.StrictConflictResolution;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphRecorder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RecordedDependencyGraph;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.ConflictHandler;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
@@ -61,15 +65,22 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
     private final CacheLockingManager cacheLockingManager;
     private final IvyContextManager ivyContextManager;
     private final VersionComparator versionComparator;
+    private final ComponentMetaDataPrefetcherFactory prefetcherFactory;
+    private final ResolvedGraphCache graphCache;
+    private final VersionSelectorScheme versionSelectorScheme;
 
     public DefaultArtifactDependencyResolver(ServiceRegistry serviceRegistry, ResolveIvyFactory ivyFactory, DependencyDescriptorFactory dependencyDescriptorFactory,
-                                             CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager, VersionComparator versionComparator) {
+                                             CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager, VersionComparator versionComparator,
+                                             ComponentMetaDataPrefetcherFactory prefetcherFactory, ResolvedGraphCache graphCache, VersionSelectorScheme versionSelectorScheme) {
         this.serviceRegistry = serviceRegistry;
         this.ivyFactory = ivyFactory;
         this.dependencyDescriptorFactory = dependencyDescriptorFactory;
         this.cacheLockingManager = cacheLockingManager;
         this.ivyContextManager = ivyContextManager;
         this.versionComparator = versionComparator;
+        this.prefetcherFactory = prefetcherFactory;
+        this.graphCache = graphCache;
+        this.versionSelectorScheme = versionSelectorScheme;
     }
 
     @Override
@@ -79,13 +90,34 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
             public void execute(Ivy ivy) {
                 LOGGER.debug("Resolving {}", resolveContext);
                 ComponentResolvers componentSource = createComponentSource(resolveContext, repositories, metadataHandler);
-                DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolveContext.getResolutionStrategy(), metadataHandler);
-
                 ArtifactResolver artifactResolver = new ErrorHandlingArtifactResolver(new ContextualArtifactResolver(cacheLockingManager, ivyContextManager, componentSource.getArtifactResolver()));
-                DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(artifactsVisitor, artifactResolver);
 
-                // Resolve the dependency graph
-                builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(graphVisitor, artifactsGraphVisitor));
+                // A recorded graph can only be replayed to visitors that do not need the parts of the graph that are not recorded
+                ResolvedGraphCache.Key cacheKey = RecordedDependencyGraph.canReplayTo(graphVisitor) ? graphCache.createKey(resolveContext, repositories, metadataHandler) : null;
+                if (cacheKey != null) {
+                    RecordedDependencyGraph cachedGraph = graphCache.get(cacheKey, metadataHandler);
+                    if (cachedGraph != null) {
+                        LOGGER.debug("Using cached dependency graph for {}", resolveContext);
+                        cachedGraph.replay(cacheKey.getRootDependencies(), graphVisitor, artifactsVisitor, artifactResolver);
+                        return;
+                    }
+                }
+
+                DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolveContext.getResolutionStrategy(), metadataHandler);
+
+                if (cacheKey == null) {
+                    // Resolve the dependency graph
+                    builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(graphVisitor, new ResolvedArtifactsGraphVisitor(artifactsVisitor, artifactResolver)));
+                    return;
+                }
+
+                // Resolve the dependency graph, recording it for later builds
+                DependencyGraphRecorder recorder = new DependencyGraphRecorder(cacheKey.getRootDependencies(), versionSelectorScheme);
+                DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(new CompositeDependencyArtifactsVisitor(artifactsVisitor, recorder), artifactResolver);
+                builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(graphVisitor, recorder, artifactsGraphVisitor));
+                if (recorder.isRecorded()) {
+                    graphCache.put(cacheKey, recorder.getGraph());
+                }
             }
         });
     }
@@ -99,7 +131,9 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
         ResolveContextToComponentResolver requestResolver = createResolveContextConverter();
         ConflictHandler conflictHandler = createConflictHandler(resolutionStrategy, metadataHandler);
 
-        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, dependencyToConfigurationResolver, conflictHandler);
+        ComponentMetaDataPrefetcher metaDataPrefetcher = prefetcherFactory.create(componentMetaDataResolver, componentSource.getComponentIdResolver());
+
+        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, dependencyToConfigurationResolver, conflictHandler, metaDataPrefetcher);
     }
 
     private ComponentResolversChain createComponentSource(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
@@ -120,13 +154,7 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
     }
 
     private ConflictHandler createConflictHandler(ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules metadataHandler) {
-        ModuleConflictResolver conflictResolver;
-        if (resolutionStrategy.getConflictResolution() instanceof StrictConflictResolution) {
-            conflictResolver = new StrictConflictResolver();
-        } else {
-            conflictResolver = new LatestModuleConflictResolver(versionComparator);
-        }
-        conflictResolver = new VersionSelectionReasonResolver(conflictResolver);
+        ModuleConflictResolver conflictResolver = ModuleConflictResolvers.create(resolutionStrategy.getConflictResolution(), versionComparator);
         return new DefaultConflictHandler(conflictResolver, metadataHandler.getModuleMetadataProcessor().getModuleReplacements());
     }
 
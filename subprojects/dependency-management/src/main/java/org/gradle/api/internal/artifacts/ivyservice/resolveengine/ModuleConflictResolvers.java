@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.api.artifacts.ConflictResolution;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.StrictConflictResolution;
+
+/**
+ * Creates the {@link ModuleConflictResolver} that implements a {@link ConflictResolution}.
+ */
+public class ModuleConflictResolvers {
+    public static ModuleConflictResolver create(ConflictResolution conflictResolution, VersionComparator versionComparator) {
+        ModuleConflictResolver conflictResolver;
+        if (conflictResolution instanceof StrictConflictResolution) {
+            conflictResolver = new StrictConflictResolver();
+        } else {
+            conflictResolver = new LatestModuleConflictResolver(versionComparator);
+        }
+        return new VersionSelectionReasonResolver(conflictResolver);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import com.google.common.collect.Lists;
+import org.apache.ivy.core.module.descriptor.ExcludeRule;
+import org.gradle.StartParameter;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RecordedDependencyGraph;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RecordedDependencyGraphSerializer;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.component.model.ConfigurationMetaData;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.util.CollectionUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A persistent cache of resolved dependency graphs, shared by all builds that use the same dependency cache.
+ *
+ * <p>A graph is cached against a hash of everything that goes into resolving it: the root component and its dependencies, the repositories,
+ * and the resolution strategy. When any of these includes something whose outcome can change while the inputs stay the same, such as
+ * a local repository or a resolution rule, the graph is not cached. The recorded graph itself must not contain dynamic versions
+ * or changing modules, see {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphRecorder}.</p>
+ *
+ * <p>The cache is only used when the {@value #TOGGLE_PROPERTY} system property is set to true, and is bypassed when dependencies are refreshed.</p>
+ */
+public class ResolvedGraphCache {
+    public final static String TOGGLE_PROPERTY = "org.gradle.resolution.graphcache";
+
+    private final CacheLockingManager cacheLockingManager;
+    private final StartParameter startParameter;
+    private PersistentIndexedCache<String, RecordedDependencyGraph> cache;
+
+    public ResolvedGraphCache(CacheLockingManager cacheLockingManager, StartParameter startParameter) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.startParameter = startParameter;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(TOGGLE_PROPERTY);
+    }
+
+    private PersistentIndexedCache<String, RecordedDependencyGraph> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache("resolved-graphs", BaseSerializerFactory.STRING_SERIALIZER, new RecordedDependencyGraphSerializer());
+        }
+        return cache;
+    }
+
+    /**
+     * Creates the key for the dependency graph of the given context.
+     *
+     * @return The key, or null when the graph of the given context should not be cached.
+     */
+    @Nullable
+    public Key createKey(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
+        if (!isEnabled() || startParameter.isRefreshDependencies()) {
+            return null;
+        }
+
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        if (resolutionStrategy.getDependencySubstitution().hasDependencySubstitutionRules()
+                || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+                || metadataHandler.getComponentMetadataProcessor().hasRules()) {
+            return null;
+        }
+
+        ComponentResolveMetaData root = resolveContext.toRootComponentMetaData();
+        ConfigurationMetaData configuration = root.getConfiguration(resolveContext.getName());
+        if (configuration == null) {
+            return null;
+        }
+
+        List<String> parts = Lists.newArrayList();
+        parts.add(root.getComponentId().getDisplayName());
+        parts.add(root.getId().toString());
+        parts.add(resolveContext.getName());
+        Set<String> hierarchy = new TreeSet<String>(configuration.getHierarchy());
+        for (String name : hierarchy) {
+            ConfigurationMetaData inherited = root.getConfiguration(name);
+            parts.add(name + " transitive:" + inherited.isTransitive() + " excludes:" + describe(inherited.getExcludeRules()));
+        }
+
+        List<ModuleDependency> rootDependencies = Lists.newArrayList();
+        for (DependencyMetaData dependency : root.getDependencies()) {
+            if (!(dependency instanceof DslOriginDependencyMetaData) || !(dependency.getSelector() instanceof ModuleComponentSelector)) {
+                return null;
+            }
+            ModuleDependency moduleDependency = ((DslOriginDependencyMetaData) dependency).getSource();
+            if (moduleDependency instanceof ClientModule) {
+                return null;
+            }
+            rootDependencies.add(moduleDependency);
+            parts.add(describe(dependency, hierarchy));
+        }
+
+        for (ResolutionAwareRepository repository : repositories) {
+            ConfiguredModuleComponentRepository resolver = repository.createResolver();
+            if (resolver.isLocal()) {
+                return null;
+            }
+            parts.add("repository " + resolver.getId());
+        }
+
+        Set<String> forcedModules = new TreeSet<String>();
+        for (ModuleVersionSelector forcedModule : resolutionStrategy.getForcedModules()) {
+            forcedModules.add(forcedModule.toString());
+        }
+        parts.add("forced " + CollectionUtils.join(",", forcedModules));
+        parts.add("conflicts " + resolutionStrategy.getConflictResolution().getClass().getName());
+
+        String hash = HashUtil.createHash(CollectionUtils.join("::", parts), "MD5").asHexString();
+        return new Key(hash, rootDependencies);
+    }
+
+    /**
+     * Returns the graph cached for the given key, or null when there is none or it can no longer be used.
+     */
+    @Nullable
+    public RecordedDependencyGraph get(Key key, GlobalDependencyResolutionRules metadataHandler) {
+        RecordedDependencyGraph graph = getCache().get(key.hash);
+        if (graph == null) {
+            return null;
+        }
+        // Module replacements are not part of the key, as they are not known up front
+        ModuleReplacementsData moduleReplacements = metadataHandler.getModuleMetadataProcessor().getModuleReplacements();
+        for (ModuleVersionIdentifier component : graph.getComponents()) {
+            if (moduleReplacements.getReplacementFor(component.getModule()) != null) {
+                return null;
+            }
+        }
+        return graph;
+    }
+
+    public void put(Key key, RecordedDependencyGraph graph) {
+        getCache().put(key.hash, graph);
+    }
+
+    private static String describe(DependencyMetaData dependency, Collection<String> hierarchy) {
+        List<String> configurations = Lists.newArrayList();
+        for (String moduleConfiguration : dependency.getModuleConfigurations()) {
+            configurations.add(moduleConfiguration + "->" + Arrays.toString(dependency.getDependencyConfigurations(moduleConfiguration, moduleConfiguration)));
+        }
+        List<String> artifacts = Lists.newArrayList();
+        for (IvyArtifactName artifact : dependency.getArtifacts()) {
+            artifacts.add(artifact.getType() + ":" + artifact);
+        }
+        return dependency.getSelector().getDisplayName()
+                + " configurations:" + CollectionUtils.join(",", configurations)
+                + " artifacts:" + CollectionUtils.join(",", artifacts)
+                + " excludes:" + describe(Arrays.asList(dependency.getExcludeRules(hierarchy)))
+                + " changing:" + dependency.isChanging()
+                + " transitive:" + dependency.isTransitive()
+                + " force:" + dependency.isForce()
+                + " constraint:" + dependency.getDynamicConstraintVersion();
+    }
+
+    private static String describe(Collection<ExcludeRule> excludeRules) {
+        Set<String> rules = new TreeSet<String>();
+        for (ExcludeRule excludeRule : excludeRules) {
+            rules.add(excludeRule.getId() + " " + excludeRule.getMatcher().getName() + " " + Arrays.toString(excludeRule.getConfigurations()));
+        }
+        return CollectionUtils.join(",", rules);
+    }
+
+    public static class Key {
+        private final String hash;
+        private final List<ModuleDependency> rootDependencies;
+
+        private Key(String hash, List<ModuleDependency> rootDependencies) {
+            this.hash = hash;
+            this.rootDependencies = rootDependencies;
+        }
+
+        /**
+         * Returns the dependencies of the root component, in the order of its dependency meta-data.
+         */
+        public List<ModuleDependency> getRootDependencies() {
+            return rootDependencies;
+        }
+
+        @Override
+        public String toString() {
+            return hash;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
 import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.DefaultResolvedModuleVersion;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryChainModuleSource;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleResolutionFilter;
 import org.gradle.internal.Factory;
 import org.gradle.internal.component.model.ComponentArtifactMetaData;
@@ -42,6 +43,7 @@ public class DefaultArtifactSet implements ArtifactSet {
     private final Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts;
     private final long id;
     private final Set<ComponentArtifactMetaData> artifacts;
+    private final String repositoryId;
 
     public DefaultArtifactSet(ModuleVersionIdentifier ownerId, ModuleSource moduleSource, ModuleResolutionFilter selector, Set<ComponentArtifactMetaData> artifacts,
                               ArtifactResolver artifactResolver, Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts, long id) {
@@ -52,24 +54,42 @@ public class DefaultArtifactSet implements ArtifactSet {
         this.artifactResolver = artifactResolver;
         this.allResolvedArtifacts = allResolvedArtifacts;
         this.id = id;
+        this.repositoryId = moduleSource instanceof RepositoryChainModuleSource ? ((RepositoryChainModuleSource) moduleSource).getRepositoryId() : null;
     }
 
     public long getId() {
         return id;
     }
 
-    public Set<ResolvedArtifact> getArtifacts() {
-        Set<ResolvedArtifact> resolvedArtifacts = new LinkedHashSet<ResolvedArtifact>(artifacts.size());
+    public ModuleVersionIdentifier getModuleVersionIdentifier() {
+        return moduleVersionIdentifier;
+    }
+
+    public ModuleSource getModuleSource() {
+        return moduleSource;
+    }
+
+    /**
+     * Returns the meta-data of the artifacts in this set that are accepted by its selector.
+     */
+    public Set<ComponentArtifactMetaData> getSelectedArtifacts() {
+        Set<ComponentArtifactMetaData> selectedArtifacts = new LinkedHashSet<ComponentArtifactMetaData>(artifacts.size());
         for (ComponentArtifactMetaData artifact : artifacts) {
-            IvyArtifactName artifactName = artifact.getName();
-            if (!selector.acceptArtifact(moduleVersionIdentifier.getModule(), artifactName)) {
-                continue;
+            if (selector.acceptArtifact(moduleVersionIdentifier.getModule(), artifact.getName())) {
+                selectedArtifacts.add(artifact);
             }
+        }
+        return selectedArtifacts;
+    }
 
+    public Set<ResolvedArtifact> getArtifacts() {
+        Set<ResolvedArtifact> resolvedArtifacts = new LinkedHashSet<ResolvedArtifact>(artifacts.size());
+        for (ComponentArtifactMetaData artifact : getSelectedArtifacts()) {
+            IvyArtifactName artifactName = artifact.getName();
             ResolvedArtifact resolvedArtifact = allResolvedArtifacts.get(artifact.getId());
             if (resolvedArtifact == null) {
                 Factory<File> artifactSource = new LazyArtifactSource(artifact, moduleSource, artifactResolver);
-                resolvedArtifact = new DefaultResolvedArtifact(new DefaultResolvedModuleVersion(moduleVersionIdentifier), artifactName, artifact.getId(), artifactSource);
+                resolvedArtifact = new DefaultResolvedArtifact(new DefaultResolvedModuleVersion(moduleVersionIdentifier), artifactName, artifact.getId(), artifactSource, repositoryId);
                 allResolvedArtifacts.put(artifact.getId(), resolvedArtifact);
             }
             resolvedArtifacts.add(resolvedArtifact);
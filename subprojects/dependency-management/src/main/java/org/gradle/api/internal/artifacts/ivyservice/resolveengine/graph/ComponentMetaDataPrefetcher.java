@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+
+import java.util.List;
+
+/**
+ * Fetches the meta-data for a batch of components, and the versions available for a batch of dynamic dependencies, ahead of the graph traversal needing them.
+ */
+public interface ComponentMetaDataPrefetcher {
+    /**
+     * Lists the versions available for those of the given dependencies that have a dynamic version, possibly concurrently, and returns once all of them
+     * have completed. Nothing is returned: the listings, and any cached listing found to be expired and fetched again, end up in the resolution caches,
+     * from which the dependencies are then resolved by the traversal.
+     */
+    void prefetchVersions(List<DependencyMetaData> dependencies);
+
+    /**
+     * Resolves the meta-data of each of the given components, possibly concurrently, and returns once all of them have completed.
+     * A result is left empty when the meta-data could not be fetched, so that it is resolved again when it is actually needed.
+     */
+    void prefetch(List<Request> requests);
+
+    class Request {
+        private final ComponentIdentifier componentId;
+        private final ComponentOverrideMetadata overrideMetadata;
+        private final BuildableComponentResolveResult result;
+
+        public Request(ComponentIdentifier componentId, ComponentOverrideMetadata overrideMetadata, BuildableComponentResolveResult result) {
+            this.componentId = componentId;
+            this.overrideMetadata = overrideMetadata;
+            this.result = result;
+        }
+
+        public ComponentIdentifier getComponentId() {
+            return componentId;
+        }
+
+        public ComponentOverrideMetadata getOverrideMetadata() {
+            return overrideMetadata;
+        }
+
+        public BuildableComponentResolveResult getResult() {
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return componentId.getDisplayName();
+        }
+    }
+}
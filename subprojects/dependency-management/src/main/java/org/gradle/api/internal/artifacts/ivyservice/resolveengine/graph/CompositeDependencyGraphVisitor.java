@@ -26,6 +26,10 @@ public class CompositeDependencyGraphVisitor implements DependencyGraphVisitor {
         this.visitors = Arrays.asList(visitors);
     }
 
+    List<DependencyGraphVisitor> getVisitors() {
+        return visitors;
+    }
+
     public void start(DependencyGraphNode root) {
         for (DependencyGraphVisitor visitor : visitors) {
             visitor.start(root);
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+/**
+ * Counts the work done for version conflicts while traversing a dependency graph.
+ */
+public class ConflictResolutionStats {
+    int conflictsResolved;
+    int conflictsResolvedEarly;
+    int retraversedConfigurations;
+    int skippedMetaDataPrefetches;
+
+    /**
+     * The number of conflicts resolved, both batched up and early.
+     */
+    public int getConflictsResolved() {
+        return conflictsResolved;
+    }
+
+    /**
+     * The number of conflicts resolved as soon as they were found, rather than batched up.
+     */
+    public int getConflictsResolvedEarly() {
+        return conflictsResolvedEarly;
+    }
+
+    /**
+     * The number of configurations that had their outgoing edges removed by a conflict and were then traversed again.
+     */
+    public int getRetraversedConfigurations() {
+        return retraversedConfigurations;
+    }
+
+    /**
+     * The number of module versions whose meta-data was not prefetched, because they were about to take part in a conflict.
+     */
+    public int getSkippedMetaDataPrefetches() {
+        return skippedMetaDataPrefetches;
+    }
+
+    public String toString() {
+        return String.format("Conflicts resolved: %s, resolved early: %s, configurations re-traversed: %s, meta-data prefetches skipped: %s",
+                conflictsResolved, conflictsResolvedEarly, retraversedConfigurations, skippedMetaDataPrefetches);
+    }
+}
@@ -17,6 +17,7 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
 
 import com.google.common.base.Joiner;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
@@ -47,36 +48,72 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
+/**
+ * Builds the dependency graph of a configuration, resolving version conflicts along the way.
+ *
+ * <p>By default, conflicts are batched up and resolved once there is nothing left to traverse, which means that the subgraph of a version that
+ * turns out to win the conflict is removed and traversed again. When the {@value #EARLY_CONFLICT_RESOLUTION_PROPERTY} system property is set
+ * to {@code true}, a conflict between the versions of a single module is instead resolved as soon as it is found. When the currently selected
+ * version wins, its subgraph is kept as it is, and the meta-data of the versions that are about to take part in a conflict is not prefetched.</p>
+ */
 public class DependencyGraphBuilder {
+    public final static String EARLY_CONFLICT_RESOLUTION_PROPERTY = "org.gradle.resolution.earlyconflicts";
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
     private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
     private final ConflictHandler conflictHandler;
     private final ResolveContextToComponentResolver moduleResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final ComponentMetaDataPrefetcher metaDataPrefetcher;
+    private ConflictResolutionStats conflictResolutionStats = new ConflictResolutionStats();
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
                                   ConflictHandler conflictHandler) {
+        this(componentIdResolver, componentMetaDataResolver, resolveContextToComponentResolver, dependencyToConfigurationResolver, conflictHandler, null);
+    }
+
+    /**
+     * @param metaDataPrefetcher Used to fetch the meta-data of the targets of a configuration's dependencies all at once, when the configuration is visited.
+     * When null, meta-data is resolved one component at a time as the traversal reaches it.
+     */
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                                  ConflictHandler conflictHandler, @Nullable ComponentMetaDataPrefetcher metaDataPrefetcher) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
         this.conflictHandler = conflictHandler;
         this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
+        this.metaDataPrefetcher = metaDataPrefetcher;
+    }
+
+    public static boolean isEarlyConflictResolutionEnabled() {
+        return "true".equalsIgnoreCase(System.getProperty(EARLY_CONFLICT_RESOLUTION_PROPERTY));
     }
 
     public void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor) {
         DefaultBuildableComponentResolveResult rootModule = new DefaultBuildableComponentResolveResult();
         moduleResolver.resolve(resolveContext, rootModule);
 
-        ResolveState resolveState = new ResolveState(rootModule, resolveContext.getName(), idResolver, metaDataResolver, dependencyToConfigurationResolver);
+        conflictResolutionStats = new ConflictResolutionStats();
+        ResolveState resolveState = new ResolveState(rootModule, resolveContext.getName(), idResolver, metaDataResolver, dependencyToConfigurationResolver,
+                isEarlyConflictResolutionEnabled(), conflictResolutionStats);
         conflictHandler.registerResolver(new DirectDependencyForcingResolver(resolveState.root.moduleRevision));
 
         traverseGraph(resolveState, conflictHandler);
+        LOGGER.debug("Conflict resolution for {}: {}", resolveContext, conflictResolutionStats);
 
         assembleResult(resolveState, modelVisitor);
     }
 
+    /**
+     * Returns the conflict resolution counters of the most recent {@link #resolve(ResolveContext, DependencyGraphVisitor)}.
+     */
+    public ConflictResolutionStats getConflictResolutionStats() {
+        return conflictResolutionStats;
+    }
+
     /**
      * Traverses the dependency graph, resolving conflicts and building the paths from the root configuration.
      */
@@ -92,6 +129,9 @@ public class DependencyGraphBuilder {
                 // Calculate the outgoing edges of this configuration
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
+                if (metaDataPrefetcher != null) {
+                    prefetchMetaData(resolveState, dependencies);
+                }
 
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
@@ -114,6 +154,8 @@ public class DependencyGraphBuilder {
                             // No conflict. Select it for now
                             LOGGER.debug("Selecting new module version {}", moduleRevision);
                             module.select(moduleRevision);
+                        } else if (resolveState.earlyConflictResolution && resolveConflictEarly(resolveState, conflictHandler, module)) {
+                            LOGGER.debug("Resolved conflict for new module version {}", moduleRevision);
                         } else {
                             // We have a conflict
                             LOGGER.debug("Found new conflicting module version {}", moduleRevision);
@@ -140,6 +182,7 @@ public class DependencyGraphBuilder {
                 // We have some batched up conflicts. Resolve the first, and continue traversing the graph
                 conflictHandler.resolveNextConflict(new Action<ConflictResolutionResult>() {
                     public void execute(final ConflictResolutionResult result) {
+                        resolveState.stats.conflictsResolved++;
                         result.getConflict().withParticipatingModules(new Action<ModuleIdentifier>() {
                             public void execute(ModuleIdentifier moduleIdentifier) {
                                 ModuleVersionResolveState selected = result.getSelected();
@@ -154,6 +197,75 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Resolves the conflict of the given module right away, unless other modules take part in it. When the currently selected version wins,
+     * it stays selected and keeps its outgoing edges, otherwise its outgoing edges are removed before the winner is selected.
+     *
+     * @return false when the conflict has been batched up.
+     */
+    private boolean resolveConflictEarly(final ResolveState resolveState, ConflictHandler conflictHandler, final ModuleResolveState module) {
+        return conflictHandler.resolveModuleConflict(module.id, new Action<ConflictResolutionResult>() {
+            public void execute(ConflictResolutionResult result) {
+                ModuleVersionResolveState selected = result.getSelected();
+                ModuleVersionResolveState previouslySelected = module.clearSelection();
+                if (previouslySelected != null && previouslySelected != selected) {
+                    for (ConfigurationNode configuration : previouslySelected.configurations) {
+                        configuration.deselect();
+                    }
+                }
+                // Move the incoming dependencies of the evicted versions across to the selected version
+                module.restart(selected);
+                resolveState.stats.conflictsResolved++;
+                resolveState.stats.conflictsResolvedEarly++;
+            }
+        });
+    }
+
+    /**
+     * Lists the versions of the dynamic dependencies that have not been resolved before in a single batch, then resolves the target version of each
+     * of the given dependencies and fetches the meta-data of those versions that have not been seen before in a second batch. The traversal then
+     * continues exactly as it would have without the prefetch, using the fetched meta-data.
+     *
+     * <p>With early conflict resolution, the meta-data of a version of a module that already has a selected version is not prefetched, as the
+     * conflict is resolved before the meta-data is required, and the meta-data is only fetched should the version win.</p>
+     */
+    private void prefetchMetaData(ResolveState resolveState, List<DependencyEdge> dependencies) {
+        Set<ModuleVersionSelectorResolveState> unresolvedSelectors = new LinkedHashSet<ModuleVersionSelectorResolveState>();
+        for (DependencyEdge dependency : dependencies) {
+            if (dependency.selector.isUnresolved()) {
+                unresolvedSelectors.add(dependency.selector);
+            }
+        }
+        if (unresolvedSelectors.size() > 1) {
+            List<DependencyMetaData> unresolvedDependencies = new ArrayList<DependencyMetaData>(unresolvedSelectors.size());
+            for (ModuleVersionSelectorResolveState selector : unresolvedSelectors) {
+                unresolvedDependencies.add(selector.dependencyMetaData);
+            }
+            metaDataPrefetcher.prefetchVersions(unresolvedDependencies);
+        }
+
+        List<ComponentMetaDataPrefetcher.Request> requests = new ArrayList<ComponentMetaDataPrefetcher.Request>();
+        for (DependencyEdge dependency : dependencies) {
+            ModuleVersionResolveState moduleRevision = dependency.resolveModuleRevisionId();
+            if (moduleRevision != null) {
+                if (resolveState.earlyConflictResolution && moduleRevision.isAboutToConflict()) {
+                    if (moduleRevision.metaData == null) {
+                        resolveState.stats.skippedMetaDataPrefetches++;
+                    }
+                    continue;
+                }
+                ComponentMetaDataPrefetcher.Request request = moduleRevision.createPrefetchRequest();
+                if (request != null) {
+                    requests.add(request);
+                }
+            }
+        }
+        if (!requests.isEmpty()) {
+            LOGGER.debug("Prefetching meta-data for {}.", requests);
+            metaDataPrefetcher.prefetch(requests);
+        }
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -317,9 +429,14 @@ public class DependencyGraphBuilder {
         private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
         private final Set<ConfigurationNode> queued = new HashSet<ConfigurationNode>();
         private final LinkedList<ConfigurationNode> queue = new LinkedList<ConfigurationNode>();
+        private final boolean earlyConflictResolution;
+        private final ConflictResolutionStats stats;
 
         public ResolveState(ComponentResolveResult rootResult, String rootConfigurationName, DependencyToComponentIdResolver idResolver,
-                            ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver) {
+                            ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                            boolean earlyConflictResolution, ConflictResolutionStats stats) {
+            this.earlyConflictResolution = earlyConflictResolution;
+            this.stats = stats;
             this.idResolver = idResolver;
             this.metaDataResolver = metaDataResolver;
             this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
@@ -505,6 +622,7 @@ public class DependencyGraphBuilder {
         private ComponentSelectionReason selectionReason = VersionSelectionReasons.REQUESTED;
         private ModuleVersionResolveException failure;
         private ModuleVersionSelectorResolveState firstReference;
+        private DefaultBuildableComponentResolveResult prefetchResult;
 
         private ModuleVersionResolveState(ModuleResolveState module, ModuleVersionIdentifier id, ComponentMetaDataResolver resolver) {
             this.module = module;
@@ -535,6 +653,13 @@ public class DependencyGraphBuilder {
             }
         }
 
+        /**
+         * Returns true when this version has not been seen before and another version of the module is already selected.
+         */
+        public boolean isAboutToConflict() {
+            return state == ModuleState.New && module.selected != null;
+        }
+
         public void addResolver(ModuleVersionSelectorResolveState resolver) {
             if (firstReference == null) {
                 firstReference = resolver;
@@ -556,8 +681,12 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
-            resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), result);
+            DefaultBuildableComponentResolveResult result = prefetchResult;
+            prefetchResult = null;
+            if (result == null || !result.hasResult()) {
+                result = new DefaultBuildableComponentResolveResult();
+                resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), result);
+            }
             if (result.getFailure() != null) {
                 failure = result.getFailure();
                 return;
@@ -565,6 +694,22 @@ public class DependencyGraphBuilder {
             metaData = result.getMetaData();
         }
 
+        /**
+         * Returns a request to fetch the meta-data for this version, or null when the meta-data is already known or has already been requested.
+         */
+        @Nullable
+        public ComponentMetaDataPrefetcher.Request createPrefetchRequest() {
+            if (metaData != null || failure != null || prefetchResult != null || state == ModuleState.Evicted) {
+                return null;
+            }
+            ComponentIdResolveResult idResolveResult = firstReference.idResolveResult;
+            if (idResolveResult.getFailure() != null || idResolveResult.getMetaData() != null) {
+                return null;
+            }
+            prefetchResult = new DefaultBuildableComponentResolveResult();
+            return new ComponentMetaDataPrefetcher.Request(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), prefetchResult);
+        }
+
         public ComponentResolveMetaData getMetaData() {
             if (metaData == null) {
                 resolve();
@@ -616,6 +761,7 @@ public class DependencyGraphBuilder {
         private final ConfigurationMetaData metaData;
         private final ResolveState resolveState;
         private ModuleResolutionFilter previousTraversal;
+        private boolean deselected;
 
         private ConfigurationNode(ResolvedConfigurationIdentifier id, ModuleVersionResolveState moduleRevision, ResolveState resolveState) {
             this.id = id;
@@ -712,6 +858,10 @@ public class DependencyGraphBuilder {
                 removeOutgoingEdges();
             }
 
+            if (deselected) {
+                deselected = false;
+                resolveState.stats.retraversedConfigurations++;
+            }
             for (DependencyMetaData dependency : metaData.getDependencies()) {
                 ModuleIdentifier targetModuleId = DefaultModuleIdentifier.newId(dependency.getRequested().getGroup(), dependency.getRequested().getName());
                 if (isExcluded(resolutionFilter, targetModuleId)) {
@@ -794,6 +944,7 @@ public class DependencyGraphBuilder {
         }
 
         public void deselect() {
+            deselected |= previousTraversal != null;
             removeOutgoingEdges();
         }
     }
@@ -880,6 +1031,13 @@ public class DependencyGraphBuilder {
             return targetModuleRevision;
         }
 
+        /**
+         * Returns true when no attempt has been made to resolve this selector yet.
+         */
+        public boolean isUnresolved() {
+            return targetModuleRevision == null && failure == null && idResolveResult == null;
+        }
+
         public void restart(ModuleVersionResolveState moduleRevision) {
             this.targetModuleRevision = moduleRevision;
             this.targetModule = moduleRevision.module;
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultInternalDependencyResult;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactMetaData;
+import org.gradle.internal.component.model.ComponentArtifactMetaData;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records a dependency graph, as it is presented by {@link DependencyGraphBuilder}, so that it can be replayed later on.
+ *
+ * <p>A graph is only recorded when replaying it is guaranteed to give the same result as resolving it again, given the same inputs:
+ * every dependency must be a static module version, every component must be a module that is not changing, and nothing may have failed.
+ * Use {@link #isRecorded()} to find out whether the graph qualifies.</p>
+ */
+public class DependencyGraphRecorder implements DependencyGraphVisitor, DependencyArtifactsVisitor {
+    private final List<ModuleDependency> rootDependencies;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final List<RecordedDependencyGraph.RecordedNode> nodes = Lists.newArrayList();
+    private final Map<ResolvedConfigurationIdentifier, Integer> nodeIndexes = Maps.newHashMap();
+    private final Map<Long, RecordedDependencyGraph.RecordedArtifactSet> artifactSets = Maps.newHashMap();
+    private DependencyGraphNode root;
+    private boolean recordable = true;
+    private boolean finished;
+
+    /**
+     * @param rootDependencies The dependencies of the root component, in the order of its dependency meta-data.
+     */
+    public DependencyGraphRecorder(List<ModuleDependency> rootDependencies, VersionSelectorScheme versionSelectorScheme) {
+        this.rootDependencies = rootDependencies;
+        this.versionSelectorScheme = versionSelectorScheme;
+    }
+
+    public void start(DependencyGraphNode root) {
+        this.root = root;
+    }
+
+    public void visitNode(DependencyGraphNode resolvedConfiguration) {
+        if (!recordable) {
+            return;
+        }
+        if (resolvedConfiguration != root) {
+            if (!(resolvedConfiguration.getComponentId() instanceof ModuleComponentIdentifier) || resolvedConfiguration.getMetaData().getComponent().isChanging()) {
+                recordable = false;
+                return;
+            }
+        }
+
+        RecordedDependencyGraph.RecordedNode node = new RecordedDependencyGraph.RecordedNode(resolvedConfiguration.getNodeId(), resolvedConfiguration.getSelection());
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getOutgoingEdges()) {
+            if (dependency.getFailure() != null || dependency.getReason() == null || !isStaticModuleVersion(dependency.getRequested())) {
+                recordable = false;
+                return;
+            }
+            node.outgoing.add(new DefaultInternalDependencyResult(dependency.getRequested(), dependency.getSelected(), dependency.getReason(), null));
+        }
+        nodeIndexes.put(node.id, nodes.size());
+        nodes.add(node);
+    }
+
+    public void visitEdge(DependencyGraphNode resolvedConfiguration) {
+        if (!recordable) {
+            return;
+        }
+        RecordedDependencyGraph.RecordedNode node = nodes.get(nodeIndexes.get(resolvedConfiguration.getNodeId()));
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getIncomingEdges()) {
+            Integer from = nodeIndexes.get(dependency.getFrom().getNodeId());
+            int dependencyIndex = dependency.getFrom() == root ? indexOf(dependency.getModuleDependency()) : -1;
+            if (from == null || dependency.getFrom() == root && dependencyIndex < 0) {
+                recordable = false;
+                return;
+            }
+            node.incoming.add(new RecordedDependencyGraph.RecordedEdge(from, dependency.getRequested(), dependency.getReason(), dependencyIndex));
+        }
+    }
+
+    public void visitArtifacts(ResolvedConfigurationIdentifier parent, ResolvedConfigurationIdentifier child, ArtifactSet artifacts) {
+        if (!recordable) {
+            return;
+        }
+        if (!artifactSets.containsKey(artifacts.getId())) {
+            RecordedDependencyGraph.RecordedArtifactSet artifactSet = recordArtifactSet(artifacts);
+            if (artifactSet == null) {
+                recordable = false;
+                return;
+            }
+            artifactSets.put(artifacts.getId(), artifactSet);
+        }
+        nodes.get(nodeIndexes.get(child)).artifactVisits.add(new RecordedDependencyGraph.RecordedArtifactVisit(nodeIndexes.get(parent), artifacts.getId()));
+    }
+
+    public void finish(DependencyGraphNode root) {
+    }
+
+    public void finishArtifacts() {
+        finished = true;
+    }
+
+    /**
+     * Returns true when the whole graph has been visited and could be recorded.
+     */
+    public boolean isRecorded() {
+        return finished && recordable;
+    }
+
+    public RecordedDependencyGraph getGraph() {
+        if (!isRecorded()) {
+            throw new IllegalStateException("The dependency graph has not been recorded.");
+        }
+        return new RecordedDependencyGraph(nodes, artifactSets);
+    }
+
+    private boolean isStaticModuleVersion(ComponentSelector selector) {
+        return selector instanceof ModuleComponentSelector && !versionSelectorScheme.parseSelector(((ModuleComponentSelector) selector).getVersion()).isDynamic();
+    }
+
+    private int indexOf(ModuleDependency moduleDependency) {
+        for (int i = 0; i < rootDependencies.size(); i++) {
+            if (rootDependencies.get(i) == moduleDependency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private RecordedDependencyGraph.RecordedArtifactSet recordArtifactSet(ArtifactSet artifacts) {
+        if (!(artifacts instanceof DefaultArtifactSet)) {
+            return null;
+        }
+        DefaultArtifactSet artifactSet = (DefaultArtifactSet) artifacts;
+        List<ModuleComponentArtifactIdentifier> artifactIds = Lists.newArrayList();
+        for (ComponentArtifactMetaData artifact : artifactSet.getSelectedArtifacts()) {
+            if (!(artifact instanceof ModuleComponentArtifactMetaData)) {
+                return null;
+            }
+            artifactIds.add(((ModuleComponentArtifactMetaData) artifact).getId());
+        }
+        return new RecordedDependencyGraph.RecordedArtifactSet(artifactSet.getModuleVersionIdentifier(), artifactSet.getModuleSource(), artifactIds);
+    }
+}
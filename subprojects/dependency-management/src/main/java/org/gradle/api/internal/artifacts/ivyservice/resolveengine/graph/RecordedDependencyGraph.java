@@ -0,0 +1,307 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultModuleResolutionFilter;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleResolutionFilter;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.InternalDependencyResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetaData;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.model.ComponentArtifactMetaData;
+import org.gradle.internal.component.model.ConfigurationMetaData;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A snapshot of a resolved dependency graph, as it was presented to a {@link DependencyGraphVisitor} and a {@link DependencyArtifactsVisitor}.
+ * The snapshot can be presented to a new pair of visitors without walking the graph again.
+ *
+ * <p>Only graphs made of module components, without failures, are recorded. The first node is the root of the graph.
+ * The edges from the root refer to the dependencies of the root component by their position, so that the replayed edges
+ * can carry the dependency objects of the current build.</p>
+ *
+ * <p>The meta-data of the nodes, and the selectors and artifacts of the edges, are not recorded. A graph can therefore only be
+ * replayed to visitors that do not use them, see {@link #canReplayTo(DependencyGraphVisitor)}.</p>
+ *
+ * @see DependencyGraphRecorder
+ */
+public class RecordedDependencyGraph {
+    final List<RecordedNode> nodes;
+    final Map<Long, RecordedArtifactSet> artifactSets;
+
+    RecordedDependencyGraph(List<RecordedNode> nodes, Map<Long, RecordedArtifactSet> artifactSets) {
+        this.nodes = nodes;
+        this.artifactSets = artifactSets;
+    }
+
+    /**
+     * Returns the ids of the components in the graph, other than the root.
+     */
+    public Set<ModuleVersionIdentifier> getComponents() {
+        Set<ModuleVersionIdentifier> components = Sets.newLinkedHashSet();
+        for (RecordedNode node : nodes.subList(1, nodes.size())) {
+            components.add(node.id.getId());
+        }
+        return components;
+    }
+
+    /**
+     * Returns true when the given visitor can be given a replayed graph, that is, when it and all the visitors it is composed of are
+     * {@link ReplayableDependencyGraphVisitor}s.
+     */
+    public static boolean canReplayTo(DependencyGraphVisitor visitor) {
+        if (visitor instanceof CompositeDependencyGraphVisitor) {
+            for (DependencyGraphVisitor child : ((CompositeDependencyGraphVisitor) visitor).getVisitors()) {
+                if (!canReplayTo(child)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return visitor instanceof ReplayableDependencyGraphVisitor;
+    }
+
+    /**
+     * Presents the graph to the given visitors, in the same order as {@link DependencyGraphBuilder} would.
+     *
+     * @param rootDependencies The dependencies of the root component, in the order of its dependency meta-data.
+     * @param artifactResolver The resolver to use to fetch the files of the artifacts.
+     */
+    public void replay(List<ModuleDependency> rootDependencies, DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor, ArtifactResolver artifactResolver) {
+        if (!canReplayTo(graphVisitor)) {
+            throw new IllegalArgumentException(String.format("Cannot replay a recorded dependency graph to %s.", graphVisitor));
+        }
+        List<ReplayedNode> replayedNodes = Lists.newArrayListWithCapacity(nodes.size());
+        for (RecordedNode node : nodes) {
+            replayedNodes.add(new ReplayedNode(node.id, node.selection));
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            RecordedNode node = nodes.get(i);
+            ReplayedNode replayedNode = replayedNodes.get(i);
+            for (InternalDependencyResult dependency : node.outgoing) {
+                replayedNode.outgoingEdges.add(new ReplayedEdge(replayedNode, dependency.getRequested(), dependency.getSelected(), dependency.getReason(), null));
+            }
+            for (RecordedEdge edge : node.incoming) {
+                ModuleDependency moduleDependency = edge.dependencyIndex < 0 ? null : rootDependencies.get(edge.dependencyIndex);
+                replayedNode.incomingEdges.add(new ReplayedEdge(replayedNodes.get(edge.from), edge.requested, node.id.getId(), edge.reason, moduleDependency));
+            }
+        }
+
+        ReplayedNode root = replayedNodes.get(0);
+        graphVisitor.start(root);
+        for (ReplayedNode node : replayedNodes) {
+            graphVisitor.visitNode(node);
+        }
+
+        Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts = Maps.newHashMap();
+        Map<Long, ArtifactSet> replayedArtifactSets = Maps.newHashMap();
+        for (int i = 0; i < nodes.size(); i++) {
+            RecordedNode node = nodes.get(i);
+            graphVisitor.visitEdge(replayedNodes.get(i));
+            for (RecordedArtifactVisit visit : node.artifactVisits) {
+                ArtifactSet artifactSet = replayedArtifactSets.get(visit.artifactSetId);
+                if (artifactSet == null) {
+                    artifactSet = artifactSets.get(visit.artifactSetId).toArtifactSet(visit.artifactSetId, artifactResolver, allResolvedArtifacts);
+                    replayedArtifactSets.put(visit.artifactSetId, artifactSet);
+                }
+                artifactsVisitor.visitArtifacts(nodes.get(visit.parent).id, node.id, artifactSet);
+            }
+        }
+
+        graphVisitor.finish(root);
+        artifactsVisitor.finishArtifacts();
+    }
+
+    static class RecordedNode {
+        final ResolvedConfigurationIdentifier id;
+        final ModuleVersionSelection selection;
+        final List<InternalDependencyResult> outgoing = Lists.newArrayList();
+        final List<RecordedEdge> incoming = Lists.newArrayList();
+        final List<RecordedArtifactVisit> artifactVisits = Lists.newArrayList();
+
+        RecordedNode(ResolvedConfigurationIdentifier id, ModuleVersionSelection selection) {
+            this.id = id;
+            this.selection = selection;
+        }
+    }
+
+    static class RecordedEdge {
+        final int from;
+        final ComponentSelector requested;
+        final ComponentSelectionReason reason;
+        // The position of the dependency in the dependencies of the root component, or -1 when the edge does not start at the root
+        final int dependencyIndex;
+
+        RecordedEdge(int from, ComponentSelector requested, ComponentSelectionReason reason, int dependencyIndex) {
+            this.from = from;
+            this.requested = requested;
+            this.reason = reason;
+            this.dependencyIndex = dependencyIndex;
+        }
+    }
+
+    static class RecordedArtifactVisit {
+        final int parent;
+        final long artifactSetId;
+
+        RecordedArtifactVisit(int parent, long artifactSetId) {
+            this.parent = parent;
+            this.artifactSetId = artifactSetId;
+        }
+    }
+
+    static class RecordedArtifactSet {
+        final ModuleVersionIdentifier ownerId;
+        final ModuleSource moduleSource;
+        final List<ModuleComponentArtifactIdentifier> artifacts;
+
+        RecordedArtifactSet(ModuleVersionIdentifier ownerId, ModuleSource moduleSource, List<ModuleComponentArtifactIdentifier> artifacts) {
+            this.ownerId = ownerId;
+            this.moduleSource = moduleSource;
+            this.artifacts = artifacts;
+        }
+
+        ArtifactSet toArtifactSet(long id, ArtifactResolver artifactResolver, Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts) {
+            Set<ComponentArtifactMetaData> artifactMetaData = Sets.newLinkedHashSet();
+            for (ModuleComponentArtifactIdentifier artifact : artifacts) {
+                artifactMetaData.add(new DefaultModuleComponentArtifactMetaData(artifact));
+            }
+            return new DefaultArtifactSet(ownerId, moduleSource, DefaultModuleResolutionFilter.all(), artifactMetaData, artifactResolver, allResolvedArtifacts, id);
+        }
+    }
+
+    private static class ReplayedNode implements DependencyGraphNode {
+        private final ResolvedConfigurationIdentifier id;
+        private final ModuleVersionSelection selection;
+        private final Set<DependencyGraphEdge> incomingEdges = Sets.newLinkedHashSet();
+        private final Set<DependencyGraphEdge> outgoingEdges = Sets.newLinkedHashSet();
+
+        ReplayedNode(ResolvedConfigurationIdentifier id, ModuleVersionSelection selection) {
+            this.id = id;
+            this.selection = selection;
+        }
+
+        public ResolvedConfigurationIdentifier getNodeId() {
+            return id;
+        }
+
+        public ModuleVersionIdentifier toId() {
+            return id.getId();
+        }
+
+        public ComponentIdentifier getComponentId() {
+            return selection.getComponentId();
+        }
+
+        public ModuleVersionSelection getSelection() {
+            return selection;
+        }
+
+        public Set<DependencyGraphEdge> getIncomingEdges() {
+            return incomingEdges;
+        }
+
+        public Set<DependencyGraphEdge> getOutgoingEdges() {
+            return outgoingEdges;
+        }
+
+        public ConfigurationMetaData getMetaData() {
+            throw new UnsupportedOperationException("The meta-data of a node is not available in a replayed dependency graph.");
+        }
+
+        @Override
+        public String toString() {
+            return id.toString();
+        }
+    }
+
+    private static class ReplayedEdge implements DependencyGraphEdge {
+        private final DependencyGraphNode from;
+        private final ComponentSelector requested;
+        private final ModuleVersionIdentifier selected;
+        private final ComponentSelectionReason reason;
+        private final ModuleDependency moduleDependency;
+
+        ReplayedEdge(DependencyGraphNode from, ComponentSelector requested, ModuleVersionIdentifier selected, ComponentSelectionReason reason, ModuleDependency moduleDependency) {
+            this.from = from;
+            this.requested = requested;
+            this.selected = selected;
+            this.reason = reason;
+            this.moduleDependency = moduleDependency;
+        }
+
+        public DependencyGraphNode getFrom() {
+            return from;
+        }
+
+        public ModuleVersionSelector getRequestedModuleVersion() {
+            ModuleComponentSelector selector = (ModuleComponentSelector) requested;
+            return new DefaultModuleVersionSelector(selector.getGroup(), selector.getModule(), selector.getVersion());
+        }
+
+        public ModuleResolutionFilter getSelector() {
+            throw new UnsupportedOperationException("The selector of an edge is not available in a replayed dependency graph.");
+        }
+
+        public Set<ComponentArtifactMetaData> getArtifacts(ConfigurationMetaData metaData) {
+            throw new UnsupportedOperationException("The artifacts of an edge are not available in a replayed dependency graph.");
+        }
+
+        public ModuleDependency getModuleDependency() {
+            return moduleDependency;
+        }
+
+        public ComponentSelector getRequested() {
+            return requested;
+        }
+
+        public ModuleVersionIdentifier getSelected() {
+            return selected;
+        }
+
+        public ComponentSelectionReason getReason() {
+            return reason;
+        }
+
+        public ModuleVersionResolveException getFailure() {
+            return null;
+        }
+    }
+}
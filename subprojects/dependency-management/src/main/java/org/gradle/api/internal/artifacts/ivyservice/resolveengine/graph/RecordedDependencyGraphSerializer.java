@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionReasonSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectorSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultInternalDependencyResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.InternalDependencyResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.InternalDependencyResultSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelectionSerializer;
+import org.gradle.api.internal.artifacts.metadata.ModuleVersionArtifactIdentifierSerializer;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class RecordedDependencyGraphSerializer implements Serializer<RecordedDependencyGraph> {
+    private static final Map<ComponentSelector, ModuleVersionResolveException> NO_FAILURES = Collections.emptyMap();
+
+    private final ResolvedConfigurationIdentifierSerializer nodeIdSerializer = new ResolvedConfigurationIdentifierSerializer();
+    private final ModuleVersionSelectionSerializer selectionSerializer = new ModuleVersionSelectionSerializer();
+    private final InternalDependencyResultSerializer dependencySerializer = new InternalDependencyResultSerializer();
+    private final ComponentSelectorSerializer selectorSerializer = new ComponentSelectorSerializer();
+    private final ComponentSelectionReasonSerializer reasonSerializer = new ComponentSelectionReasonSerializer();
+    private final ModuleVersionIdentifierSerializer moduleVersionIdentifierSerializer = new ModuleVersionIdentifierSerializer();
+    private final Serializer<ModuleSource> moduleSourceSerializer = new DefaultSerializer<ModuleSource>(ModuleSource.class.getClassLoader());
+    private final ModuleVersionArtifactIdentifierSerializer artifactIdSerializer = new ModuleVersionArtifactIdentifierSerializer();
+
+    public void write(Encoder encoder, RecordedDependencyGraph value) throws Exception {
+        encoder.writeSmallInt(value.nodes.size());
+        for (RecordedDependencyGraph.RecordedNode node : value.nodes) {
+            nodeIdSerializer.write(encoder, node.id);
+            selectionSerializer.write(encoder, node.selection);
+            encoder.writeSmallInt(node.outgoing.size());
+            for (InternalDependencyResult dependency : node.outgoing) {
+                dependencySerializer.write(encoder, dependency);
+                reasonSerializer.write(encoder, dependency.getReason());
+            }
+            encoder.writeSmallInt(node.incoming.size());
+            for (RecordedDependencyGraph.RecordedEdge edge : node.incoming) {
+                encoder.writeSmallInt(edge.from);
+                selectorSerializer.write(encoder, edge.requested);
+                reasonSerializer.write(encoder, edge.reason);
+                encoder.writeSmallInt(edge.dependencyIndex);
+            }
+            encoder.writeSmallInt(node.artifactVisits.size());
+            for (RecordedDependencyGraph.RecordedArtifactVisit visit : node.artifactVisits) {
+                encoder.writeSmallInt(visit.parent);
+                encoder.writeLong(visit.artifactSetId);
+            }
+        }
+        encoder.writeSmallInt(value.artifactSets.size());
+        for (Map.Entry<Long, RecordedDependencyGraph.RecordedArtifactSet> entry : value.artifactSets.entrySet()) {
+            RecordedDependencyGraph.RecordedArtifactSet artifactSet = entry.getValue();
+            encoder.writeLong(entry.getKey());
+            moduleVersionIdentifierSerializer.write(encoder, artifactSet.ownerId);
+            moduleSourceSerializer.write(encoder, artifactSet.moduleSource);
+            encoder.writeSmallInt(artifactSet.artifacts.size());
+            for (ModuleComponentArtifactIdentifier artifact : artifactSet.artifacts) {
+                artifactIdSerializer.write(encoder, artifact);
+            }
+        }
+    }
+
+    public RecordedDependencyGraph read(Decoder decoder) throws Exception {
+        int nodeCount = decoder.readSmallInt();
+        List<RecordedDependencyGraph.RecordedNode> nodes = Lists.newArrayListWithCapacity(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            RecordedDependencyGraph.RecordedNode node = new RecordedDependencyGraph.RecordedNode(nodeIdSerializer.read(decoder), selectionSerializer.read(decoder));
+            int outgoingCount = decoder.readSmallInt();
+            for (int j = 0; j < outgoingCount; j++) {
+                InternalDependencyResult dependency = dependencySerializer.read(decoder, NO_FAILURES);
+                node.outgoing.add(new DefaultInternalDependencyResult(dependency.getRequested(), dependency.getSelected(), reasonSerializer.read(decoder), null));
+            }
+            int incomingCount = decoder.readSmallInt();
+            for (int j = 0; j < incomingCount; j++) {
+                int from = decoder.readSmallInt();
+                ComponentSelector requested = selectorSerializer.read(decoder);
+                ComponentSelectionReason reason = reasonSerializer.read(decoder);
+                node.incoming.add(new RecordedDependencyGraph.RecordedEdge(from, requested, reason, decoder.readSmallInt()));
+            }
+            int visitCount = decoder.readSmallInt();
+            for (int j = 0; j < visitCount; j++) {
+                int parent = decoder.readSmallInt();
+                node.artifactVisits.add(new RecordedDependencyGraph.RecordedArtifactVisit(parent, decoder.readLong()));
+            }
+            nodes.add(node);
+        }
+        int artifactSetCount = decoder.readSmallInt();
+        Map<Long, RecordedDependencyGraph.RecordedArtifactSet> artifactSets = Maps.newHashMap();
+        for (int i = 0; i < artifactSetCount; i++) {
+            long id = decoder.readLong();
+            ModuleVersionIdentifier ownerId = moduleVersionIdentifierSerializer.read(decoder);
+            ModuleSource moduleSource = moduleSourceSerializer.read(decoder);
+            int artifactCount = decoder.readSmallInt();
+            List<ModuleComponentArtifactIdentifier> artifacts = Lists.newArrayListWithCapacity(artifactCount);
+            for (int j = 0; j < artifactCount; j++) {
+                artifacts.add(artifactIdSerializer.read(decoder));
+            }
+            artifactSets.put(id, new RecordedDependencyGraph.RecordedArtifactSet(ownerId, moduleSource, artifacts));
+        }
+        return new RecordedDependencyGraph(nodes, artifactSets);
+    }
+}
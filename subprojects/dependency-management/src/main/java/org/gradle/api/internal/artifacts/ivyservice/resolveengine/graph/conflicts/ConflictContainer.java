@@ -114,6 +114,25 @@ class ConflictContainer<K, T> {
         return conflicts.pop();
     }
 
+    /**
+     * Removes and returns the conflict that the given element participates in, provided it is the only participant.
+     * Returns null when the element is not in conflict, or when other elements participate in the same conflict.
+     */
+    @Nullable
+    public Conflict popConflictWithSingleParticipant(K participant) {
+        for (Iterator<Conflict> iterator = conflicts.iterator(); iterator.hasNext();) {
+            Conflict c = iterator.next();
+            if (c.participants.contains(participant)) {
+                if (c.participants.size() != 1) {
+                    return null;
+                }
+                iterator.remove();
+                return c;
+            }
+        }
+        return null;
+    }
+
     class Conflict {
         Set<K> participants;
         Collection<? extends T> candidates;
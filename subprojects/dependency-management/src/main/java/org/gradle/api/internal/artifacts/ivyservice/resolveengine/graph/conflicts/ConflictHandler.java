@@ -17,6 +17,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts;
 
 import org.gradle.api.Action;
+import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleConflictResolver;
 
 public interface ConflictHandler {
@@ -36,6 +37,12 @@ public interface ConflictHandler {
      */
     void resolveNextConflict(Action<ConflictResolutionResult> resolutionAction);
 
+    /**
+     * Resolves the conflict of given module right away and triggers provided action after the resolution, provided the module is the only participant of the conflict.
+     * Returns false, leaving the conflict batched up, when other modules participate in the conflict.
+     */
+    boolean resolveModuleConflict(ModuleIdentifier module, Action<ConflictResolutionResult> resolutionAction);
+
     /**
      * Registers a conflict resolver that is used for resolving conflicts. It is possible to register multiple resolvers.
      */
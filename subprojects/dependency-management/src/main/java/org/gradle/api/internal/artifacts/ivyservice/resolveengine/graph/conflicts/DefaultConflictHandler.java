@@ -61,7 +61,22 @@ public class DefaultConflictHandler implements ConflictHandler {
      */
     public void resolveNextConflict(Action<ConflictResolutionResult> resolutionAction) {
         assert hasConflicts();
-        ConflictContainer.Conflict conflict = conflicts.popConflict();
+        resolve(conflicts.popConflict(), resolutionAction);
+    }
+
+    /**
+     * Resolves the conflict of given module, unless other modules participate in the same conflict.
+     */
+    public boolean resolveModuleConflict(ModuleIdentifier module, Action<ConflictResolutionResult> resolutionAction) {
+        ConflictContainer<ModuleIdentifier, ComponentResolutionState>.Conflict conflict = conflicts.popConflictWithSingleParticipant(module);
+        if (conflict == null) {
+            return false;
+        }
+        resolve(conflict, resolutionAction);
+        return true;
+    }
+
+    private void resolve(ConflictContainer<ModuleIdentifier, ComponentResolutionState>.Conflict conflict, Action<ConflictResolutionResult> resolutionAction) {
         ComponentResolutionState selected = compositeResolver.select(conflict.candidates);
         ConflictResolutionResult result = new DefaultConflictResolutionResult(potentialConflict(conflict), selected);
         resolutionAction.execute(result);
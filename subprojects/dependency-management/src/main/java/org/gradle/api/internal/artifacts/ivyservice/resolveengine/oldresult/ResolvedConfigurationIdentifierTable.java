@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult;
+
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns an integer id to each distinct resolved configuration identifier seen during a build, so that the resolution results of
+ * all configurations can refer to their nodes by id and share a single instance of each identifier.
+ *
+ * <p>The module version identifiers and configuration names of the identifiers are shared too, so that a module that appears
+ * in the graphs of many configurations is only held in memory once.</p>
+ */
+public class ResolvedConfigurationIdentifierTable {
+    private final Map<ResolvedConfigurationIdentifier, Integer> ids = new HashMap<ResolvedConfigurationIdentifier, Integer>();
+    private final List<ResolvedConfigurationIdentifier> identifiers = new ArrayList<ResolvedConfigurationIdentifier>();
+    private final Map<ModuleVersionIdentifier, ModuleVersionIdentifier> modules = new HashMap<ModuleVersionIdentifier, ModuleVersionIdentifier>();
+    private final Map<String, String> configurations = new HashMap<String, String>();
+
+    /**
+     * Returns the id of the given identifier, assigning it a new id if it has not been seen before.
+     */
+    public synchronized int getId(ResolvedConfigurationIdentifier identifier) {
+        Integer id = ids.get(identifier);
+        if (id == null) {
+            id = identifiers.size();
+            ResolvedConfigurationIdentifier shared = new ResolvedConfigurationIdentifier(intern(modules, identifier.getId()), intern(configurations, identifier.getConfiguration()));
+            identifiers.add(shared);
+            ids.put(shared, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the shared identifier with the given id.
+     */
+    public synchronized ResolvedConfigurationIdentifier getIdentifier(int id) {
+        if (id < 0 || id >= identifiers.size()) {
+            throw new IllegalArgumentException(String.format("Unknown resolved configuration id %s. Known ids: 0 to %s.", id, identifiers.size() - 1));
+        }
+        return identifiers.get(id);
+    }
+
+    public synchronized int size() {
+        return identifiers.size();
+    }
+
+    public synchronized void clear() {
+        ids.clear();
+        identifiers.clear();
+        modules.clear();
+        configurations.clear();
+    }
+
+    private static <T> T intern(Map<T, T> values, T value) {
+        T shared = values.get(value);
+        if (shared == null) {
+            values.put(value, value);
+            return value;
+        }
+        return shared;
+    }
+}
@@ -19,7 +19,6 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult;
 
 import org.gradle.api.internal.artifacts.DefaultResolvedDependency;
 import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
-import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifierSerializer;
 import org.gradle.api.internal.cache.BinaryStore;
 import org.gradle.api.internal.cache.Store;
 import org.gradle.api.logging.Logger;
@@ -50,20 +49,26 @@ public class TransientConfigurationResultsBuilder {
 
     private BinaryStore binaryStore;
     private Store<TransientConfigurationResults> cache;
-    private final ResolvedConfigurationIdentifierSerializer resolvedConfigurationIdentifierSerializer = new ResolvedConfigurationIdentifierSerializer();
+    private final ResolvedConfigurationIdentifierTable identifierTable;
     private BinaryStore.BinaryData binaryData;
 
-    public TransientConfigurationResultsBuilder(BinaryStore binaryStore, Store<TransientConfigurationResults> cache) {
+    public TransientConfigurationResultsBuilder(BinaryStore binaryStore, Store<TransientConfigurationResults> cache, ResolvedConfigurationIdentifierTable identifierTable) {
         this.binaryStore = binaryStore;
         this.cache = cache;
+        this.identifierTable = identifierTable;
     }
 
+    //the nodes are written as ids into the shared identifier table, rather than as identifiers
     private void writeId(final byte type, final ResolvedConfigurationIdentifier... ids) {
+        final int[] nodeIds = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            nodeIds[i] = identifierTable.getId(ids[i]);
+        }
         binaryStore.write(new BinaryStore.WriteAction() {
             public void write(Encoder encoder) throws IOException {
                 encoder.writeByte(type);
-                for (ResolvedConfigurationIdentifier id : ids) {
-                    resolvedConfigurationIdentifierSerializer.write(encoder, id);
+                for (int nodeId : nodeIds) {
+                    encoder.writeSmallInt(nodeId);
                 }
             }
         });
@@ -116,22 +121,22 @@ public class TransientConfigurationResultsBuilder {
 
     private TransientConfigurationResults deserialize(Decoder decoder, ResolvedContentsMapping mapping) {
         Clock clock = new Clock();
-        Map<ResolvedConfigurationIdentifier, DefaultResolvedDependency> allDependencies = new HashMap<ResolvedConfigurationIdentifier, DefaultResolvedDependency>();
+        Map<Integer, DefaultResolvedDependency> allDependencies = new HashMap<Integer, DefaultResolvedDependency>();
         DefaultTransientConfigurationResults results = new DefaultTransientConfigurationResults();
         int valuesRead = 0;
         byte type = -1;
         try {
             while (true) {
                 type = decoder.readByte();
-                ResolvedConfigurationIdentifier id;
+                int id;
                 valuesRead++;
                 switch (type) {
                     case NEW_DEP:
-                        id = resolvedConfigurationIdentifierSerializer.read(decoder);
-                        allDependencies.put(id, new DefaultResolvedDependency(id.getId(), id.getConfiguration()));
+                        id = decoder.readSmallInt();
+                        allDependencies.put(id, new DefaultResolvedDependency(identifierTable.getIdentifier(id)));
                         break;
                     case ROOT:
-                        id = resolvedConfigurationIdentifierSerializer.read(decoder);
+                        id = decoder.readSmallInt();
                         results.root = allDependencies.get(id);
                         if (results.root == null) {
                             throw new IllegalStateException(String.format("Unexpected root id %s. Seen ids: %s", id, allDependencies.keySet()));
@@ -140,16 +145,16 @@ public class TransientConfigurationResultsBuilder {
                         LOG.debug("Loaded resolved configuration results ({}) from {}", clock.getTime(), binaryStore);
                         return results;
                     case FIRST_LVL:
-                        id = resolvedConfigurationIdentifierSerializer.read(decoder);
+                        id = decoder.readSmallInt();
                         DefaultResolvedDependency dependency = allDependencies.get(id);
                         if (dependency == null) {
                             throw new IllegalStateException(String.format("Unexpected first level id %s. Seen ids: %s", id, allDependencies.keySet()));
                         }
-                        results.firstLevelDependencies.put(mapping.getModuleDependency(id), dependency);
+                        results.firstLevelDependencies.put(mapping.getModuleDependency(dependency.getId()), dependency);
                         break;
                     case PARENT_CHILD:
-                        ResolvedConfigurationIdentifier parentId = resolvedConfigurationIdentifierSerializer.read(decoder);
-                        ResolvedConfigurationIdentifier childId = resolvedConfigurationIdentifierSerializer.read(decoder);
+                        int parentId = decoder.readSmallInt();
+                        int childId = decoder.readSmallInt();
                         DefaultResolvedDependency parent = allDependencies.get(parentId);
                         DefaultResolvedDependency child = allDependencies.get(childId);
                         if (parent == null) {
@@ -17,13 +17,14 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult;
 
 import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
-import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ReplayableDependencyGraphVisitor;
 import org.gradle.internal.component.local.model.LocalConfigurationMetaData;
 import org.gradle.internal.component.model.ConfigurationMetaData;
 
-public class ResolvedLocalComponentsResultGraphVisitor implements DependencyGraphVisitor {
+public class ResolvedLocalComponentsResultGraphVisitor implements ReplayableDependencyGraphVisitor {
     private final ResolvedLocalComponentsResultBuilder builder;
     private ComponentIdentifier rootId;
 
@@ -46,6 +47,10 @@ public class ResolvedLocalComponentsResultGraphVisitor implements DependencyGrap
         if (componentId instanceof ProjectComponentIdentifier) {
             builder.projectConfigurationResolved((ProjectComponentIdentifier) componentId, resolvedConfiguration.getNodeId().getConfiguration());
         }
+        if (componentId instanceof ModuleComponentIdentifier) {
+            // Module components are never local, and their meta-data is not available when the graph is replayed
+            return;
+        }
         ConfigurationMetaData configurationMetaData = resolvedConfiguration.getMetaData();
         if (configurationMetaData instanceof LocalConfigurationMetaData) {
             builder.localComponentResolved(componentId, ((LocalConfigurationMetaData) configurationMetaData).getDirectBuildDependencies());
@@ -17,9 +17,9 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
 
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
-import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ReplayableDependencyGraphVisitor;
 
-public class ResolutionResultDependencyGraphVisitor implements DependencyGraphVisitor {
+public class ResolutionResultDependencyGraphVisitor implements ReplayableDependencyGraphVisitor {
     private final ResolutionResultBuilder newModelBuilder;
 
     public ResolutionResultDependencyGraphVisitor(ResolutionResultBuilder newModelBuilder) {
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
 
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedConfigurationIdentifierTable;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
 import org.gradle.api.internal.cache.Store;
 import org.gradle.api.internal.file.TemporaryFileProvider;
@@ -40,6 +41,7 @@ public class ResolutionResultsStoreFactory implements Closeable {
 
     private CachedStoreFactory<TransientConfigurationResults> oldModelCache;
     private CachedStoreFactory<ResolvedComponentResult> newModelCache;
+    private final ResolvedConfigurationIdentifierTable identifierTable = new ResolvedConfigurationIdentifierTable();
 
     private AtomicInteger storeSetBaseId = new AtomicInteger(0);
 
@@ -104,6 +106,10 @@ public class ResolutionResultsStoreFactory implements Closeable {
             public Store<TransientConfigurationResults> oldModelCache() {
                 return getOldModelCache().createCachedStore(storeSetId);
             }
+
+            public ResolvedConfigurationIdentifierTable identifierTable() {
+                return identifierTable;
+            }
         };
     }
 
@@ -120,7 +126,9 @@ public class ResolutionResultsStoreFactory implements Closeable {
             Clock clock = new Clock();
             cleanUpLater.stop();
             LOG.debug("Deleted {} resolution results binary files in {}", stores.size(), clock.getTime());
+            LOG.debug("Resolution results referred to {} distinct resolved configurations", identifierTable.size());
         } finally {
+            identifierTable.clear();
             oldModelCache = null;
             newModelCache = null;
             stores.clear();
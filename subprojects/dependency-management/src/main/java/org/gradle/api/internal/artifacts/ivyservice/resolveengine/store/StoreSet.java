@@ -16,6 +16,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
 
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedConfigurationIdentifierTable;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
 import org.gradle.api.internal.cache.BinaryStore;
 import org.gradle.api.internal.cache.Store;
@@ -26,4 +27,6 @@ public interface StoreSet {
     Store<ResolvedComponentResult> newModelCache();
 
     Store<TransientConfigurationResults> oldModelCache();
+
+    ResolvedConfigurationIdentifierTable identifierTable();
 }
@@ -98,9 +98,9 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
             );
 
             if (isUnchanged) {
-                LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", cached.getExternalLastModified(), location);
-                // TODO - update the index with the new remote meta-data
-                return new DefaultLocallyAvailableExternalResource(location, new DefaultLocallyAvailableResource(cached.getCachedFile()), cached.getExternalResourceMetaData());
+                LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", location, cached.getExternalLastModified());
+                // Record the check with the current meta-data, so that the resource is not checked again during this build
+                return refreshCacheEntry(location, cached.getCachedFile(), remoteMetaData);
             }
         }
 
@@ -199,6 +199,15 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
         }
     }
 
+    private LocallyAvailableExternalResource refreshCacheEntry(final URI source, final File cachedFile, final ExternalResourceMetaData metaData) {
+        return cacheLockingManager.useCache(String.format("Refresh %s", source), new Factory<LocallyAvailableExternalResource>() {
+            public LocallyAvailableExternalResource create() {
+                cachedExternalResourceIndex.store(source.toString(), cachedFile, metaData);
+                return new DefaultLocallyAvailableExternalResource(source, new DefaultLocallyAvailableResource(cachedFile), metaData);
+            }
+        });
+    }
+
     private LocallyAvailableExternalResource moveIntoCache(final URI source, final File destination, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData) {
         return cacheLockingManager.useCache(String.format("Store %s", source), new Factory<LocallyAvailableExternalResource>() {
             public LocallyAvailableExternalResource create() {
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.ResolvedModuleVersion
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.internal.Factory
+import org.gradle.internal.component.model.DefaultIvyArtifactName
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class ParallelArtifactDownloaderTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
+    // Not a Spock stub, the workers must be able to call into mocks while the calling thread waits for them
+    def cacheLockingManager = [longRunningOperation: { String name, Runnable action -> action.run() }] as CacheLockingManager
+    def executorFactory = new DefaultExecutorFactory()
+    def downloader = new ParallelArtifactDownloader(executorFactory, cacheLockingManager)
+
+    def cleanup() {
+        downloader.stop()
+        executorFactory.stop()
+    }
+
+    def "fetches the files of artifacts from repositories that have not been fetched yet"() {
+        given:
+        System.setProperty(ParallelArtifactDownloader.CONCURRENCY_PROPERTY, "2")
+        def source1 = Mock(Factory)
+        def source2 = Mock(Factory)
+        def source3 = Mock(Factory)
+        def local = Mock(Factory)
+        def fetched = Mock(Factory)
+        def artifact1 = artifact("a", source1, "repo1")
+        def artifact2 = artifact("b", source2, "repo1")
+        def artifact3 = artifact("c", source3, "repo2")
+        def localArtifact = artifact("d", local, null)
+        def fetchedArtifact = artifact("e", fetched, "repo2")
+
+        when:
+        fetchedArtifact.file
+
+        then:
+        1 * fetched.create() >> new File("e.jar")
+
+        when:
+        downloader.download([artifact1, artifact2, artifact3, localArtifact, fetchedArtifact])
+
+        then:
+        1 * source1.create() >> new File("a.jar")
+        1 * source2.create() >> new File("b.jar")
+        1 * source3.create() >> new File("c.jar")
+        0 * local.create()
+        0 * fetched.create()
+
+        and:
+        artifact1.fileResolved
+        artifact2.fileResolved
+        artifact3.fileResolved
+        !localArtifact.fileResolved
+    }
+
+    def "leaves an artifact that cannot be fetched to be fetched again later"() {
+        given:
+        System.setProperty(ParallelArtifactDownloader.CONCURRENCY_PROPERTY, "2")
+        def broken = Mock(Factory)
+        def source = Mock(Factory)
+        def brokenArtifact = artifact("a", broken, "repo")
+        def otherArtifact = artifact("b", source, "repo")
+
+        when:
+        downloader.download([brokenArtifact, otherArtifact])
+
+        then:
+        1 * broken.create() >> { throw new RuntimeException("broken") }
+        1 * source.create() >> new File("b.jar")
+
+        and:
+        !brokenArtifact.fileResolved
+        otherArtifact.fileResolved
+
+        when:
+        brokenArtifact.file
+
+        then:
+        1 * broken.create() >> new File("a.jar")
+    }
+
+    def "does not fetch anything ahead when concurrency is not configured"() {
+        given:
+        def source1 = Mock(Factory)
+        def source2 = Mock(Factory)
+
+        when:
+        downloader.download([artifact("a", source1, "repo"), artifact("b", source2, "repo")])
+
+        then:
+        0 * source1.create()
+        0 * source2.create()
+    }
+
+    def artifact(String name, Factory<File> source, String repositoryId) {
+        return new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), new DefaultIvyArtifactName(name, "jar", "jar"), Stub(ComponentArtifactIdentifier), source, repositoryId)
+    }
+}
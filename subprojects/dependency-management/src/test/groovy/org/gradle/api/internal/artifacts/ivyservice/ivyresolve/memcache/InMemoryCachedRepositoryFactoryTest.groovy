@@ -16,7 +16,9 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache
 
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryModuleDescriptorCache
 import org.gradle.util.SetSystemProperties
 import org.junit.Rule
 import spock.lang.Specification
@@ -24,7 +26,8 @@ import spock.lang.Specification
 class InMemoryCachedRepositoryFactoryTest extends Specification {
 
     @Rule SetSystemProperties sysProp = new SetSystemProperties()
-    def cache = new InMemoryCachedRepositoryFactory()
+    def descriptorCache = new InMemoryModuleDescriptorCache()
+    def cache = new InMemoryCachedRepositoryFactory(descriptorCache)
 
     def "can be turned off via system property"() {
         System.properties.setProperty(InMemoryCachedRepositoryFactory.TOGGLE_PROPERTY, "false")
@@ -74,4 +77,19 @@ class InMemoryCachedRepositoryFactoryTest extends Specification {
         then:
         cache.cachePerRepo.isEmpty()
     }
+
+    def "reports the descriptors served by the daemon cache during the build"() {
+        descriptorCache.put(BigInteger.ONE, Stub(ModuleDescriptor))
+        descriptorCache.get(BigInteger.ONE)
+        def cache = new InMemoryCachedRepositoryFactory(descriptorCache)
+
+        when:
+        descriptorCache.get(BigInteger.ONE)
+        descriptorCache.get(BigInteger.TEN)
+        cache.stop()
+
+        then:
+        cache.stats.descriptorsServed == 1
+        cache.stats.descriptorsParsed == 1
+    }
 }
@@ -92,7 +92,7 @@ class InMemoryMetaDataCacheTest extends Specification {
 
         then:
         !differentSelector
-        stats.metadataServed == 0
+        stats.metadataServed.get() == 0
         0 * result._
 
         when:
@@ -100,7 +100,7 @@ class InMemoryMetaDataCacheTest extends Specification {
 
         then:
         match
-        stats.metadataServed == 1
+        stats.metadataServed.get() == 1
         _ * cachedCopy.copy() >> suppliedMetaData
         1 * result.resolved(suppliedMetaData)
     }
@@ -122,7 +122,7 @@ class InMemoryMetaDataCacheTest extends Specification {
 
         then:
         found
-        stats.metadataServed == 1
+        stats.metadataServed.get() == 1
         1 * result.resolved(moduleMetaData)
     }
 
@@ -18,6 +18,8 @@ package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser
 import org.apache.ivy.core.module.descriptor.License
 import org.gradle.api.internal.artifacts.ivyservice.IvyUtil
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.data.MavenDependencyKey
+import org.gradle.internal.resource.local.DefaultLocallyAvailableExternalResource
+import org.gradle.internal.resource.local.DefaultLocallyAvailableResource
 import org.xml.sax.SAXParseException
 import spock.lang.Issue
 import spock.lang.Unroll
@@ -880,4 +882,34 @@ class PomReaderTest extends AbstractPomReaderTest {
         pomReader.artifactId == pomReader.parentArtifactId
         pomReader.version == pomReader.parentVersion
     }
+
+    def "parses POMs with the same content once when given a parsed POM cache"() {
+        given:
+        def parsedPomCache = Spy(ParsedPomCache)
+        def pom = """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+</project>
+"""
+        pomFile << pom
+        def otherPomFile = tmpDir.file('other/pom.xml')
+        otherPomFile << pom
+        def otherResource = new DefaultLocallyAvailableExternalResource(otherPomFile.toURI(), new DefaultLocallyAvailableResource(otherPomFile))
+
+        when:
+        def pomReader = new PomReader(locallyAvailableExternalResource, parsedPomCache)
+        def otherPomReader = new PomReader(otherResource, parsedPomCache)
+
+        then:
+        1 * parsedPomCache.put(_, _)
+
+        and:
+        pomReader.groupId == 'group-one'
+        otherPomReader.groupId == 'group-one'
+        otherPomReader.artifactId == 'artifact-one'
+        otherPomReader.version == 'version-one'
+    }
 }
@@ -78,4 +78,12 @@ class DefaultVersionSelectorSchemeTest extends Specification {
             "[1,2,3]",
         ]
     }
+
+    def "reuses the selector for a selector string"() {
+        expect:
+        matcher.parseSelector(selector).is(matcher.parseSelector(selector))
+
+        where:
+        selector << ["[1.0,2.0]", "1+", "latest.integration", "1.0"]
+    }
 }
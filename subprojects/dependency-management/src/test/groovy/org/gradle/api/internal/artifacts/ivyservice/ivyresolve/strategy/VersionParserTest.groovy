@@ -97,6 +97,11 @@ class VersionParserTest extends Specification {
         '-a b c-  ' | ['', 'a b c', '  ']
     }
 
+    def "shares the parsed version between parsers"() {
+        expect:
+        parse("1.2.3-rc1").is(new VersionParser().transform("1.2.3-rc1"))
+    }
+
     def parse(String v) {
         return versionParser.transform(v)
     }
@@ -163,6 +163,6 @@ public class VersionRangeSelectorTest extends AbstractVersionSelectorTest {
 
     @Override
     VersionSelector getSelector(String selector) {
-        return new VersionRangeSelector(selector, new DefaultVersionComparator().asStringComparator())
+        return new VersionRangeSelector(selector, new DefaultVersionComparator().asVersionComparator())
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemoryCachedRepositoryFactory
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class InMemoryModuleDescriptorCacheTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
+    def cache = new InMemoryModuleDescriptorCache()
+    def descriptor = Stub(ModuleDescriptor)
+
+    def "serves descriptors by hash and counts hits and misses"() {
+        when:
+        def missed = cache.get(BigInteger.ONE)
+        cache.put(BigInteger.ONE, descriptor)
+        def served = cache.get(BigInteger.ONE)
+
+        then:
+        missed == null
+        served.is(descriptor)
+        cache.get(BigInteger.TEN) == null
+        cache.hits == 1
+        cache.misses == 2
+        cache.size == 1
+    }
+
+    def "can be turned off via system property"() {
+        System.properties.setProperty(InMemoryCachedRepositoryFactory.TOGGLE_PROPERTY, "false")
+
+        when:
+        cache.put(BigInteger.ONE, descriptor)
+
+        then:
+        cache.get(BigInteger.ONE) == null
+        cache.size == 0
+    }
+}
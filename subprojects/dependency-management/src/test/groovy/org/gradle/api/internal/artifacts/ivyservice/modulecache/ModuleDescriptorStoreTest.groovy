@@ -62,6 +62,18 @@ class ModuleDescriptorStoreTest extends Specification {
         1 * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> null
     }
 
+    def "hasModuleDescriptor checks PathKeyFileStore without parsing the file"() {
+        when:
+        def present = store.hasModuleDescriptor(repository, moduleComponentIdentifier)
+        def absent = store.hasModuleDescriptor(repository, moduleComponentIdentifier)
+
+        then:
+        present
+        !absent
+        2 * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >>> [fileStoreEntry, null]
+        0 * ivyXmlModuleDescriptorParser._
+    }
+
     def "putModuleDescriptor uses PathKeyFileStore to write file"() {
         setup:
         File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
@@ -31,6 +31,7 @@ import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
 import org.gradle.api.internal.artifacts.ivyservice.DefaultLenientConfiguration
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder
@@ -60,12 +61,15 @@ import org.gradle.internal.resolve.resolver.ResolveContextToComponentResolver
 import org.gradle.internal.resolve.result.BuildableArtifactSetResolveResult
 import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult
 import org.gradle.internal.resolve.result.BuildableComponentResolveResult
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
 import spock.lang.Specification
 
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionSelector.newSelector
 
 class DependencyGraphBuilderTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
     def configuration = Mock(ConfigurationInternal)
     def conflictResolver = Mock(ModuleConflictResolver)
     def idResolver = Mock(DependencyToComponentIdResolver)
@@ -91,7 +95,7 @@ class DependencyGraphBuilderTest extends Specification {
     }
 
     private DefaultLenientConfiguration resolve() {
-        def transientConfigurationResultsBuilder = new TransientConfigurationResultsBuilder(new DummyBinaryStore(), new DummyStore())
+        def transientConfigurationResultsBuilder = new TransientConfigurationResultsBuilder(new DummyBinaryStore(), new DummyStore(), new ResolvedConfigurationIdentifierTable())
         def modelBuilder = new DefaultResolvedConfigurationBuilder(transientConfigurationResultsBuilder)
         def configurationResultVisitor = new ResolvedConfigurationDependencyGraphVisitor(modelBuilder)
 
@@ -414,6 +418,135 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(selectedA, c, selectedB)
     }
 
+    def "traverses selected module again when it wins a conflict detected after it was traversed"() {
+        given:
+        def selected = revision('a', '1.2')
+        def evicted = revision('a', '1.1')
+        def b = revision('b')
+        def c = revision('c')
+        traverses root, selected
+        traverses selected, c
+        traverses root, b
+        doesNotTraverse b, evicted
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * conflictResolver.select(!null) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '1.2' }
+        }
+
+        and:
+        modules(result) == ids(selected, b, c)
+        builder.conflictResolutionStats.conflictsResolved == 1
+        builder.conflictResolutionStats.conflictsResolvedEarly == 0
+        builder.conflictResolutionStats.retraversedConfigurations == 1
+    }
+
+    def "keeps selected module when it wins a conflict resolved early"() {
+        given:
+        System.setProperty(DependencyGraphBuilder.EARLY_CONFLICT_RESOLUTION_PROPERTY, "true")
+        def selected = revision('a', '1.2')
+        def evicted = revision('a', '1.1')
+        def b = revision('b')
+        def c = revision('c')
+        def d = revision('d')
+        traverses root, selected
+        traverses selected, c
+        traverses root, b
+        doesNotTraverse b, evicted
+        doesNotResolve evicted, d
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * conflictResolver.select(!null) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            assert candidates*.version == ['1.2', '1.1']
+            return candidates.find { it.version == '1.2' }
+        }
+        0 * conflictResolver._
+
+        and:
+        modules(result) == ids(selected, b, c)
+        builder.conflictResolutionStats.conflictsResolved == 1
+        builder.conflictResolutionStats.conflictsResolvedEarly == 1
+        builder.conflictResolutionStats.retraversedConfigurations == 0
+    }
+
+    def "evicts selected module when a new module wins a conflict resolved early"() {
+        given:
+        System.setProperty(DependencyGraphBuilder.EARLY_CONFLICT_RESOLUTION_PROPERTY, "true")
+        def selected = revision('a', '1.2')
+        def evicted = revision('a', '1.1')
+        def b = revision('b')
+        def c = revision('c')
+        def d = revision('d')
+        def e = revision('e')
+        traverses root, evicted
+        traverses evicted, c
+        traverses root, b
+        traverses b, d
+        traverses d, selected
+        traverses selected, e
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * conflictResolver.select(!null) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            assert candidates*.version == ['1.1', '1.2']
+            return candidates.find { it.version == '1.2' }
+        }
+        0 * conflictResolver._
+
+        and:
+        modules(result) == ids(selected, b, d, e)
+        builder.conflictResolutionStats.conflictsResolvedEarly == 1
+    }
+
+    def "resolves each later conflict on same module early"() {
+        given:
+        System.setProperty(DependencyGraphBuilder.EARLY_CONFLICT_RESOLUTION_PROPERTY, "true")
+        def selectedA = revision('a', '1.2')
+        def evictedA1 = revision('a', '1.1')
+        def evictedA2 = revision('a', '1.0')
+        def b = revision('b')
+        def c = revision('c')
+        traverses root, evictedA1
+        traverses root, selectedA
+        traverses selectedA, c
+        traverses root, b
+        doesNotTraverse b, evictedA2
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * conflictResolver.select({ it*.version == ['1.1', '1.2'] }) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '1.2' }
+        }
+        1 * conflictResolver.select({ it*.version == ['1.1', '1.2', '1.0'] }) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '1.2' }
+        }
+        0 * conflictResolver._
+
+        and:
+        modules(result) == ids(selectedA, b, c)
+        builder.conflictResolutionStats.conflictsResolvedEarly == 2
+        builder.conflictResolutionStats.retraversedConfigurations == 0
+    }
+
     def "does not include module version that is excluded after conflict resolution has been applied"() {
         given:
         def a = revision('a')
@@ -940,6 +1073,63 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(forced, b)
     }
 
+    def "uses meta-data and versions prefetched for the targets of a configuration's dependencies"() {
+        given:
+        def prefetcher = Mock(ComponentMetaDataPrefetcher)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), prefetcher)
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        traverses root, a
+        traverses root, b
+        traverses a, c
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * prefetcher.prefetchVersions({ it*.requested*.name == ['a', 'b'] })
+        1 * prefetcher.prefetch({ it*.componentId == [a.componentId, b.componentId] }) >> {
+            it[0].each { ComponentMetaDataPrefetcher.Request request -> metaDataResolver.resolve(request.componentId, request.overrideMetadata, request.result) }
+        }
+        1 * prefetcher.prefetch({ it*.componentId == [c.componentId] })
+        0 * prefetcher._
+
+        and:
+        modules(result) == ids(a, b, c)
+    }
+
+    def "does not prefetch meta-data for a version that is about to lose a conflict resolved early"() {
+        given:
+        System.setProperty(DependencyGraphBuilder.EARLY_CONFLICT_RESOLUTION_PROPERTY, "true")
+        def prefetcher = Mock(ComponentMetaDataPrefetcher)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), prefetcher)
+        def selected = revision('a', '1.2')
+        def evicted = revision('a', '1.1')
+        def b = revision('b')
+        traverses root, selected
+        traverses root, b
+        doesNotTraverse b, evicted
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * prefetcher.prefetchVersions(_)
+        1 * prefetcher.prefetch({ it*.componentId == [selected.componentId, b.componentId] })
+        0 * prefetcher._
+        1 * conflictResolver.select(!null) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '1.2' }
+        }
+
+        and:
+        modules(result) == ids(selected, b)
+        builder.conflictResolutionStats.skippedMetaDataPrefetches == 1
+    }
+
     def revision(String name, String revision = '1.0') {
         // TODO Shouldn't really be using the local component implementation here
         def id = newId("group", name, revision)
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph
+
+import org.gradle.api.artifacts.ModuleDependency
+import org.gradle.api.artifacts.ModuleVersionIdentifier
+import org.gradle.api.artifacts.ModuleVersionSelector
+import org.gradle.api.artifacts.component.ComponentIdentifier
+import org.gradle.api.artifacts.component.ComponentSelector
+import org.gradle.api.artifacts.result.ComponentSelectionReason
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryChainModuleSource
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultModuleResolutionFilter
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleResolutionFilter
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetaData
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier
+import org.gradle.internal.component.model.ComponentArtifactMetaData
+import org.gradle.internal.component.model.ComponentResolveMetaData
+import org.gradle.internal.component.model.ConfigurationMetaData
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.internal.resolve.resolver.ArtifactResolver
+import org.gradle.internal.serialize.SerializerSpec
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+import static org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier.newId as newComponentId
+import static org.gradle.internal.component.external.model.DefaultModuleComponentSelector.newSelector
+
+class DependencyGraphRecorderTest extends SerializerSpec {
+    def dependency = Stub(ModuleDependency)
+    def recorder = new DependencyGraphRecorder([dependency], new DefaultVersionSelectorScheme(new DefaultVersionComparator()))
+    def root = node(newId("org", "root", "1.0"), new DefaultProjectComponentIdentifier(":"))
+    def a = node(newId("org", "a", "1.0"))
+    def b = node(newId("org", "b", "1.1"))
+
+    def "records graph which can be replayed after serialization"() {
+        def replayedDependency = Stub(ModuleDependency)
+        def graphVisitor = Mock(ReplayableDependencyGraphVisitor)
+        def artifactsVisitor = Mock(DependencyArtifactsVisitor)
+
+        given:
+        def rootToA = edge(root, a, "1.0", dependency)
+        def aToB = edge(a, b, "1.0")
+        aToB.reason = VersionSelectionReasons.CONFLICT_RESOLUTION
+        root.outgoing << rootToA
+        a.incoming << rootToA
+        a.outgoing << aToB
+        b.incoming << aToB
+        visitGraph(artifactSet(a.toId(), 1), artifactSet(b.toId(), 2))
+
+        expect:
+        recorder.recorded
+        recorder.graph.components == [a.toId(), b.toId()] as Set
+
+        when:
+        def graph = serialize(recorder.graph, new RecordedDependencyGraphSerializer())
+        graph.replay([replayedDependency], graphVisitor, artifactsVisitor, Stub(ArtifactResolver))
+
+        then:
+        1 * graphVisitor.start({ it.nodeId == root.nodeId && it.componentId == root.componentId })
+        then:
+        1 * graphVisitor.visitNode({ it.nodeId == root.nodeId && it.outgoingEdges*.selected == [a.toId()] })
+        1 * graphVisitor.visitNode({ it.nodeId == a.nodeId && it.outgoingEdges*.requested == [newSelector("org", "b", "1.0")] && it.outgoingEdges*.reason == [VersionSelectionReasons.CONFLICT_RESOLUTION] })
+        1 * graphVisitor.visitNode({ it.nodeId == b.nodeId && it.selection.id == b.toId() })
+        then:
+        1 * graphVisitor.visitEdge({ it.nodeId == root.nodeId })
+        then:
+        1 * graphVisitor.visitEdge({ DependencyGraphNode node -> node.nodeId == a.nodeId && node.incomingEdges*.moduleDependency == [replayedDependency] })
+        then:
+        1 * artifactsVisitor.visitArtifacts(root.nodeId, a.nodeId, { ArtifactSet set -> set.id == 1 && set.artifacts*.id == [artifactId(a.toId())] })
+        then:
+        1 * graphVisitor.visitEdge({ DependencyGraphNode node -> node.nodeId == b.nodeId && node.incomingEdges*.from*.nodeId == [a.nodeId] && node.incomingEdges*.reason == [VersionSelectionReasons.CONFLICT_RESOLUTION] })
+        then:
+        1 * artifactsVisitor.visitArtifacts(a.nodeId, b.nodeId, { ArtifactSet set -> set.id == 2 && set.artifacts*.id == [artifactId(b.toId())] })
+        then:
+        1 * graphVisitor.finish({ it.nodeId == root.nodeId })
+        then:
+        1 * artifactsVisitor.finishArtifacts()
+        0 * _
+    }
+
+    def "replays graph only to visitors that do not need the parts which are not recorded"() {
+        def replayable = Stub(ReplayableDependencyGraphVisitor)
+        def other = Stub(DependencyGraphVisitor)
+
+        expect:
+        RecordedDependencyGraph.canReplayTo(replayable)
+        RecordedDependencyGraph.canReplayTo(new CompositeDependencyGraphVisitor(replayable, new CompositeDependencyGraphVisitor(replayable)))
+        !RecordedDependencyGraph.canReplayTo(other)
+        !RecordedDependencyGraph.canReplayTo(new CompositeDependencyGraphVisitor(replayable, other))
+    }
+
+    def "cannot replay graph to visitor that needs the parts which are not recorded"() {
+        given:
+        visitGraph()
+
+        when:
+        recorder.graph.replay([dependency], Stub(DependencyGraphVisitor), Stub(DependencyArtifactsVisitor), Stub(ArtifactResolver))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "does not record graph with dynamic version"() {
+        def rootToA = edge(root, a, "1.+", dependency)
+        root.outgoing << rootToA
+        a.incoming << rootToA
+
+        when:
+        visitGraph(artifactSet(a.toId(), 1))
+
+        then:
+        !recorder.recorded
+    }
+
+    def "does not record graph with changing component"() {
+        def rootToA = edge(root, a, "1.0", dependency)
+        root.outgoing << rootToA
+        a.incoming << rootToA
+        a.changing = true
+
+        when:
+        visitGraph(artifactSet(a.toId(), 1))
+
+        then:
+        !recorder.recorded
+    }
+
+    def "does not record graph with failed dependency"() {
+        def rootToA = edge(root, a, "1.0", dependency)
+        rootToA.failure = new ModuleVersionResolveException(newSelector("org", "a", "1.0"), "broken")
+        root.outgoing << rootToA
+        a.incoming << rootToA
+
+        when:
+        visitGraph(artifactSet(a.toId(), 1))
+
+        then:
+        !recorder.recorded
+    }
+
+    def "does not record graph with unknown selection reason"() {
+        def rootToA = edge(root, a, "1.0", dependency)
+        rootToA.reason = null
+        root.outgoing << rootToA
+        a.incoming << rootToA
+
+        when:
+        visitGraph(artifactSet(a.toId(), 1))
+
+        then:
+        !recorder.recorded
+    }
+
+    def "does not record graph until it has been visited"() {
+        when:
+        recorder.start(root)
+        recorder.visitNode(root)
+
+        then:
+        !recorder.recorded
+    }
+
+    private void visitGraph(DefaultArtifactSet... artifactSets) {
+        def nodes = [root, a, b].findAll { it == root || !it.incoming.empty }
+        recorder.start(root)
+        nodes.each { recorder.visitNode(it) }
+        nodes.each { TestNode node ->
+            recorder.visitEdge(node)
+            node.incoming.each { TestEdge edge ->
+                recorder.visitArtifacts(edge.from.nodeId, node.nodeId, artifactSets.find { it.moduleVersionIdentifier == node.toId() })
+            }
+        }
+        recorder.finish(root)
+        recorder.finishArtifacts()
+    }
+
+    private TestNode node(ModuleVersionIdentifier id, ComponentIdentifier componentId = newComponentId(id)) {
+        def selection = Stub(ModuleVersionSelection) {
+            getId() >> id
+            getComponentId() >> componentId
+            getSelectionReason() >> VersionSelectionReasons.REQUESTED
+        }
+        def node = new TestNode(new ResolvedConfigurationIdentifier(id, "default"), selection)
+        def component = Stub(ComponentResolveMetaData) {
+            isChanging() >> { node.changing }
+        }
+        node.metaData = Stub(ConfigurationMetaData) {
+            getComponent() >> component
+        }
+        return node
+    }
+
+    private static TestEdge edge(TestNode from, TestNode to, String requestedVersion, ModuleDependency moduleDependency = null) {
+        return new TestEdge(from: from, requested: newSelector(to.toId().group, to.toId().name, requestedVersion), selected: to.toId(), moduleDependency: moduleDependency)
+    }
+
+    private DefaultArtifactSet artifactSet(ModuleVersionIdentifier id, long setId) {
+        def artifact = new DefaultModuleComponentArtifactMetaData(artifactId(id))
+        return new DefaultArtifactSet(id, new RepositoryChainModuleSource("repo", null), DefaultModuleResolutionFilter.all(), [artifact] as Set, Stub(ArtifactResolver), [:], setId)
+    }
+
+    private static DefaultModuleComponentArtifactIdentifier artifactId(ModuleVersionIdentifier id) {
+        return new DefaultModuleComponentArtifactIdentifier(newComponentId(id), id.name, "jar", "jar")
+    }
+
+    private static class TestNode implements DependencyGraphNode {
+        final ResolvedConfigurationIdentifier nodeId
+        final ModuleVersionSelection selection
+        final Set<DependencyGraphEdge> incoming = new LinkedHashSet<DependencyGraphEdge>()
+        final Set<DependencyGraphEdge> outgoing = new LinkedHashSet<DependencyGraphEdge>()
+        ConfigurationMetaData metaData
+        boolean changing
+
+        TestNode(ResolvedConfigurationIdentifier nodeId, ModuleVersionSelection selection) {
+            this.nodeId = nodeId
+            this.selection = selection
+        }
+
+        ModuleVersionIdentifier toId() {
+            return nodeId.id
+        }
+
+        ComponentIdentifier getComponentId() {
+            return selection.componentId
+        }
+
+        Set<DependencyGraphEdge> getIncomingEdges() {
+            return incoming
+        }
+
+        Set<DependencyGraphEdge> getOutgoingEdges() {
+            return outgoing
+        }
+    }
+
+    private static class TestEdge implements DependencyGraphEdge {
+        DependencyGraphNode from
+        ComponentSelector requested
+        ModuleVersionIdentifier selected
+        ModuleDependency moduleDependency
+        ModuleVersionResolveException failure
+        ComponentSelectionReason reason = VersionSelectionReasons.REQUESTED
+
+        ModuleVersionSelector getRequestedModuleVersion() {
+            throw new UnsupportedOperationException()
+        }
+
+        ModuleResolutionFilter getSelector() {
+            throw new UnsupportedOperationException()
+        }
+
+        Set<ComponentArtifactMetaData> getArtifacts(ConfigurationMetaData metaData) {
+            throw new UnsupportedOperationException()
+        }
+    }
+}
@@ -59,6 +59,25 @@ class ConflictContainerTest extends Specification {
         container.popConflict().toString() == "a:1,2"
     }
 
+    def "pops conflict of a single element"() {
+        container.newElement("a", [1, 2], null)
+        container.newElement("b", [3, 4], null)
+        expect:
+        container.popConflictWithSingleParticipant("b").toString() == "b:3,4"
+        container.popConflictWithSingleParticipant("b") == null
+        container.popConflictWithSingleParticipant("c") == null
+        container.size == 1
+        container.popConflict().toString() == "a:1,2"
+    }
+
+    def "does not pop conflict with multiple participants for a single element"() {
+        container.newElement("a", [1], "b")
+        container.newElement("b", [2, 3], null)
+        expect:
+        container.popConflictWithSingleParticipant("b") == null
+        container.size == 1
+    }
+
     def "contains replacement conflict"() {
         container.newElement("a", [1, 2], "b")
         container.newElement("b", [3, 4], null)
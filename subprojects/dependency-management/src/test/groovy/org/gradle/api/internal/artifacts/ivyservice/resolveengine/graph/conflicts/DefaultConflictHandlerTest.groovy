@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts
 
+import org.gradle.api.Action
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
 import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleConflictResolver
@@ -88,6 +89,42 @@ class DefaultConflictHandlerTest extends Specification {
         !handler.hasConflicts()
     }
 
+    def "resolves conflict of a single module"() {
+        def a = candidate("org", "a", "1", "2")
+        def b = candidate("org", "b", "1", "2")
+        handler.registerModule(a)
+        handler.registerModule(b)
+
+        when:
+        def resolved = handler.resolveModuleConflict(b.id) { ConflictResolutionResult r ->
+            assert r.selected.id == newId("org", "b", "1")
+        }
+
+        then:
+        resolved
+        1 * resolver.select({ it*.id.module.name == ["b", "b"] }) >> { args -> args[0].find { it.id.version == "1" } }
+        0 * resolver._
+
+        then:
+        handler.hasConflicts()
+    }
+
+    def "does not resolve conflict of a module that conflicts with other modules"() {
+        def a = candidate("org", "a", "1")
+        def b = candidate("org", "b", "1")
+        replacements.getReplacementFor(DefaultModuleIdentifier.newId("org", "a")) >> DefaultModuleIdentifier.newId("org", "b")
+        handler.registerModule(a)
+        handler.registerModule(b)
+
+        when:
+        def resolved = handler.resolveModuleConflict(b.id, Mock(Action))
+
+        then:
+        !resolved
+        0 * resolver._
+        handler.hasConflicts()
+    }
+
     private CandidateModule candidate(String group, String name, String ... versions) {
         def candidate = Stub(CandidateModule)
         candidate.getId() >> DefaultModuleIdentifier.newId(group, name)
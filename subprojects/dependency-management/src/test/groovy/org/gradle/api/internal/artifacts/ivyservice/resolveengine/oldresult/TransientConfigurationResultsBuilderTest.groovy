@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult
+
+import org.gradle.api.artifacts.ModuleDependency
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DummyBinaryStore
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DummyStore
+import spock.lang.Specification
+
+class TransientConfigurationResultsBuilderTest extends Specification {
+    def identifierTable = new ResolvedConfigurationIdentifierTable()
+    def mapping = Stub(ResolvedContentsMapping) {
+        getArtifacts(_) >> ([] as Set<ResolvedArtifact>)
+        getModuleDependency(_) >> { ResolvedConfigurationIdentifier id -> Stub(ModuleDependency) { getName() >> id.moduleName } }
+    }
+
+    def "loads the resolved dependency graph"() {
+        def builder = newBuilder()
+
+        when:
+        builder.resolvedDependency(id("root"))
+        builder.resolvedDependency(id("a"))
+        builder.resolvedDependency(id("b"))
+        builder.firstLevelDependency(id("a"))
+        builder.parentChildMapping(id("root"), id("a"), 1)
+        builder.parentChildMapping(id("a"), id("b"), 2)
+        builder.done(id("root"))
+        def results = builder.load(mapping)
+
+        then:
+        results.root.name == "org:root:1.0"
+        results.root.children*.name == ["org:a:1.0"]
+        results.root.children[0].children*.name == ["org:b:1.0"]
+        results.root.children[0].children[0].parents*.name == ["org:a:1.0"]
+        results.firstLevelDependencies.size() == 1
+        results.firstLevelDependencies.keySet()*.name == ["a"]
+        results.firstLevelDependencies.values()*.name == ["org:a:1.0"]
+    }
+
+    def "configurations share the identifiers of their nodes"() {
+        def builder1 = newBuilder()
+        def builder2 = newBuilder()
+
+        when:
+        [builder1, builder2].each { builder ->
+            builder.resolvedDependency(id("root"))
+            builder.resolvedDependency(id("a"))
+            builder.parentChildMapping(id("root"), id("a"), 1)
+            builder.done(id("root"))
+        }
+        def results1 = builder1.load(mapping)
+        def results2 = builder2.load(mapping)
+
+        then:
+        identifierTable.size() == 2
+        results1.root.id.is(results2.root.id)
+        results1.root.children[0].id.is(results2.root.children[0].id)
+        !results1.root.is(results2.root)
+    }
+
+    def "identifier table shares module version identifiers between configurations of a module"() {
+        when:
+        def compileId = identifierTable.getId(new ResolvedConfigurationIdentifier(new DefaultModuleVersionIdentifier("org", "a", "1.0"), "compile"))
+        def runtimeId = identifierTable.getId(new ResolvedConfigurationIdentifier(new DefaultModuleVersionIdentifier("org", "a", "1.0"), "runtime"))
+
+        then:
+        compileId != runtimeId
+        identifierTable.getId(new ResolvedConfigurationIdentifier(new DefaultModuleVersionIdentifier("org", "a", "1.0"), "compile")) == compileId
+        identifierTable.getIdentifier(compileId).id.is(identifierTable.getIdentifier(runtimeId).id)
+        identifierTable.getIdentifier(runtimeId).configuration == "runtime"
+
+        when:
+        identifierTable.getIdentifier(2)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private TransientConfigurationResultsBuilder newBuilder() {
+        new TransientConfigurationResultsBuilder(new DummyBinaryStore(), new DummyStore(), identifierTable)
+    }
+
+    private static ResolvedConfigurationIdentifier id(String module) {
+        new ResolvedConfigurationIdentifier(new DefaultModuleVersionIdentifier("org", module, "1.0"), "default")
+    }
+}
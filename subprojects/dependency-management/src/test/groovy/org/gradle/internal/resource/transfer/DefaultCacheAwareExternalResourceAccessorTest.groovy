@@ -142,6 +142,41 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         0 * _._
     }
 
+    def "reuses expired cached resource and refreshes its cache entry when the remote resource is unchanged"() {
+        def uri = new URI("scheme:thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def localCandidates = Mock(LocallyAvailableResourceCandidates)
+        def cachedMetaData = Stub(ExternalResourceMetaData) {
+            getEtag() >> "abc"
+        }
+        def remoteMetaData = Stub(ExternalResourceMetaData) {
+            getEtag() >> "abc"
+        }
+        def cachedResource = Stub(CachedExternalResource)
+
+        when:
+        def result = cache.getResource(uri, fileStore, localCandidates)
+
+        then:
+        result.localResource.file == cachedFile
+        result.metaData == remoteMetaData
+
+        and:
+        1 * index.lookup("scheme:thing") >> cachedResource
+        _ * timeProvider.currentTime >> 24000L
+        _ * cachedResource.cachedAt >> 23999L
+        _ * cachedResource.cachedFile >> cachedFile
+        _ * cachedResource.externalResourceMetaData >> cachedMetaData
+        1 * repository.getResourceMetaData(uri) >> remoteMetaData
+
+        and:
+        1 * cacheLockingManager.useCache(_, _) >> { String description, org.gradle.internal.Factory factory ->
+            return factory.create()
+        }
+        1 * index.store("scheme:thing", cachedFile, remoteMetaData)
+        0 * _._
+    }
+
     def "will use sha1 from metadata for finding candidates if available"() {
         given:
         def localCandidates = Mock(LocallyAvailableResourceCandidates)
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.benchmarks.cache;
+
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures lookups and updates of a populated {@link BTreePersistentIndexedCache}, with both the file backed and the memory mapped block store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class BTreePersistentIndexedCacheBenchmark {
+    @Param({"false", "true"})
+    boolean mappedStore;
+
+    @Param({"10000"})
+    int entries;
+
+    private File cacheDir;
+    private BTreePersistentIndexedCache<String, String> cache;
+    private String[] keys;
+    private String[] values;
+    private int next;
+
+    @Setup
+    public void createCache() throws IOException {
+        cacheDir = File.createTempFile("btree", "benchmark");
+        GFileUtils.forceDelete(cacheDir);
+        GFileUtils.mkdirs(cacheDir);
+        System.setProperty(BTreePersistentIndexedCache.MAPPED_STORE_PROPERTY, String.valueOf(mappedStore));
+        cache = new BTreePersistentIndexedCache<String, String>(new File(cacheDir, "cache.bin"), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER);
+
+        keys = new String[entries];
+        values = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = "/home/user/projects/some-project/src/main/java/org/gradle/sample/Sample" + i + ".java";
+            values[i] = String.format("%032x", i);
+            cache.put(keys[i], values[i]);
+        }
+    }
+
+    @TearDown
+    public void closeCache() {
+        cache.close();
+        System.clearProperty(BTreePersistentIndexedCache.MAPPED_STORE_PROPERTY);
+        GFileUtils.deleteDirectory(cacheDir);
+    }
+
+    @Benchmark
+    public String get() {
+        return cache.get(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public void put() {
+        int index = nextIndex();
+        cache.put(keys[index], values[index]);
+    }
+
+    private int nextIndex() {
+        // Stride through the keys so that consecutive operations do not hit the same blocks
+        next = (next + 7919) % entries;
+        return next;
+    }
+}
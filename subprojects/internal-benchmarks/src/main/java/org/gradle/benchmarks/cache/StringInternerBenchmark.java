@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.benchmarks.cache;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures interning of file paths that are equal to, but not the same instance as, an already interned path. This is the common
+ * case when snapshotting files and reading snapshots back from the caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class StringInternerBenchmark {
+    private static final int PATHS = 10000;
+
+    private final StringInterner interner = new StringInterner();
+    private final String[] interned = new String[PATHS];
+    private final String[] copies = new String[PATHS];
+    private int next;
+
+    @Setup
+    public void internPaths() {
+        for (int i = 0; i < PATHS; i++) {
+            interned[i] = interner.intern("/home/user/projects/some-project/build/classes/main/org/gradle/sample/Sample" + i + ".class");
+            copies[i] = new String(interned[i].toCharArray());
+        }
+    }
+
+    @Benchmark
+    public String intern() {
+        next = (next + 1) % PATHS;
+        return interner.intern(copies[next]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String internConcurrently() {
+        // Races on the index are harmless here, any path will do
+        int index = (next + 1) % PATHS;
+        next = index;
+        return interner.intern(copies[index]);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.benchmarks.changedetection;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures snapshotting of files that are unchanged since they were last snapshotted, which is served from the cache, and of files
+ * that have changed, which requires hashing the file and updating the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class CachingFileSnapshotterBenchmark {
+    private static final int FILES = 1000;
+
+    @Param({"1024", "65536"})
+    int fileSize;
+
+    private File testDir;
+    private DirectTaskArtifactStateCacheAccess cacheAccess;
+    private CachingFileSnapshotter snapshotter;
+    private File[] files;
+    private int next;
+    private long timestamp;
+
+    @Setup
+    public void createFiles() throws IOException {
+        testDir = File.createTempFile("snapshotter", "benchmark");
+        GFileUtils.forceDelete(testDir);
+        GFileUtils.mkdirs(testDir);
+
+        files = new File[FILES];
+        byte[] content = new byte[fileSize];
+        for (int i = 0; i < FILES; i++) {
+            content[i % fileSize]++;
+            files[i] = new File(testDir, "file" + i + ".txt");
+            FileUtils.writeByteArrayToFile(files[i], content);
+        }
+
+        cacheAccess = new DirectTaskArtifactStateCacheAccess(testDir);
+        snapshotter = new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, new StringInterner());
+        for (File file : files) {
+            snapshotter.snapshot(file);
+        }
+    }
+
+    @TearDown
+    public void deleteFiles() {
+        cacheAccess.close();
+        GFileUtils.deleteDirectory(testDir);
+    }
+
+    @Benchmark
+    public CachingFileSnapshotter.FileInfo snapshotUnchangedFile() {
+        return snapshotter.snapshot(nextFile());
+    }
+
+    @Benchmark
+    public CachingFileSnapshotter.FileInfo snapshotChangedFile() {
+        return snapshotter.snapshot(new ChangedFile(nextFile(), ++timestamp));
+    }
+
+    private File nextFile() {
+        next = (next + 1) % FILES;
+        return files[next];
+    }
+
+    /**
+     * A file whose timestamp does not match the cached snapshot, so that the snapshotter has to hash it again.
+     */
+    private static class ChangedFile extends AbstractFileTreeElement {
+        private final File file;
+        private final long lastModified;
+
+        ChangedFile(File file, long lastModified) {
+            super(null);
+            this.file = file;
+            this.lastModified = lastModified;
+        }
+
+        public String getDisplayName() {
+            return file.getPath();
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public boolean isDirectory() {
+            return false;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getSize() {
+            return file.length();
+        }
+
+        public InputStream open() {
+            return GFileUtils.openInputStream(file);
+        }
+
+        public RelativePath getRelativePath() {
+            return new RelativePath(true, file.getName());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.benchmarks.changedetection;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter;
+import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
+import org.gradle.api.internal.file.IdentityFileResolver;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures snapshotting of a source tree whose files are unchanged since they were last snapshotted, which is what happens for the inputs
+ * of every up-to-date task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DefaultFileCollectionSnapshotterBenchmark {
+    private static final int FILES_PER_DIR = 20;
+
+    @Param({"1000", "10000"})
+    int files;
+
+    private File testDir;
+    private DirectTaskArtifactStateCacheAccess cacheAccess;
+    private DefaultFileCollectionSnapshotter snapshotter;
+    private SimpleFileCollection input;
+
+    @Setup
+    public void createTree() throws IOException {
+        testDir = File.createTempFile("snapshotter", "benchmark");
+        GFileUtils.forceDelete(testDir);
+        File sourceDir = new File(testDir, "src");
+        for (int i = 0; i < files; i++) {
+            File file = new File(sourceDir, "org/gradle/sample" + (i / FILES_PER_DIR) + "/Sample" + i + ".java");
+            GFileUtils.writeFile("class Sample" + i + " {}", file);
+        }
+        input = new SimpleFileCollection(sourceDir);
+
+        cacheAccess = new DirectTaskArtifactStateCacheAccess(testDir);
+        StringInterner stringInterner = new StringInterner();
+        CachingFileSnapshotter fileSnapshotter = new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner);
+        snapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, new IdentityFileResolver());
+        snapshotter.snapshot(input);
+    }
+
+    @TearDown
+    public void deleteTree() {
+        cacheAccess.close();
+        GFileUtils.deleteDirectory(testDir);
+    }
+
+    @Benchmark
+    public FileCollectionSnapshot snapshotUnchangedTree() {
+        return snapshotter.snapshot(input);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.benchmarks.changedetection;
+
+import org.gradle.api.internal.changedetection.state.TaskArtifactStateCacheAccess;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link TaskArtifactStateCacheAccess} that keeps its caches in the given directory and runs all actions directly, without any locking.
+ */
+class DirectTaskArtifactStateCacheAccess implements TaskArtifactStateCacheAccess {
+    private final File cacheDir;
+    private final List<BTreePersistentIndexedCache<?, ?>> caches = new ArrayList<BTreePersistentIndexedCache<?, ?>>();
+
+    DirectTaskArtifactStateCacheAccess(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public <K, V> PersistentIndexedCache<K, V> createCache(String name, Class<K> keyType, Serializer<V> valueSerializer) {
+        BTreePersistentIndexedCache<K, V> cache = new BTreePersistentIndexedCache<K, V>(new File(cacheDir, name + ".bin"), new BaseSerializerFactory().getSerializerFor(keyType), valueSerializer);
+        caches.add(cache);
+        return cache;
+    }
+
+    public <T> T useCache(String operationDisplayName, Factory<? extends T> action) {
+        return action.create();
+    }
+
+    public void useCache(String operationDisplayName, Runnable action) {
+        action.run();
+    }
+
+    public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
+        return action.create();
+    }
+
+    public void longRunningOperation(String operationDisplayName, Runnable action) {
+        action.run();
+    }
+
+    public void close() {
+        for (BTreePersistentIndexedCache<?, ?> cache : caches) {
+            cache.close();
+        }
+        caches.clear();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.benchmarks.messaging;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.launcher.daemon.protocol.DaemonMessageSerializer;
+import org.gradle.launcher.daemon.protocol.Message;
+import org.gradle.launcher.daemon.protocol.OutputMessage;
+import org.gradle.logging.internal.LogEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding of the log events that the daemon forwards to the client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DaemonMessageSerializerBenchmark {
+    private final Serializer<Message> serializer = DaemonMessageSerializer.create();
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+    private final Message message = new OutputMessage(new LogEvent(1234567890L, "org.gradle.api.Task", LogLevel.LIFECYCLE, ":compileJava UP-TO-DATE", null));
+    private byte[] encoded;
+
+    @Setup
+    public void encodeMessage() throws Exception {
+        encoded = write();
+    }
+
+    @Benchmark
+    public byte[] write() throws Exception {
+        outputStream.reset();
+        serializer.write(encoder, message);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public Message read() throws Exception {
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(encoded)));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.benchmarks.messaging;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestMethodDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.worker.TestEventSerializer;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.id.CompositeIdGenerator;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding of the events that test workers send back to the build process.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class TestEventSerializerBenchmark {
+    private final Serializer<Object[]> serializer = TestEventSerializer.create();
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+    private final CompositeIdGenerator.CompositeId testId = new CompositeIdGenerator.CompositeId(12L, 345L);
+    private final Object[] started = {new DefaultTestMethodDescriptor(testId, "org.gradle.sample.SampleTest", "canDoSomethingUseful"), new TestStartEvent(1234567890L, new CompositeIdGenerator.CompositeId(12L, 344L))};
+    private final Object[] output = {testId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "Some output from a test, as written by the test\n")};
+    private byte[] encodedStarted;
+    private byte[] encodedOutput;
+
+    @Setup
+    public void encodeEvents() throws Exception {
+        encodedStarted = write(started);
+        encodedOutput = write(output);
+    }
+
+    @Benchmark
+    public byte[] writeStarted() throws Exception {
+        return write(started);
+    }
+
+    @Benchmark
+    public byte[] writeOutput() throws Exception {
+        return write(output);
+    }
+
+    @Benchmark
+    public Object[] readStarted() throws Exception {
+        return read(encodedStarted);
+    }
+
+    @Benchmark
+    public Object[] readOutput() throws Exception {
+        return read(encodedOutput);
+    }
+
+    private byte[] write(Object[] event) throws Exception {
+        outputStream.reset();
+        serializer.write(encoder, event);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private Object[] read(byte[] encoded) throws Exception {
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(encoded)));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.benchmarks.resolve;
+
+import org.apache.ivy.core.module.descriptor.ExcludeRule;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.LatestConflictResolution;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultDependencyToConfigurationResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleConflictResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleConflictResolvers;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler;
+import org.gradle.api.internal.tasks.DefaultTaskDependency;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector;
+import org.gradle.internal.component.local.model.DefaultLocalComponentMetaData;
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier;
+import org.gradle.internal.component.model.*;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
+import org.gradle.internal.resolve.resolver.ResolveContextToComponentResolver;
+import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures traversal of a dependency graph whose meta-data is already available in memory, so that only the work done by
+ * {@link DependencyGraphBuilder} itself is measured. Each module is requested at several versions, so that conflict resolution is
+ * part of the traversal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DependencyGraphBuilderBenchmark {
+    private static final String[] VERSIONS = {"1.0", "1.1", "1.2"};
+
+    @Param({"200", "1000"})
+    int modules;
+
+    @Param({"5"})
+    int dependenciesPerModule;
+
+    private final Map<String, ComponentResolveMetaData> components = new HashMap<String, ComponentResolveMetaData>();
+    private DefaultLocalComponentMetaData root;
+    private ResolveContext resolveContext;
+
+    @Setup
+    public void createGraph() {
+        root = new DefaultLocalComponentMetaData(DefaultModuleVersionIdentifier.newId("org.gradle.benchmark", "root", "1.0"), DefaultProjectComponentIdentifier.newId(":root"), "release");
+        addDefaultConfiguration(root);
+        for (int i = 0; i < dependenciesPerModule; i++) {
+            root.addDependency(dependency(i, 0));
+        }
+
+        for (int i = 0; i < modules; i++) {
+            for (String version : VERSIONS) {
+                String name = "module" + i;
+                DefaultLocalComponentMetaData component = new DefaultLocalComponentMetaData(DefaultModuleVersionIdentifier.newId("org.gradle.benchmark", name, version),
+                    DefaultModuleComponentIdentifier.newId("org.gradle.benchmark", name, version), "release");
+                addDefaultConfiguration(component);
+                // Depend on modules further down the graph, requesting different versions from different modules
+                for (int j = 1; j <= dependenciesPerModule && i + j * 7 < modules; j++) {
+                    component.addDependency(dependency(i + j * 7, i + j));
+                }
+                components.put(key(name, version), component);
+            }
+        }
+
+        resolveContext = new ResolveContext() {
+            public String getName() {
+                return "default";
+            }
+
+            public String getDisplayName() {
+                return "configuration ':root:default'";
+            }
+
+            public ResolutionStrategyInternal getResolutionStrategy() {
+                throw new UnsupportedOperationException();
+            }
+
+            public ComponentResolveMetaData toRootComponentMetaData() {
+                return root;
+            }
+        };
+    }
+
+    @Benchmark
+    public int resolve() {
+        ModuleConflictResolver conflictResolver = ModuleConflictResolvers.create(new LatestConflictResolution(), new DefaultVersionComparator());
+        DependencyGraphBuilder builder = new DependencyGraphBuilder(new InMemoryIdResolver(), new InMemoryMetaDataResolver(), new RootResolver(),
+            new DefaultDependencyToConfigurationResolver(), new DefaultConflictHandler(conflictResolver, ModuleReplacementsData.NO_OP));
+        CountingVisitor visitor = new CountingVisitor();
+        builder.resolve(resolveContext, visitor);
+        return visitor.nodes;
+    }
+
+    private static void addDefaultConfiguration(DefaultLocalComponentMetaData component) {
+        component.addConfiguration("default", "default configuration", Collections.<String>emptySet(), Collections.singleton("default"), true, true, new DefaultTaskDependency());
+    }
+
+    private static DependencyMetaData dependency(int module, int variant) {
+        ModuleVersionSelector selector = DefaultModuleVersionSelector.newSelector("org.gradle.benchmark", "module" + module, VERSIONS[variant % VERSIONS.length]);
+        return new LocalComponentDependencyMetaData(DefaultModuleComponentSelector.newSelector(selector), selector, "default", "default",
+            Collections.<IvyArtifactName>emptySet(), new ExcludeRule[0], false, false, true);
+    }
+
+    private static String key(String name, String version) {
+        return name + ":" + version;
+    }
+
+    private class InMemoryIdResolver implements DependencyToComponentIdResolver {
+        public void resolve(DependencyMetaData dependency, BuildableComponentIdResolveResult result) {
+            ModuleVersionSelector requested = dependency.getRequested();
+            result.resolved(components.get(key(requested.getName(), requested.getVersion())));
+        }
+    }
+
+    private class InMemoryMetaDataResolver implements ComponentMetaDataResolver {
+        public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+            DefaultModuleComponentIdentifier id = (DefaultModuleComponentIdentifier) identifier;
+            result.resolved(components.get(key(id.getModule(), id.getVersion())));
+        }
+    }
+
+    private class RootResolver implements ResolveContextToComponentResolver {
+        public void resolve(ResolveContext resolveContext, BuildableComponentResolveResult result) {
+            result.resolved(resolveContext.toRootComponentMetaData());
+        }
+    }
+
+    private static class CountingVisitor implements DependencyGraphVisitor {
+        int nodes;
+
+        public void start(DependencyGraphNode root) {
+        }
+
+        public void visitNode(DependencyGraphNode resolvedConfiguration) {
+            nodes++;
+        }
+
+        public void visitEdge(DependencyGraphNode resolvedConfiguration) {
+        }
+
+        public void finish(DependencyGraphNode root) {
+        }
+    }
+}
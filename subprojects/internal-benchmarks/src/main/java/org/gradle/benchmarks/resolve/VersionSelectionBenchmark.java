@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.benchmarks.resolve;
+
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelector;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures choosing a version for a dynamic selector from a long version listing, the way a module with a long release history on
+ * Maven Central is resolved: the listing is sorted latest first, then the selector is matched against each candidate in turn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class VersionSelectionBenchmark {
+    private static final String[] QUALIFIERS = {"-alpha-1", "-beta-2", "-rc1", "-RC2", ".Final", "-SNAPSHOT"};
+
+    @Param({"600"})
+    int versions;
+
+    private final DefaultVersionComparator versionComparator = new DefaultVersionComparator();
+    private final VersionSelectorScheme versionSelectorScheme = new DefaultVersionSelectorScheme(versionComparator);
+    private final List<String> listing = new ArrayList<String>();
+
+    @Setup
+    public void createListing() {
+        // Listings are mostly in release order, with the odd qualified version in between
+        int major = 1;
+        int minor = 0;
+        int patch = 0;
+        while (listing.size() < versions) {
+            String version = major + "." + minor + "." + patch;
+            if (patch == 0 && minor % 3 == 0) {
+                listing.add(version + QUALIFIERS[listing.size() % QUALIFIERS.length]);
+            }
+            listing.add(version);
+            if (++patch == 5) {
+                patch = 0;
+                if (++minor == 12) {
+                    minor = 0;
+                    major++;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<String> sortLatestFirst() {
+        return sort();
+    }
+
+    @Benchmark
+    public String selectFromRange() {
+        return select("[3.0,7.5)");
+    }
+
+    @Benchmark
+    public String selectFromOpenRange() {
+        return select("[4.2,)");
+    }
+
+    @Benchmark
+    public String selectSubVersion() {
+        return select("5.3.+");
+    }
+
+    private String select(String selectorString) {
+        VersionSelector selector = versionSelectorScheme.parseSelector(selectorString);
+        for (String candidate : sort()) {
+            if (selector.accept(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private List<String> sort() {
+        List<String> sorted = new ArrayList<String>(listing);
+        Comparator<String> latestFirst = Collections.reverseOrder(versionComparator.asStringComparator());
+        Collections.sort(sorted, latestFirst);
+        return sorted;
+    }
+}
@@ -16,11 +16,10 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.analyzer;
 
+import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.hash.Hasher;
 import org.gradle.internal.Factory;
 
-import java.io.File;
-
 public class CachingClassDependenciesAnalyzer implements ClassDependenciesAnalyzer {
 
     private final ClassDependenciesAnalyzer analyzer;
@@ -33,7 +32,7 @@ public class CachingClassDependenciesAnalyzer implements ClassDependenciesAnalyz
         this.cache = cache;
     }
 
-    public ClassAnalysis getClassAnalysis(final String className, final File classFile) {
+    public ClassAnalysis getClassAnalysis(final String className, final FileTreeElement classFile) {
         byte[] hash = hasher.hash(classFile);
         return cache.get(hash, new Factory<ClassAnalysis>() {
             public ClassAnalysis create() {
@@ -21,10 +21,6 @@ import org.gradle.api.file.FileVisitor;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
 
-import java.io.File;
-
-import static org.gradle.internal.FileUtils.hasExtension;
-
 public class ClassFilesAnalyzer implements FileVisitor {
 
     private final ClassDependenciesAnalyzer analyzer;
@@ -44,16 +40,16 @@ public class ClassFilesAnalyzer implements FileVisitor {
     public void visitDir(FileVisitDetails dirDetails) {}
 
     public void visitFile(FileVisitDetails fileDetails) {
-        File file = fileDetails.getFile();
-        if (!hasExtension(file, ".class")) {
+        String path = fileDetails.getPath();
+        if (!path.endsWith(".class")) {
             return;
         }
-        String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
+        String className = path.replaceAll("/", ".").replaceAll("\\.class$", "");
         if (!className.startsWith(packagePrefix)) {
             return;
         }
 
-        ClassAnalysis analysis = analyzer.getClassAnalysis(className, file);
+        ClassAnalysis analysis = analyzer.getClassAnalysis(className, fileDetails);
         accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
     }
 
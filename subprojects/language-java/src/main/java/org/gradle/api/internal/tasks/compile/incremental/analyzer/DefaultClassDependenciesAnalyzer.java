@@ -16,12 +16,11 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.analyzer;
 
+import org.gradle.api.file.FileTreeElement;
 import org.gradle.util.GFileUtils;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashSet;
@@ -64,12 +63,13 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
         return out;
     }
 
-    public ClassAnalysis getClassAnalysis(String className, File classFile) {
-        FileInputStream input = GFileUtils.openInputStream(classFile);
+    public ClassAnalysis getClassAnalysis(String className, FileTreeElement classFile) {
+        // Read through the element rather than its file, so that classes in a jar are not extracted
+        InputStream input = classFile.open();
         try {
             return getClassAnalysis(className, input);
         } catch (IOException e) {
-            throw new RuntimeException("Problems loading class analysis for '" + className + "' from file: " + classFile);
+            throw new RuntimeException("Problems loading class analysis for '" + className + "' from " + classFile);
         } finally {
             GFileUtils.closeInputStream(input);
         }
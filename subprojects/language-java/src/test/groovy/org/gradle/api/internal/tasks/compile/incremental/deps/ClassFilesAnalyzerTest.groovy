@@ -51,11 +51,10 @@ class ClassFilesAnalyzerTest extends Specification {
     def "accumulates dependencies"() {
         def details = Stub(FileVisitDetails) {
             getPath() >> "org/foo/Foo.class"
-            getFile() >> new File("Foo.class")
         }
         when: analyzer.visitFile(details)
         then:
-        1 * classAnalyzer.getClassAnalysis("org.foo.Foo", new File("Foo.class")) >> new ClassAnalysis(new HashSet(["A"]), true)
+        1 * classAnalyzer.getClassAnalysis("org.foo.Foo", details) >> new ClassAnalysis(new HashSet(["A"]), true)
         1 * accumulator.addClass("org.foo.Foo", true, new HashSet(["A"]))
         0 * _
     }
@@ -18,6 +18,8 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.jar
 
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.internal.file.archive.ZipFileTree
 import org.gradle.api.internal.file.collections.DirectoryFileTree
 import org.gradle.api.internal.file.collections.FileTreeAdapter
 import org.gradle.api.internal.hash.Hasher
@@ -55,8 +57,8 @@ class DefaultJarSnapshotterTest extends Specification {
 
         then:
         2 * analyzer.visitFile(_)
-        1 * hasher.hash(f1)
-        1 * hasher.hash(f2)
+        1 * hasher.hash({ it instanceof FileTreeElement && it.file == f1 })
+        1 * hasher.hash({ it instanceof FileTreeElement && it.file == f2 })
         1 * analyzer.getAnalysis() >> Stub(ClassSetAnalysisData)
         0 * _._
 
@@ -64,4 +66,26 @@ class DefaultJarSnapshotterTest extends Specification {
         snapshot.hashes.keySet() == ["Foo", "com.Foo2"] as Set
         snapshot.analysis
     }
+
+    def "creates snapshot of a jar without extracting its classes"() {
+        def contents = temp.createDir("contents")
+        contents.createFile("foo/Foo.class").text = "foo"
+        def jar = temp.file("foo.jar")
+        contents.zipTo(jar)
+        def expandDir = temp.file("expanded")
+        def analyzer = Mock(ClassFilesAnalyzer)
+
+        when:
+        def snapshot = snapshotter.createSnapshot(new byte[0], new FileTreeAdapter(new ZipFileTree(jar, expandDir, null)), analyzer)
+
+        then:
+        1 * analyzer.visitFile(_)
+        1 * hasher.hash({ it instanceof FileTreeElement && it.open().text == "foo" }) >> new byte[0]
+        1 * analyzer.getAnalysis() >> Stub(ClassSetAnalysisData)
+        0 * _._
+
+        and:
+        snapshot.hashes.keySet() == ["foo.Foo"] as Set
+        !expandDir.exists()
+    }
 }
@@ -48,21 +48,19 @@ public class ContinuousBuildActionExecuter implements BuildExecuter {
     private final BuildActionExecuter<BuildActionParameters> delegate;
     private final ListenerManager listenerManager;
     private final OperatingSystem operatingSystem;
-    private final FileSystemChangeWaiterFactory changeWaiterFactory;
     private final ExecutorFactory executorFactory;
     private final JavaVersion javaVersion;
     private final StyledTextOutput logger;
 
-    public ContinuousBuildActionExecuter(BuildActionExecuter<BuildActionParameters> delegate, FileWatcherFactory fileWatcherFactory, ListenerManager listenerManager, StyledTextOutputFactory styledTextOutputFactory, ExecutorFactory executorFactory) {
-        this(delegate, listenerManager, styledTextOutputFactory, JavaVersion.current(), OperatingSystem.current(), executorFactory, new DefaultFileSystemChangeWaiterFactory(fileWatcherFactory));
+    public ContinuousBuildActionExecuter(BuildActionExecuter<BuildActionParameters> delegate, ListenerManager listenerManager, StyledTextOutputFactory styledTextOutputFactory, ExecutorFactory executorFactory) {
+        this(delegate, listenerManager, styledTextOutputFactory, JavaVersion.current(), OperatingSystem.current(), executorFactory);
     }
 
-    ContinuousBuildActionExecuter(BuildActionExecuter<BuildActionParameters> delegate, ListenerManager listenerManager, StyledTextOutputFactory styledTextOutputFactory, JavaVersion javaVersion, OperatingSystem operatingSystem, ExecutorFactory executorFactory, FileSystemChangeWaiterFactory changeWaiterFactory) {
+    ContinuousBuildActionExecuter(BuildActionExecuter<BuildActionParameters> delegate, ListenerManager listenerManager, StyledTextOutputFactory styledTextOutputFactory, JavaVersion javaVersion, OperatingSystem operatingSystem, ExecutorFactory executorFactory) {
         this.delegate = delegate;
         this.listenerManager = listenerManager;
         this.javaVersion = javaVersion;
         this.operatingSystem = operatingSystem;
-        this.changeWaiterFactory = changeWaiterFactory;
         this.executorFactory = executorFactory;
         this.logger = styledTextOutputFactory.create(ContinuousBuildActionExecuter.class, LogLevel.LIFECYCLE);
     }
@@ -100,6 +98,8 @@ public class ContinuousBuildActionExecuter implements BuildExecuter {
             cancellableOperationManager = new PassThruCancellableOperationManager(cancellationToken);
         }
 
+        // The change waiters use the file watcher of the build session, which also tells the session's caches about changes between builds
+        FileSystemChangeWaiterFactory changeWaiterFactory = createChangeWaiterFactory(buildSessionScopeServices);
         Object lastResult = null;
         int counter = 0;
         while (!cancellationToken.isCancellationRequested()) {
@@ -152,6 +152,10 @@ public class ContinuousBuildActionExecuter implements BuildExecuter {
         return lastResult;
     }
 
+    protected FileSystemChangeWaiterFactory createChangeWaiterFactory(ServiceRegistry buildSessionScopeServices) {
+        return buildSessionScopeServices.get(FileSystemChangeWaiterFactory.class);
+    }
+
     public String determineExitHint(BuildActionParameters actionParameters) {
         if (actionParameters.isInteractive()) {
             if (operatingSystem.isWindows()) {
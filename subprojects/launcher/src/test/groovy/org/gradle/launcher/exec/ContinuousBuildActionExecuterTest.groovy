@@ -265,7 +265,12 @@ class ContinuousBuildActionExecuterTest extends Specification {
     }
 
     private ContinuousBuildActionExecuter executer(JavaVersion javaVersion = JavaVersion.VERSION_1_7) {
-        new ContinuousBuildActionExecuter(delegate, listenerManager, new TestStyledTextOutputFactory(), javaVersion, OperatingSystem.current(), executorFactory, waiterFactory)
+        new ContinuousBuildActionExecuter(delegate, listenerManager, new TestStyledTextOutputFactory(), javaVersion, OperatingSystem.current(), executorFactory) {
+            @Override
+            protected FileSystemChangeWaiterFactory createChangeWaiterFactory(ServiceRegistry buildSessionScopeServices) {
+                waiterFactory
+            }
+        }
     }
 
 }
@@ -145,11 +145,20 @@ public class BaseSerializerFactory {
 
     private static class ThrowableSerializer implements Serializer<Throwable> {
         public Throwable read(Decoder decoder) throws Exception {
+            if (!decoder.readBoolean()) {
+                return null;
+            }
             return (Throwable) Message.receive(decoder.getInputStream(), getClass().getClassLoader());
         }
 
         public void write(Encoder encoder, Throwable value) throws Exception {
-            Message.send(value, encoder.getOutputStream());
+            // Most values are null (e.g. log events without a failure), so avoid creating an object stream for these
+            if (value == null) {
+                encoder.writeBoolean(false);
+            } else {
+                encoder.writeBoolean(true);
+                Message.send(value, encoder.getOutputStream());
+            }
         }
     }
 }
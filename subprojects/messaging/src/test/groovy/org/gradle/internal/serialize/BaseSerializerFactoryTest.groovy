@@ -79,4 +79,21 @@ class BaseSerializerFactoryTest extends SerializerSpec {
         usesEfficientSerialization(true, factory.getSerializerFor(Boolean))
         !usesEfficientSerialization(false, factory.getSerializerFor(Boolean))
     }
+
+    def "serializes Throwables"() {
+        def serializer = factory.getSerializerFor(Throwable)
+
+        expect:
+        def result = serialize(new IllegalArgumentException("broken"), serializer)
+        result instanceof IllegalArgumentException
+        result.message == "broken"
+    }
+
+    def "uses efficient serialization for null Throwable"() {
+        def serializer = factory.getSerializerFor(Throwable)
+
+        expect:
+        toBytes(null, serializer).length == 1
+        serialize(null, serializer) == null
+    }
 }
@@ -21,6 +21,7 @@ import org.gradle.integtests.fixtures.executer.UnderDevelopmentGradleDistributio
 import org.gradle.performance.categories.BasicPerformanceTest
 import org.gradle.test.fixtures.ConcurrentTestUtil
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.maven.MavenFileRepository
 import org.junit.Rule
 import org.junit.experimental.categories.Category
 import org.junit.rules.ExternalResource
@@ -91,6 +92,65 @@ task check << {
         concurrent.finished()
     }
 
+    def "retains the resolution results of many configurations in a small heap"() {
+        given:
+        def projects = 200
+        def configurationsPerProject = 20
+        def modules = 150
+        def maxRetainedMb = 128
+        def repo = new MavenFileRepository(workspace.file("repo"))
+        modules.times { i ->
+            def module = repo.module("org.test", "module$i", "1.0")
+            (1..3).each { offset ->
+                if (i + offset < modules) {
+                    module.dependsOn("org.test", "module${i + offset}", "1.0")
+                }
+            }
+            module.publish()
+        }
+
+        def buildDir = workspace.file("build")
+        buildDir.file("settings.gradle") << "include ${(0..<projects).collect { "'project$it'" }.join(', ')}"
+        buildDir.file("build.gradle") << """
+subprojects { p ->
+    def index = p.name.substring('project'.length()) as int
+    repositories {
+        maven { url '${repo.uri}' }
+    }
+    ${configurationsPerProject}.times { c ->
+        configurations.create("conf\$c")
+        dependencies.add("conf\$c", "org.test:module\${(index + c) % 50}:1.0")
+    }
+}
+
+task resolveAll << {
+    def retained = []
+    subprojects.each { p ->
+        p.configurations.each { c ->
+            retained << c.resolvedConfiguration.firstLevelModuleDependencies
+        }
+    }
+    3.times { System.gc() }
+    def runtime = Runtime.runtime
+    file("heap.txt").text = "\${retained.size()} \${(runtime.totalMemory() - runtime.freeMemory()).intdiv(1024 * 1024)}"
+}
+"""
+
+        when:
+        distribution.executer(workspace).
+                requireGradleHome().
+                withGradleUserHomeDir(workspace.file("user-home")).
+                withBuildJvmOpts("-Xmx256m").
+                inDirectory(buildDir).
+                withTasks("resolveAll").
+                run()
+        def (retainedConfigurations, retainedMb) = buildDir.file("heap.txt").text.tokenize().collect { it as int }
+
+        then:
+        retainedConfigurations == projects * configurationsPerProject
+        retainedMb < maxRetainedMb
+    }
+
     static class StressHttpServer extends ExternalResource {
         final Server server = new Server(0)
         final Resources resources = new Resources()
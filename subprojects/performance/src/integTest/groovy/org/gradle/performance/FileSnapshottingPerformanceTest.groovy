@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.gradle.performance.categories.Experiment
+import org.gradle.performance.fixture.BuildExperimentInvocationInfo
+import org.gradle.performance.fixture.BuildExperimentListenerAdapter
+import org.junit.experimental.categories.Category
+import spock.lang.Unroll
+
+@Category(Experiment)
+class FileSnapshottingPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    @Unroll("Up-to-date build with touched sources - #workers workers")
+    def "serial vs parallel file snapshotting"() {
+        given:
+        runner.testId = "up-to-date build with touched sources $workers workers"
+        runner.testGroup = "file snapshotting"
+        runner.buildSpec {
+            projectName("largeSrc").displayName("parallel snapshotting").invocation {
+                tasksToRun("assemble").args("--max-workers=$workers", "-Dorg.gradle.snapshotting.parallel=true").useDaemon()
+            }.listener(new TouchSourceFiles())
+        }
+        runner.baseline {
+            projectName("largeSrc").displayName("serial snapshotting").invocation {
+                tasksToRun("assemble").args("--max-workers=$workers").useDaemon()
+            }.listener(new TouchSourceFiles())
+        }
+
+        when:
+        runner.run()
+
+        then:
+        noExceptionThrown()
+
+        where:
+        workers << [2, 4, 8, 16]
+    }
+
+    /**
+     * Updates the timestamp of every source file before each build, so that all cached file hashes are out of date but the task stays up-to-date.
+     */
+    private static class TouchSourceFiles extends BuildExperimentListenerAdapter {
+        @Override
+        void beforeInvocation(BuildExperimentInvocationInfo invocationInfo) {
+            def timestamp = System.currentTimeMillis()
+            new File(invocationInfo.projectDir, "src").eachFileRecurse { File file ->
+                if (file.file) {
+                    file.setLastModified(timestamp)
+                }
+            }
+        }
+    }
+}
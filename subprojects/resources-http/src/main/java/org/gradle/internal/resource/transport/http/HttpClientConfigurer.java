@@ -49,6 +49,7 @@ import org.gradle.util.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.SSLContext;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
@@ -74,7 +75,11 @@ public class HttpClientConfigurer {
     }
 
     private void configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory) {
-        builder.setSSLSocketFactory(new SSLConnectionSocketFactory(sslContextFactory.createSslContext(), new DefaultHostnameVerifier(null)));
+        builder.setSSLSocketFactory(createSslSocketFactory(sslContextFactory.createSslContext()));
+    }
+
+    static SSLConnectionSocketFactory createSslSocketFactory(SSLContext sslContext) {
+        return new SSLConnectionSocketFactory(sslContext, new DefaultHostnameVerifier(null));
     }
 
     private void configureAuthSchemeRegistry(HttpClientBuilder builder) {
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides some convenience and unified logging.
@@ -41,9 +42,18 @@ public class HttpClientHelper implements Closeable {
     private CloseableHttpClient client;
     private final BasicHttpContext httpContext = new BasicHttpContext();
     private final HttpSettings settings;
+    private final HttpConnectionPool connectionPool;
 
     public HttpClientHelper(HttpSettings settings) {
+        this(settings, null);
+    }
+
+    /**
+     * Creates a helper whose client uses the given shared connection pool, when not null, rather than a connection pool of its own.
+     */
+    public HttpClientHelper(HttpSettings settings, HttpConnectionPool connectionPool) {
         this.settings = settings;
+        this.connectionPool = connectionPool;
     }
 
     public HttpResponse performRawHead(String source) {
@@ -99,7 +109,14 @@ public class HttpClientHelper implements Closeable {
         // Without this, HTTP Client prohibits multiple redirects to the same location within the same context
         httpContext.removeAttribute(HttpClientContext.REDIRECT_LOCATIONS);
         LOGGER.debug("Performing HTTP {}: {}", request.getMethod(), request.getURI());
-        return getClient().execute(request, httpContext);
+        long start = System.nanoTime();
+        HttpResponse response = getClient().execute(request, httpContext);
+        if (connectionPool != null) {
+            long timeToFirstByte = System.nanoTime() - start;
+            connectionPool.requestPerformed(timeToFirstByte);
+            LOGGER.debug("Received HTTP response headers after {}ms.", TimeUnit.NANOSECONDS.toMillis(timeToFirstByte));
+        }
+        return response;
     }
 
     private HttpResponse processResponse(String source, String method, HttpResponse response) {
@@ -121,6 +138,10 @@ public class HttpClientHelper implements Closeable {
             HttpClientBuilder builder = HttpClientBuilder.create();
             builder.setRedirectStrategy(new AlwaysRedirectRedirectStrategy());
             new HttpClientConfigurer(settings).configure(builder);
+            if (connectionPool != null) {
+                builder.setConnectionManager(connectionPool.getConnectionManager(settings.getSslContextFactory().createSslContext()));
+                builder.setConnectionManagerShared(true);
+            }
             this.client = builder.build();
         }
         return client;
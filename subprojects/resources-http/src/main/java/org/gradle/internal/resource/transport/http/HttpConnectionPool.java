@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of HTTP connections shared by all the HTTP clients created in this process, so that connections to a repository are kept
+ * alive and reused by later requests, from the same or another repository on that host and from later builds run by the daemon.
+ *
+ * <p>The number of connections is limited per host, by the {@value #MAX_CONNECTIONS_PER_HOST_PROPERTY} system property, and in total,
+ * by the {@value #MAX_CONNECTIONS_PROPERTY} system property. Connections that have been idle for a while are closed, and connections
+ * that have been idle for a short while are checked before being reused.</p>
+ *
+ * <p>When the SSL context changes, a new pool is started. The old pool is shut down once the connections in use have been released to it.</p>
+ *
+ * <p>Also keeps count of the requests made, of the connections opened for them, and of the time it took to receive the response headers.
+ * These figures are reported for each build by {@link HttpConnectionPoolBuildStatistics}.</p>
+ */
+public class HttpConnectionPool implements Stoppable {
+    public static final String MAX_CONNECTIONS_PER_HOST_PROPERTY = "org.gradle.internal.http.connectionsPerHost";
+    public static final String MAX_CONNECTIONS_PROPERTY = "org.gradle.internal.http.connections";
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionPool.class);
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    private static final int DEFAULT_MAX_CONNECTIONS = 100;
+    private static final long IDLE_TIMEOUT_SECONDS = 60;
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong openedConnections = new AtomicLong();
+    private final AtomicLong timeToFirstByteNanos = new AtomicLong();
+    private final List<PoolingHttpClientConnectionManager> replacedConnectionManagers = new ArrayList<PoolingHttpClientConnectionManager>();
+    private PoolingHttpClientConnectionManager connectionManager;
+    private SSLContext sslContext;
+
+    /**
+     * Returns the connection manager to use for a client with the given SSL context. The manager is shared, so the client must not shut it down.
+     */
+    public synchronized HttpClientConnectionManager getConnectionManager(SSLContext sslContext) {
+        if (connectionManager != null && this.sslContext != sslContext) {
+            // The SSL settings have changed, connections in use are left alone and the old pool is shut down once they are released
+            replacedConnectionManagers.add(connectionManager);
+            connectionManager = null;
+        }
+        shutdownReleasedConnectionManagers();
+        if (connectionManager == null) {
+            connectionManager = createConnectionManager(sslContext);
+            this.sslContext = sslContext;
+        }
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return connectionManager;
+    }
+
+    private void shutdownReleasedConnectionManagers() {
+        Iterator<PoolingHttpClientConnectionManager> iterator = replacedConnectionManagers.iterator();
+        while (iterator.hasNext()) {
+            PoolingHttpClientConnectionManager replacedConnectionManager = iterator.next();
+            if (replacedConnectionManager.getTotalStats().getLeased() == 0) {
+                replacedConnectionManager.shutdown();
+                iterator.remove();
+            } else {
+                replacedConnectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private PoolingHttpClientConnectionManager createConnectionManager(SSLContext sslContext) {
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", HttpClientConfigurer.createSslSocketFactory(sslContext))
+            .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactories, new CountingConnectionFactory());
+        connectionManager.setDefaultMaxPerRoute(Integer.getInteger(MAX_CONNECTIONS_PER_HOST_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_HOST));
+        connectionManager.setMaxTotal(Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+        return connectionManager;
+    }
+
+    void requestPerformed(long timeToFirstByteNanos) {
+        requests.incrementAndGet();
+        this.timeToFirstByteNanos.addAndGet(timeToFirstByteNanos);
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getOpenedConnections() {
+        return openedConnections.get();
+    }
+
+    /**
+     * Returns the number of requests that were sent over a connection opened for an earlier request.
+     */
+    public long getReusedConnections() {
+        return Math.max(0, requests.get() - openedConnections.get());
+    }
+
+    public long getAverageTimeToFirstByteMillis() {
+        return averageMillis(timeToFirstByteNanos.get(), requests.get());
+    }
+
+    long getTimeToFirstByteNanos() {
+        return timeToFirstByteNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return format(getRequests(), getOpenedConnections(), getTimeToFirstByteNanos());
+    }
+
+    static String format(long requests, long openedConnections, long timeToFirstByteNanos) {
+        return String.format("Requests: %s, connections opened: %s, reused: %s, average time to first byte: %sms",
+            requests, openedConnections, Math.max(0, requests - openedConnections), averageMillis(timeToFirstByteNanos, requests));
+    }
+
+    private static long averageMillis(long nanos, long count) {
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos / count);
+    }
+
+    public synchronized void stop() {
+        for (PoolingHttpClientConnectionManager replacedConnectionManager : replacedConnectionManagers) {
+            replacedConnectionManager.shutdown();
+        }
+        replacedConnectionManagers.clear();
+        if (connectionManager != null) {
+            LOGGER.debug("Closing HTTP connection pool. {}", this);
+            connectionManager.shutdown();
+            connectionManager = null;
+        }
+    }
+
+    private class CountingConnectionFactory implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> {
+        public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+            openedConnections.incrementAndGet();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.Stoppable;
+
+/**
+ * Reports the requests made through the daemon scoped {@link HttpConnectionPool} during a build, at the end of that build.
+ */
+public class HttpConnectionPoolBuildStatistics implements Stoppable {
+    private static final Logger LOG = Logging.getLogger(HttpConnectionPoolBuildStatistics.class);
+
+    private final HttpConnectionPool connectionPool;
+    private final long requestsAtStart;
+    private final long openedConnectionsAtStart;
+    private final long timeToFirstByteNanosAtStart;
+
+    public HttpConnectionPoolBuildStatistics(HttpConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        this.requestsAtStart = connectionPool.getRequests();
+        this.openedConnectionsAtStart = connectionPool.getOpenedConnections();
+        this.timeToFirstByteNanosAtStart = connectionPool.getTimeToFirstByteNanos();
+    }
+
+    @Override
+    public String toString() {
+        return HttpConnectionPool.format(connectionPool.getRequests() - requestsAtStart,
+            connectionPool.getOpenedConnections() - openedConnectionsAtStart,
+            connectionPool.getTimeToFirstByteNanos() - timeToFirstByteNanosAtStart);
+    }
+
+    public void stop() {
+        if (connectionPool.getRequests() > requestsAtStart) {
+            LOG.lifecycle("HTTP connection pool used by this build. {}", this);
+        } else {
+            LOG.debug("HTTP connection pool not used by this build.");
+        }
+    }
+}
@@ -35,6 +35,7 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
 
     public void registerBuildServices(ServiceRegistration registration) {
         registration.addProvider(new AuthenticationSchemeAction());
+        registration.addProvider(new BuildScopeServices());
     }
 
     public void registerGradleServices(ServiceRegistration registration) {
@@ -48,8 +49,18 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
             return new DefaultSslContextFactory();
         }
 
-        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory) {
-            return new HttpConnectorFactory(sslContextFactory);
+        HttpConnectionPool createHttpConnectionPool() {
+            return new HttpConnectionPool();
+        }
+
+        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpConnectionPool connectionPool) {
+            return new HttpConnectorFactory(sslContextFactory, connectionPool);
+        }
+    }
+
+    private static class BuildScopeServices {
+        public void configure(ServiceRegistration registration, HttpConnectionPool connectionPool) {
+            registration.add(HttpConnectionPoolBuildStatistics.class, new HttpConnectionPoolBuildStatistics(connectionPool));
         }
     }
 
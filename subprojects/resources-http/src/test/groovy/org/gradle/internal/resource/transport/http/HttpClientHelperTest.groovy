@@ -16,16 +16,25 @@
 
 package org.gradle.internal.resource.transport.http
 
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.HttpHost
 import org.apache.http.HttpResponse
 import org.apache.http.client.methods.HttpGet
 import org.apache.http.client.methods.HttpRequestBase
+import org.apache.http.conn.routing.HttpRoute
 import org.apache.http.ssl.SSLContexts
+import org.apache.http.util.EntityUtils
 import org.gradle.util.SetSystemProperties
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.TimeUnit
+
 class HttpClientHelperTest extends Specification {
     @Rule SetSystemProperties sysProp = new SetSystemProperties()
+    def sslContext = SSLContexts.createDefault()
 
     def "throws HttpRequestException if an IO error occurs during a request"() {
         def client = new HttpClientHelper(httpSettings) {
@@ -43,12 +52,78 @@ class HttpClientHelperTest extends Specification {
         e.cause.message == "ouch"
     }
 
+    def "clients share and reuse the connections of a connection pool"() {
+        def server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/", new HttpHandler() {
+            void handle(HttpExchange exchange) {
+                def content = "content".bytes
+                exchange.sendResponseHeaders(200, content.length)
+                exchange.responseBody.withStream { it.write(content) }
+            }
+        })
+        server.start()
+        def uri = "http://localhost:${server.address.port}/repo/"
+        def connectionPool = new HttpConnectionPool()
+
+        when:
+        [new HttpClientHelper(httpSettings, connectionPool), new HttpClientHelper(httpSettings, connectionPool)].each { client ->
+            EntityUtils.consume(client.performGet(uri + "file.txt").entity)
+        }
+
+        then:
+        connectionPool.requests == 2
+        connectionPool.reusedConnections == 1
+
+        cleanup:
+        connectionPool.stop()
+        server.stop(0)
+    }
+
+    def "shuts down the connections of a replaced SSL context once they are released"() {
+        def connectionPool = new HttpConnectionPool()
+        def route = new HttpRoute(new HttpHost("localhost", 80))
+        def first = connectionPool.getConnectionManager(sslContext)
+        def connection = first.requestConnection(route, null).get(0, TimeUnit.SECONDS)
+
+        when:
+        def second = connectionPool.getConnectionManager(SSLContexts.createDefault())
+
+        then:
+        second != first
+        first.totalStats.leased == 1
+
+        when:
+        first.releaseConnection(connection, null, 0, TimeUnit.SECONDS)
+        connectionPool.getConnectionManager(sslContext)
+        first.requestConnection(route, null)
+
+        then:
+        thrown(IllegalStateException)
+
+        cleanup:
+        connectionPool.stop()
+    }
+
+    def "reports the requests made during a build"() {
+        def connectionPool = new HttpConnectionPool()
+        connectionPool.requestPerformed(TimeUnit.MILLISECONDS.toNanos(10))
+
+        when:
+        def statistics = new HttpConnectionPoolBuildStatistics(connectionPool)
+        connectionPool.requestPerformed(TimeUnit.MILLISECONDS.toNanos(20))
+        connectionPool.requestPerformed(TimeUnit.MILLISECONDS.toNanos(40))
+
+        then:
+        statistics.toString() == "Requests: 2, connections opened: 0, reused: 2, average time to first byte: 30ms"
+        connectionPool.requests == 3
+    }
+
     private HttpSettings getHttpSettings() {
         return Stub(HttpSettings) {
             getProxySettings() >> Mock(HttpProxySettings)
             getSecureProxySettings() >> Mock(HttpProxySettings)
             getSslContextFactory() >> Mock(SslContextFactory) {
-                createSslContext() >> SSLContexts.createDefault()
+                createSslContext() >> sslContext
             }
         }
     }
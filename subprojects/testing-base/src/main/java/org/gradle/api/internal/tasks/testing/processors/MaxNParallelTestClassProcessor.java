@@ -16,10 +16,16 @@
 
 package org.gradle.api.internal.tasks.testing.processors;
 
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.UncheckedException;
 import org.gradle.messaging.actor.Actor;
@@ -27,26 +33,76 @@ import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.messaging.dispatch.DispatchException;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
  * processors.
+ *
+ * <p>When the durations of the test classes in a previous run are provided, the processors are instead started as soon as the first test class
+ * is received, and each test class is assigned to the processor with the least expected load. Test classes that did not run previously are
+ * assigned as they are received, and are expected to take the average duration. The other test classes are collected, and the longest one
+ * collected so far is assigned whenever a processor has nothing to run, so that no processor waits for the remaining test classes to be found.
+ * Once all test classes have been received, the collected ones are assigned longest first. The load of each processor is logged at the end.
+ * This is enabled by the {@value #FORK_BALANCING_PROPERTY} system property.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+    public static final String FORK_BALANCING_PROPERTY = "org.gradle.test.balanceforks";
+    private static final Logger LOGGER = Logging.getLogger(MaxNParallelTestClassProcessor.class);
+
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> previousDurations;
+    private final long defaultDuration;
     private TestResultProcessor resultProcessor;
     private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
+    private final Object lock = new Object();
+    private final List<TestClassRunInfo> pendingTestClasses = new ArrayList<TestClassRunInfo>();
+    private final List<ProcessorLoad> loads = new ArrayList<ProcessorLoad>();
+    private final Comparator<TestClassRunInfo> longestFirst = new Comparator<TestClassRunInfo>() {
+        public int compare(TestClassRunInfo left, TestClassRunInfo right) {
+            int result = previousDurations.get(right.getTestClassName()).compareTo(previousDurations.get(left.getTestClassName()));
+            return result != 0 ? result : left.getTestClassName().compareTo(right.getTestClassName());
+        }
+    };
+    private long startTime;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, Collections.<String, Long>emptyMap());
+    }
+
+    /**
+     * @param previousDurations The duration in milliseconds of each test class in a previous run, keyed by class name. When empty, test classes are assigned round-robin.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.previousDurations = previousDurations;
+        this.defaultDuration = getAverageDuration(previousDurations);
+    }
+
+    private static long getAverageDuration(Map<String, Long> durations) {
+        if (durations.isEmpty()) {
+            return 0;
+        }
+        long totalDuration = 0;
+        for (Long duration : durations.values()) {
+            totalDuration += duration;
+        }
+        return totalDuration / durations.size();
+    }
+
+    public static boolean isForkBalancingEnabled() {
+        return Boolean.getBoolean(FORK_BALANCING_PROPERTY);
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -55,14 +111,13 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     }
 
     public void processTestClass(TestClassRunInfo testClass) {
+        if (isBalancing()) {
+            balanceTestClass(testClass);
+            return;
+        }
         TestClassProcessor processor;
         if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
+            processor = startProcessor(resultProcessor);
         } else {
             processor = processors.get(pos);
             pos = (pos + 1) % processors.size();
@@ -70,11 +125,169 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
         processor.processTestClass(testClass);
     }
 
+    private boolean isBalancing() {
+        return !previousDurations.isEmpty() && maxProcessors > 1;
+    }
+
+    private TestClassProcessor startProcessor(TestResultProcessor resultProcessor) {
+        TestClassProcessor processor = factory.create();
+        Actor actor = actorFactory.createActor(processor);
+        processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(processor);
+        processor.startProcessing(resultProcessor);
+        return processor;
+    }
+
+    private void balanceTestClass(TestClassRunInfo testClass) {
+        synchronized (lock) {
+            if (loads.isEmpty()) {
+                startTime = System.currentTimeMillis();
+                // Start the processors while the remaining test classes are being scanned
+                int processorCount = Math.min(maxProcessors, previousDurations.size());
+                for (int i = 0; i < processorCount; i++) {
+                    startProcessorLoad();
+                }
+            }
+            Long duration = previousDurations.get(testClass.getTestClassName());
+            if (duration == null) {
+                assign(testClass, defaultDuration);
+            } else {
+                pendingTestClasses.add(testClass);
+                assignToIdleProcessors();
+            }
+        }
+    }
+
+    private void assignToIdleProcessors() {
+        while (!pendingTestClasses.isEmpty()) {
+            ProcessorLoad idleLoad = null;
+            for (ProcessorLoad load : loads) {
+                if (load.runningTestClassCount <= 0 && (idleLoad == null || load.compareTo(idleLoad) < 0)) {
+                    idleLoad = load;
+                }
+            }
+            if (idleLoad == null) {
+                return;
+            }
+            TestClassRunInfo testClass = Collections.min(pendingTestClasses, longestFirst);
+            pendingTestClasses.remove(testClass);
+            assign(idleLoad, testClass, previousDurations.get(testClass.getTestClassName()));
+        }
+    }
+
+    private void assignPendingTestClasses() {
+        synchronized (lock) {
+            Collections.sort(pendingTestClasses, longestFirst);
+            for (TestClassRunInfo testClass : pendingTestClasses) {
+                assign(testClass, previousDurations.get(testClass.getTestClassName()));
+            }
+            pendingTestClasses.clear();
+        }
+    }
+
+    private void assign(TestClassRunInfo testClass, long expectedDuration) {
+        ProcessorLoad load = loads.isEmpty() ? null : Collections.min(loads);
+        if ((load == null || load.testClassCount > 0) && loads.size() < maxProcessors) {
+            load = startProcessorLoad();
+        }
+        assign(load, testClass, expectedDuration);
+    }
+
+    private void assign(ProcessorLoad load, TestClassRunInfo testClass, long expectedDuration) {
+        load.expectedDuration += expectedDuration;
+        load.testClassCount++;
+        load.runningTestClassCount++;
+        load.processor.processTestClass(testClass);
+    }
+
+    private void testClassCompleted(ProcessorLoad load) {
+        synchronized (lock) {
+            load.runningTestClassCount--;
+            assignToIdleProcessors();
+        }
+    }
+
+    private ProcessorLoad startProcessorLoad() {
+        ProcessorLoad load = new ProcessorLoad(loads.size() + 1, resultProcessor);
+        load.processor = startProcessor(load);
+        loads.add(load);
+        return load;
+    }
+
     public void stop() {
         try {
+            assignPendingTestClasses();
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
             throw UncheckedException.throwAsUncheckedException(e.getCause());
         }
+        logLoads();
+    }
+
+    private void logLoads() {
+        long wallTime = System.currentTimeMillis() - startTime;
+        for (ProcessorLoad load : loads) {
+            LOGGER.lifecycle(String.format("Test fork %d: %d test classes, expected %.1fs, busy %.1fs (%d%% of %.1fs).", load.index, load.testClassCount,
+                    load.expectedDuration / 1000.0, load.getBusyTime() / 1000.0, wallTime == 0 ? 100 : load.getBusyTime() * 100 / wallTime, wallTime / 1000.0));
+        }
+    }
+
+    /**
+     * Tracks the expected load of a processor, the test classes it has not finished yet, and the time it spends running test classes.
+     */
+    private class ProcessorLoad implements TestResultProcessor, Comparable<ProcessorLoad> {
+        private final int index;
+        private final TestResultProcessor delegate;
+        private final Map<Object, Long> runningTestClasses = new HashMap<Object, Long>();
+        private TestClassProcessor processor;
+        private long expectedDuration;
+        private int testClassCount;
+        private int runningTestClassCount;
+        private long busyTime;
+
+        ProcessorLoad(int index, TestResultProcessor delegate) {
+            this.index = index;
+            this.delegate = delegate;
+        }
+
+        public int compareTo(ProcessorLoad other) {
+            return expectedDuration < other.expectedDuration ? -1 : expectedDuration > other.expectedDuration ? 1 : index - other.index;
+        }
+
+        synchronized long getBusyTime() {
+            return busyTime;
+        }
+
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            if (test.isComposite() && test.getClassName() != null) {
+                synchronized (this) {
+                    runningTestClasses.put(test.getId(), event.getStartTime());
+                }
+            }
+            delegate.started(test, event);
+        }
+
+        public void completed(Object testId, TestCompleteEvent event) {
+            Long testClassStartTime;
+            synchronized (this) {
+                testClassStartTime = runningTestClasses.remove(testId);
+                if (testClassStartTime != null) {
+                    busyTime += event.getEndTime() - testClassStartTime;
+                }
+            }
+            delegate.completed(testId, event);
+            if (testClassStartTime != null) {
+                testClassCompleted(this);
+            }
+        }
+
+        public void output(Object testId, TestOutputEvent event) {
+            delegate.output(testId, event);
+        }
+
+        public void failure(Object testId, Throwable result) {
+            delegate.failure(testId, result);
+        }
     }
 }
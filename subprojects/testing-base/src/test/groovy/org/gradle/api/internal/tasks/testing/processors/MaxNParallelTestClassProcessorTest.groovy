@@ -17,8 +17,11 @@
 package org.gradle.api.internal.tasks.testing.processors
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
 import org.gradle.messaging.actor.Actor
 import org.gradle.messaging.actor.ActorFactory
 import spock.lang.Specification
@@ -167,4 +170,125 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         then:
         1 * asyncProcessor2.processTestClass(test)
     }
+
+    def startsProcessorsOnFirstTestClassAndAssignsLongestKnownTestClassesToIdleProcessorsWhenDurationsAreKnown() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [A: 100L, B: 300L, C: 200L, D: 50L, F: 20L])
+        def testA = testClass("A")
+        def testB = testClass("B")
+        def testC = testClass("C")
+        def testD = testClass("D")
+        def testE = testClass("E")
+        def testF = testClass("F")
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        TestResultProcessor forkResultProcessor1 = null
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.processTestClass(testA)
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.startProcessing(!null) >> { TestResultProcessor resultProcessor -> forkResultProcessor1 = resultProcessor }
+
+        then:
+        1 * factory.create() >> processor2
+        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor2.startProcessing(!null)
+
+        then:
+        // Both processors are idle, so A is assigned right away
+        1 * asyncProcessor1.processTestClass(testA)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        [testB, testD, testE, testC].each { processor.processTestClass(it) }
+
+        then:
+        // B goes to the remaining idle processor, E did not run previously so is assigned right away and is expected to take the average duration
+        1 * asyncProcessor2.processTestClass(testB)
+        1 * asyncProcessor1.processTestClass(testE)
+        0 * factory.create()
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        [testA, testE].each { test ->
+            def descriptor = new DefaultTestClassDescriptor(test.testClassName, test.testClassName)
+            forkResultProcessor1.started(descriptor, new TestStartEvent(100L))
+            forkResultProcessor1.completed(test.testClassName, new TestCompleteEvent(200L))
+        }
+
+        then:
+        // The first processor is idle again, so it gets the longest test class collected so far
+        1 * asyncProcessor1.processTestClass(testC)
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        processor.processTestClass(testF)
+        processor.stop()
+
+        then:
+        1 * asyncProcessor2.processTestClass(testD)
+
+        then:
+        1 * asyncProcessor2.processTestClass(testF)
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+        1 * resultProcessorActor.stop()
+        0 * factory.create()
+    }
+
+    def forwardsResultsOfBalancedProcessorsToResultProcessor() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [A: 100L])
+        def testA = testClass("A")
+        def descriptor = new DefaultTestClassDescriptor("id", "A")
+        def startEvent = new TestStartEvent(100L)
+        def completeEvent = new TestCompleteEvent(200L)
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+        TestResultProcessor forkResultProcessor = null
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+        factory.create() >> processor1
+        actorFactory.createActor(processor1) >> actor1
+        actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+
+        when:
+        processor.processTestClass(testA)
+        processor.stop()
+
+        then:
+        1 * asyncProcessor1.startProcessing(!null) >> { TestResultProcessor resultProcessor -> forkResultProcessor = resultProcessor }
+
+        when:
+        forkResultProcessor.started(descriptor, startEvent)
+        forkResultProcessor.completed("id", completeEvent)
+
+        then:
+        1 * asyncResultProcessor.started(descriptor, startEvent)
+        1 * asyncResultProcessor.completed("id", completeEvent)
+    }
+
+    def testClass(String name) {
+        TestClassRunInfo testClass = Mock()
+        testClass.getTestClassName() >> name
+        testClass
+    }
 }
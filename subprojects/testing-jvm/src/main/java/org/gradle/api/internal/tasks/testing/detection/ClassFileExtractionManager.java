@@ -15,11 +15,14 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang.text.StrBuilder;
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.file.DefaultTemporaryFileProvider;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.util.JarUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,23 +30,31 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages class file extraction from library jar files. It can be used concurrently from multiple threads.
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
+    private static final int MAX_CACHED_JARS = 2000;
+    // The packages of each library jar, shared by all test tasks of the process and keyed by the jar's path, size and timestamp
+    private static final Cache<JarFileKey, Set<String>> JAR_PACKAGES = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_JARS).build();
     private final Map<String, Set<File>> packageJarFilesMappings;
-    private final Map<String, File> extractedJarClasses;
-    private final Set<String> unextractableClasses;
+    // The extraction of each class, whose result is null when the class cannot be extracted
+    private final ConcurrentMap<String, Future<File>> extractedJarClasses;
     private final TemporaryFileProvider tempDirProvider;
 
     public ClassFileExtractionManager(final Factory<File> tempDirFactory) {
         assert tempDirFactory != null;
         tempDirProvider = new DefaultTemporaryFileProvider(tempDirFactory);
         packageJarFilesMappings = new HashMap<String, Set<File>>();
-        extractedJarClasses = new HashMap<String, File>();
-        unextractableClasses = new TreeSet<String>();
+        extractedJarClasses = new ConcurrentHashMap<String, Future<File>>();
     }
 
     /**
@@ -51,18 +62,32 @@ public class ClassFileExtractionManager {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
-        new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
-            public void receivePackage(String packageName) {
-                Set<File> jarFiles = packageJarFilesMappings.get(packageName);
-                if (jarFiles == null) {
-                    jarFiles = new TreeSet<File>();
-                }
-                jarFiles.add(libraryJar);
-
-                packageJarFilesMappings.put(packageName, jarFiles);
+    public synchronized void addLibraryJar(final File libraryJar) {
+        for (String packageName : getJarPackages(libraryJar)) {
+            Set<File> jarFiles = packageJarFilesMappings.get(packageName);
+            if (jarFiles == null) {
+                jarFiles = new TreeSet<File>();
             }
-        });
+            jarFiles.add(libraryJar);
+
+            packageJarFilesMappings.put(packageName, jarFiles);
+        }
+    }
+
+    private static Set<String> getJarPackages(File libraryJar) {
+        JarFileKey key = new JarFileKey(libraryJar);
+        Set<String> packages = JAR_PACKAGES.getIfPresent(key);
+        if (packages == null) {
+            final Set<String> jarPackages = new LinkedHashSet<String>();
+            new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
+                public void receivePackage(String packageName) {
+                    jarPackages.add(packageName);
+                }
+            });
+            packages = Collections.unmodifiableSet(jarPackages);
+            JAR_PACKAGES.put(key, packages);
+        }
+        return packages;
     }
 
     /**
@@ -74,26 +99,34 @@ public class ClassFileExtractionManager {
      * @return File that contains the extracted class file.
      */
     public File getLibraryClassFile(final String className) {
-        if (unextractableClasses.contains(className)) {
-            return null;
-        } else {
-            if (!extractedJarClasses.containsKey(className)) {
-                if (!extractClassFile(className)) {
-                    unextractableClasses.add(className);
-                }
+        // Only extractions of the same class wait for each other
+        FutureTask<File> extraction = new FutureTask<File>(new Callable<File>() {
+            public File call() {
+                return extractClassFile(className);
             }
-
-            return extractedJarClasses.get(className);
+        });
+        Future<File> classFile = extractedJarClasses.putIfAbsent(className, extraction);
+        if (classFile == null) {
+            classFile = extraction;
+            extraction.run();
+        }
+        try {
+            return classFile.get();
+        } catch (ExecutionException e) {
+            extractedJarClasses.remove(className, classFile);
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
         }
     }
 
-    private boolean extractClassFile(final String className) {
+    private File extractClassFile(final String className) {
         boolean classFileExtracted = false;
 
         final File extractedClassFile = tempFile();
         final String classFileName = new StrBuilder().append(className).append(".class").toString();
         final String classNamePackage = classNamePackage(className);
-        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
+        final Set<File> packageJarFiles = getPackageJarFiles(classNamePackage);
 
         File classFileSourceJar = null;
 
@@ -117,11 +150,16 @@ public class ClassFileExtractionManager {
             if (classFileExtracted) {
                 LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
 
-                extractedJarClasses.put(className, extractedClassFile);
+                return extractedClassFile;
             }
         } // super class not on the classpath - unable to scan parent class
 
-        return classFileExtracted;
+        return null;
+    }
+
+    private synchronized Set<File> getPackageJarFiles(String packageName) {
+        Set<File> jarFiles = packageJarFilesMappings.get(packageName);
+        return jarFiles == null ? null : new TreeSet<File>(jarFiles);
     }
 
     private String classNamePackage(final String className) {
@@ -137,4 +175,33 @@ public class ClassFileExtractionManager {
     private File tempFile() {
         return tempDirProvider.createTemporaryFile("jar_extract_", "_tmp"); // Could throw UncheckedIOException
     }
+
+    private static class JarFileKey {
+        private final String path;
+        private final long length;
+        private final long lastModified;
+
+        JarFileKey(File jarFile) {
+            this.path = jarFile.getAbsolutePath();
+            this.length = jarFile.length();
+            this.lastModified = jarFile.lastModified();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            JarFileKey other = (JarFileKey) obj;
+            return path.equals(other.path) && length == other.length && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() ^ (int) length ^ (int) lastModified;
+        }
+    }
 }
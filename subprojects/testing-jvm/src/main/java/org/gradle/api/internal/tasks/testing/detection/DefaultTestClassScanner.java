@@ -22,30 +22,58 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.UncheckedException;
 
 import java.io.File;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * <p>When an executor is provided, the class files are passed to the detector concurrently, and each test class is handed to the
+ * test class processor as soon as it is detected. This is enabled by the {@value #PARALLEL_SCAN_PROPERTY} system property.</p>
  */
 public class DefaultTestClassScanner implements Runnable {
+    public static final String PARALLEL_SCAN_PROPERTY = "org.gradle.test.parallelscan";
+
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorService detectionExecutor;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null);
+    }
+
+    /**
+     * @param detectionExecutor The executor to run the detection on, or null to run the detection on the calling thread.
+     */
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, ExecutorService detectionExecutor) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.detectionExecutor = detectionExecutor;
+    }
+
+    public static boolean isParallelScanEnabled() {
+        return Boolean.getBoolean(PARALLEL_SCAN_PROPERTY);
     }
 
     public void run() {
         if (testFrameworkDetector == null) {
             filenameScan();
-        } else {
+        } else if (detectionExecutor == null) {
             detectionScan();
+        } else {
+            parallelDetectionScan();
         }
     }
 
@@ -58,6 +86,44 @@ public class DefaultTestClassScanner implements Runnable {
         });
     }
 
+    private void parallelDetectionScan() {
+        testFrameworkDetector.startDetection(new SynchronizedTestClassProcessor(testClassProcessor));
+        final Queue<Future<?>> detections = new LinkedList<Future<?>>();
+        try {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    final File testClassFile = fileDetails.getFile();
+                    detections.add(detectionExecutor.submit(new Runnable() {
+                        public void run() {
+                            testFrameworkDetector.processTestClass(testClassFile);
+                        }
+                    }));
+                    // Report failures early rather than after the whole tree has been visited
+                    while (!detections.isEmpty() && detections.peek().isDone()) {
+                        waitFor(detections.remove());
+                    }
+                }
+            });
+            while (!detections.isEmpty()) {
+                waitFor(detections.remove());
+            }
+        } finally {
+            for (Future<?> detection : detections) {
+                detection.cancel(false);
+            }
+        }
+    }
+
+    private static void waitFor(Future<?> detection) {
+        try {
+            detection.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
     private void filenameScan() {
         candidateClassFiles.visit(new ClassFileVisitor() {
             public void visitClassFile(FileVisitDetails fileDetails) {
@@ -79,4 +145,27 @@ public class DefaultTestClassScanner implements Runnable {
 
         public abstract void visitClassFile(FileVisitDetails fileDetails);
     }
+
+    /**
+     * Passes the test classes detected by concurrent detections to the target processor one at a time.
+     */
+    private static class SynchronizedTestClassProcessor implements TestClassProcessor {
+        private final TestClassProcessor target;
+
+        SynchronizedTestClassProcessor(TestClassProcessor target) {
+            this.target = target;
+        }
+
+        public synchronized void startProcessing(TestResultProcessor resultProcessor) {
+            target.startProcessing(resultProcessor);
+        }
+
+        public synchronized void processTestClass(TestClassRunInfo testClass) {
+            target.processTestClass(testClass);
+        }
+
+        public synchronized void stop() {
+            target.stop();
+        }
+    }
 }
@@ -28,20 +28,37 @@ import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.Factory;
 import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.progress.OperationIdGenerator;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter {
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactory;
+    private final ExecutorFactory executorFactory;
+    private final Map<String, Long> previousTestClassDurations;
 
     public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactory) {
+        this(workerFactory, actorFactory, null, Collections.<String, Long>emptyMap());
+    }
+
+    /**
+     * @param executorFactory Used to detect test classes concurrently when enabled, may be null.
+     * @param previousTestClassDurations The duration in milliseconds of each test class in the previous run, used to balance the test classes across forks.
+     */
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactory, ExecutorFactory executorFactory, Map<String, Long> previousTestClassDurations) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
+        this.executorFactory = executorFactory;
+        this.previousTestClassDurations = previousTestClassDurations;
     }
 
     public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
@@ -60,22 +77,32 @@ public class DefaultTestExecuter implements TestExecuter {
         };
 
         TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-            reforkingProcessorFactory, actorFactory);
+            reforkingProcessorFactory, actorFactory, previousTestClassDurations);
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
         Runnable detector;
+        StoppableExecutor detectionExecutor = null;
         if (testTask.isScanForTestClasses()) {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
             testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
             testFrameworkDetector.setTestClasspath(testTask.getClasspath());
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            if (executorFactory != null && DefaultTestClassScanner.isParallelScanEnabled()) {
+                detectionExecutor = executorFactory.create(String.format("detect test classes for %s", testTask.getPath()), Runtime.getRuntime().availableProcessors());
+            }
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, detectionExecutor);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
 
         final Object testTaskOperationId = OperationIdGenerator.generateId(testTask);
 
-        new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider(), testTaskOperationId, testTask.getPath(), String.format("Gradle Test Run %s", testTask.getPath())).run();
+        try {
+            new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider(), testTaskOperationId, testTask.getPath(), String.format("Gradle Test Run %s", testTask.getPath())).run();
+        } finally {
+            if (detectionExecutor != null) {
+                detectionExecutor.stop();
+            }
+        }
     }
 }
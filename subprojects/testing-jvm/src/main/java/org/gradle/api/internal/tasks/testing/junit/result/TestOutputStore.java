@@ -27,7 +27,12 @@ import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -71,6 +76,10 @@ public class TestOutputStore {
 
     public class Writer implements Closeable {
         private final KryoBackedEncoder output;
+        private final CharsetEncoder messageEncoder = messageStorageCharset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer messageBuffer = ByteBuffer.allocate(1024);
 
         private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
 
@@ -99,14 +108,29 @@ public class TestOutputStore {
             output.writeSmallLong(classId);
             output.writeSmallLong(testId);
 
-            byte[] bytes;
-            try {
-                bytes = outputEvent.getMessage().getBytes(messageStorageCharset.name());
-            } catch (UnsupportedEncodingException e) {
-                throw UncheckedException.throwAsUncheckedException(e);
+            ByteBuffer bytes = encode(outputEvent.getMessage());
+            output.writeSmallInt(bytes.position());
+            output.writeBytes(bytes.array(), 0, bytes.position());
+        }
+
+        /**
+         * Encodes the message into a buffer that is reused for every event, as there can be very many of these.
+         */
+        private ByteBuffer encode(String message) {
+            int maxLength = (int) Math.ceil(message.length() * messageEncoder.maxBytesPerChar());
+            if (messageBuffer.capacity() < maxLength) {
+                messageBuffer = ByteBuffer.allocate(Math.max(maxLength, messageBuffer.capacity() * 2));
+            }
+            messageBuffer.clear();
+            messageEncoder.reset();
+            CoderResult result = messageEncoder.encode(CharBuffer.wrap(message), messageBuffer, true);
+            if (result.isUnderflow()) {
+                result = messageEncoder.flush(messageBuffer);
+            }
+            if (!result.isUnderflow()) {
+                throw new IllegalStateException(String.format("Could not encode test output using %s: %s", messageStorageCharset, result));
             }
-            output.writeSmallInt(bytes.length);
-            output.writeBytes(bytes, 0, bytes.length);
+            return messageBuffer;
         }
 
         private void mark(long classId, long testId, boolean isStdout) {
@@ -39,6 +39,7 @@ import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
 import org.gradle.api.internal.tasks.testing.junit.result.*;
 import org.gradle.api.internal.tasks.testing.logging.*;
+import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.results.StateTrackingTestResultProcessor;
 import org.gradle.api.internal.tasks.testing.results.TestListenerAdapter;
 import org.gradle.api.internal.tasks.testing.results.TestListenerInternal;
@@ -53,6 +54,7 @@ import org.gradle.api.tasks.testing.logging.TestLoggingContainer;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.reflect.Instantiator;
@@ -503,6 +505,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         File binaryResultsDir = getBinResultsDir();
+        Map<String, Long> previousTestClassDurations = readPreviousTestClassDurations(binaryResultsDir);
         getProject().delete(binaryResultsDir);
         getProject().mkdir(binaryResultsDir);
 
@@ -523,7 +526,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         TestResultProcessor resultProcessor = new StateTrackingTestResultProcessor(testListenerInternalBroadcaster.getSource());
 
         if (testExecuter == null) {
-            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory());
+            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getServices().get(ExecutorFactory.class), previousTestClassDurations);
         }
 
         try {
@@ -1136,6 +1139,24 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
     }
 
+    private Map<String, Long> readPreviousTestClassDurations(File binaryResultsDir) {
+        final Map<String, Long> durations = new HashMap<String, Long>();
+        if (!MaxNParallelTestClassProcessor.isForkBalancingEnabled() || getMaxParallelForks() < 2) {
+            return durations;
+        }
+        try {
+            new TestResultSerializer(binaryResultsDir).read(new Action<TestClassResult>() {
+                public void execute(TestClassResult result) {
+                    durations.put(result.getClassName(), result.getDuration());
+                }
+            });
+        } catch (Exception e) {
+            getLogger().info("Could not read the test class durations of the previous run, the test classes will not be balanced across forks.", e);
+            durations.clear();
+        }
+        return durations;
+    }
+
     private void handleTestFailures() {
         String message = "There were failing tests";
 
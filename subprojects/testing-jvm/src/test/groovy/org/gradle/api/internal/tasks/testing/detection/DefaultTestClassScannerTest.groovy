@@ -27,6 +27,13 @@ import org.jmock.Sequence
 import org.gradle.api.file.FileTree
 import static org.hamcrest.Matchers.*
 import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+
+import java.util.concurrent.Executors
+
+import static org.junit.Assert.assertThat
+import static org.junit.Assert.fail
 
 @RunWith(JMock.class)
 public class DefaultTestClassScannerTest {
@@ -55,4 +62,76 @@ public class DefaultTestClassScannerTest {
         
         scanner.run()
     }
+
+    @Test
+    public void detectsClassesConcurrentlyAndPassesDetectedClassesToProcessor() {
+        def executor = Executors.newFixedThreadPool(2)
+        def detected = Collections.synchronizedSet(new HashSet<String>())
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, new PublishingDetector(), processor, executor)
+
+        context.checking {
+            one(files).visit(withParam(notNullValue()))
+            will { visitor ->
+                visitor.visitFile({new File('class1.class')} as FileVisitDetails)
+                visitor.visitFile({new File('class2.class')} as FileVisitDetails)
+                visitor.visitFile({new File('class3.class')} as FileVisitDetails)
+            }
+            exactly(3).of(processor).processTestClass(withParam(notNullValue()))
+            will { testClass -> detected << testClass.testClassName }
+        }
+
+        try {
+            scanner.run()
+        } finally {
+            executor.shutdown()
+        }
+
+        assertThat(detected, equalTo(['class1', 'class2', 'class3'] as Set))
+    }
+
+    @Test
+    public void rethrowsFailureOfConcurrentDetection() {
+        def executor = Executors.newFixedThreadPool(2)
+        def failure = new RuntimeException("broken")
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, new PublishingDetector(failure: failure), processor, executor)
+
+        context.checking {
+            one(files).visit(withParam(notNullValue()))
+            will { visitor ->
+                visitor.visitFile({new File('class1.class')} as FileVisitDetails)
+            }
+        }
+
+        try {
+            scanner.run()
+            fail()
+        } catch (RuntimeException e) {
+            assertThat(e, sameInstance(failure))
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    private static class PublishingDetector implements TestFrameworkDetector {
+        TestClassProcessor processor
+        RuntimeException failure
+
+        void startDetection(TestClassProcessor testClassProcessor) {
+            processor = testClassProcessor
+        }
+
+        boolean processTestClass(File testClassFile) {
+            if (failure != null) {
+                throw failure
+            }
+            processor.processTestClass(new DefaultTestClassRunInfo(testClassFile.name - '.class'))
+            return true
+        }
+
+        void setTestClassesDirectory(File testClassesDir) {
+        }
+
+        void setTestClasspath(FileCollection classpath) {
+        }
+    }
 }
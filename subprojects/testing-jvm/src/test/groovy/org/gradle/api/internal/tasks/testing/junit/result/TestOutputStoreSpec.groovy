@@ -98,6 +98,25 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "reads back output of any length and characters"() {
+        def longMessage = "a\u00e9\u4e2d\uD83D\uDE00" * 1000
+
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[short]"))
+        writer.onOutput(1, 1, output(StdOut, longMessage))
+        writer.onOutput(1, 1, output(StdOut, ""))
+        writer.onOutput(1, 1, output(StdOut, "[\u00fc]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "[short]" + longMessage + "[\u00fc]"
+
+        cleanup:
+        reader.close()
+    }
+
     def DefaultTestOutputEvent output(TestOutputEvent.Destination destination, String msg) {
         new DefaultTestOutputEvent(destination, msg)
     }